@@ -0,0 +1,99 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import orderfulfillapp.Shared;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to fulfill one order with the approval check in each {@link ApprovalPolicy.Mode}, against
+ * the in-process test server, where a task round trip is nearly free. What one workflow records
+ * in its history is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApprovalModeBenchmark {
+
+    @Param({"INLINE", "LOCAL", "REMOTE"})
+    private ApprovalPolicy.Mode mode;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private TestWorkflowEnvironment testEnv;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+        ApprovalPolicy policy = new ApprovalPolicy(mode, ApprovalPolicy.DEFAULT_THRESHOLD);
+        worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                () -> new OrderFulfillWorkflowImpl(policy));
+        worker.registerActivitiesImplementations(new HistorySizeBenchmark.NoopActivities());
+        testEnv.start();
+
+        order = new Order(List.of(new OrderItem("Pima Cotton T-Shirt", 49.99, 1)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+
+        String workflowId = fulfillOrder();
+        int events = 0;
+        int markers = 0;
+        int activities = 0;
+        int workflowTasks = 0;
+        for (HistoryEvent event : testEnv.getWorkflowClient().fetchHistory(workflowId).getEvents()) {
+            events++;
+            markers += event.hasMarkerRecordedEventAttributes() ? 1 : 0;
+            activities += event.hasActivityTaskScheduledEventAttributes() ? 1 : 0;
+            workflowTasks += event.hasWorkflowTaskScheduledEventAttributes() ? 1 : 0;
+        }
+        System.out.printf("%nApproval check %s: %d history events, %d markers, %d activities, %d workflow tasks%n",
+                mode, events, markers, activities, workflowTasks);
+    }
+
+    @TearDown
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    /**
+     * Fulfill the order and return its workflow id.
+     */
+    @Benchmark
+    public String fulfillOrder() {
+        String workflowId = "bench-approval-" + mode + "-" + sequence.incrementAndGet();
+        OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                        .setWorkflowId(workflowId)
+                        .build());
+        workflow.fulfillOrder(order);
+        return workflowId;
+    }
+}
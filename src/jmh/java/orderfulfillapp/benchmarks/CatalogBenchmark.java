@@ -0,0 +1,107 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.api.ColumnarStockTable;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock lookups by item name in a catalog of {@code catalogSize} SKUs, stored as it was before
+ * ({@code pojo}: a {@code StockItem} per SKU and a hash map from name to index), or by column on
+ * the heap or off it. Setup prints the heap each layout retains after a full GC.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+    private static final int LOOKUPS = 4096;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"pojo", "columnar", "offheap"})
+    private String layout;
+
+    private List<StockItem> items;
+    private Map<String, Integer> index;
+    private ColumnarStockTable table;
+    private String[] lookups;
+
+    @Setup
+    public void setup() {
+        long before = usedHeapAfterGc();
+        if (layout.equals("pojo")) {
+            items = new ArrayList<>(catalogSize);
+            index = new HashMap<>();
+            for (int i = 0; i < catalogSize; i++) {
+                StockItem item = new StockItem("sku-" + i, 10.0 + i % 100, 1000);
+                items.add(item);
+                index.putIfAbsent(item.getItemName(), i);
+            }
+        } else {
+            ColumnarStockTable.Builder builder = ColumnarStockTable.builder(catalogSize, layout.equals("offheap"));
+            for (int i = 0; i < catalogSize; i++) {
+                builder.add("sku-" + i, 10.0 + i % 100, 1000);
+            }
+            table = builder.build();
+        }
+        long retained = Math.max(0, usedHeapAfterGc() - before);
+        System.out.printf("%n%s catalog of %,d SKUs: %,d bytes of heap%s%n", layout, catalogSize, retained,
+                table == null ? "" : String.format(", %,d bytes of columns", table.getFootprintBytes()));
+
+        SplittableRandom random = new SplittableRandom(42);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = "sku-" + random.nextInt(catalogSize);
+        }
+    }
+
+    /**
+     * Available stock of {@value #LOOKUPS} items, as a reservation looks each one up.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long lookupStock() {
+        long units = 0;
+        if (table == null) {
+            for (String name : lookups) {
+                units += items.get(index.get(name)).getStock();
+            }
+        } else {
+            for (String name : lookups) {
+                units += table.getStock(table.indexOf(name));
+            }
+        }
+        return units;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,72 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import orderfulfillapp.converter.OrderDataConverter;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of payload compression for orders of increasing size, against the same
+ * converter with compression disabled. Payload sizes are printed once per trial; every
+ * activity scheduled with the order repeats that payload in the workflow history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int itemCount;
+
+    @Param({"true", "false"})
+    private boolean compressed;
+
+    private DataConverter dataConverter;
+    private Order order;
+    private Payload payload;
+
+    @Setup
+    public void setup() {
+        dataConverter = OrderDataConverter.newInstance(compressed ? OrderDataConverter.DEFAULT_COMPRESSION_THRESHOLD : -1);
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItem("Low Top Sneaker (Men) size " + (i % 12), 67.00, 1 + i % 3));
+        }
+        order = new Order(items, new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+        payload = dataConverter.toPayload(order).orElseThrow();
+
+        System.out.printf("%n%d items, compressed=%s: payload size %d bytes%n",
+                itemCount, compressed, payload.getSerializedSize());
+    }
+
+    @Benchmark
+    public Payload encode() {
+        return dataConverter.toPayload(order).orElseThrow();
+    }
+
+    @Benchmark
+    public Order decode() {
+        return dataConverter.fromPayload(payload, Order.class, Order.class);
+    }
+}
@@ -0,0 +1,157 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import orderfulfillapp.Shared;
+import orderfulfillapp.activities.OrderFulfillActivities;
+import orderfulfillapp.converter.OrderDataConverter;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to fulfill one order end to end against the in-process test server, with and without
+ * payload compression, for orders of increasing size. The size of one workflow's history is
+ * printed once per trial, with what its scheduled activities carry: the order key, against the
+ * order payload each of them would repeat if it were scheduled with the order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistorySizeBenchmark {
+
+    @Param({"10", "300"})
+    private int itemCount;
+
+    @Param({"true", "false"})
+    private boolean compressed;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private TestWorkflowEnvironment testEnv;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(WorkflowClientOptions.newBuilder()
+                        .setDataConverter(OrderDataConverter.newInstance(
+                                compressed ? OrderDataConverter.DEFAULT_COMPRESSION_THRESHOLD : -1))
+                        .build())
+                .build());
+        Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+        worker.registerActivitiesImplementations(new NoopActivities());
+        testEnv.start();
+
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItem("Low Top Sneaker (Men) size " + (i % 12), 67.00, 1 + i % 3));
+        }
+        order = new Order(items, new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+
+        String workflowId = fulfillOrder();
+        WorkflowExecutionHistory history = testEnv.getWorkflowClient().fetchHistory(workflowId);
+        long orderBytes = testEnv.getWorkflowClient().getOptions().getDataConverter()
+                .toPayload(order).orElseThrow().getSerializedSize();
+        long inputBytes = 0;
+        long orderInputBytes = 0;
+        for (HistoryEvent event : history.getEvents()) {
+            if (event.hasActivityTaskScheduledEventAttributes()) {
+                inputBytes += event.getActivityTaskScheduledEventAttributes().getInput().getSerializedSize();
+                orderInputBytes += orderBytes;
+            }
+        }
+        System.out.printf("%n%d items, compressed=%s: history size %d bytes, activity inputs %d bytes"
+                        + " (%d bytes with full orders)%n", itemCount, compressed,
+                history.getHistory().getSerializedSize(), inputBytes, orderInputBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    /**
+     * Fulfill the order and return its workflow id.
+     */
+    @Benchmark
+    public String fulfillOrder() {
+        String workflowId = "bench-history-" + sequence.incrementAndGet();
+        OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                        .setWorkflowId(workflowId)
+                        .build());
+        workflow.fulfillOrder(order);
+        return workflowId;
+    }
+
+    public static class NoopActivities implements OrderFulfillActivities {
+        @Override
+        public String storeOrder(Order order) {
+            return "bench-order";
+        }
+
+        @Override
+        public void discardOrder(String orderKey) {
+        }
+
+        @Override
+        public boolean requireApproval(String orderKey) {
+            return false;
+        }
+
+        @Override
+        public String processPayment(String orderKey) {
+            return "Payment processed";
+        }
+
+        @Override
+        public String reserveInventory(String orderKey) {
+            return "Inventory reserved";
+        }
+
+        @Override
+        public String refundPayment(String orderKey) {
+            return "Payment refunded";
+        }
+
+        @Override
+        public String releaseInventory(String orderKey) {
+            return "Inventory released";
+        }
+
+        @Override
+        public String deliverOrder(String orderKey) {
+            return "Order delivered";
+        }
+    }
+}
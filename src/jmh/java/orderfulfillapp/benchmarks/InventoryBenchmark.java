@@ -0,0 +1,107 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock lookups and reservations at catalog sizes from 100 to 1M SKUs.
+ * This drives the {@link StockReservationEngine} that {@code InventoryApi.reserveInventory}
+ * delegates to, so the catalog size can vary independently of the stock database file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int catalogSize;
+
+    private StockCatalog catalog;
+    private StockReservationEngine engine;
+
+    @Setup
+    public void setup() {
+        List<StockItem> items = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            items.add(new StockItem("sku-" + i, 10.0, Integer.MAX_VALUE / 2));
+        }
+        catalog = StockCatalog.of(items);
+        engine = new StockReservationEngine(catalog);
+    }
+
+    /**
+     * Per-thread order and reservation ids, so id generation is not part of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "bench-" + Thread.currentThread().getId() + "-";
+        private List<String> itemNames;
+        private long sequence;
+
+        @Setup
+        public void setup(InventoryBenchmark benchmark) {
+            itemNames = new ArrayList<>(1024);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1024; i++) {
+                itemNames.add("sku-" + random.nextInt(benchmark.catalogSize));
+            }
+        }
+
+        String nextItem() {
+            return itemNames.get((int) (sequence++ & 1023));
+        }
+
+        String nextReservationId() {
+            return prefix + sequence;
+        }
+    }
+
+    @Benchmark
+    public StockItem findItem(ThreadState state) {
+        return catalog.findItem(state.nextItem());
+    }
+
+    @Benchmark
+    public void reserveAndRelease(ThreadState state) throws InsufficientStockException {
+        List<OrderItem> orderItems = List.of(
+                new OrderItem(state.nextItem(), 10.0, 1),
+                new OrderItem(state.nextItem(), 10.0, 2));
+        String reservationId = state.nextReservationId();
+        engine.reserve(reservationId, orderItems);
+        engine.release(reservationId);
+    }
+
+    /**
+     * Same as {@link #reserveAndRelease} with every thread of the machine competing. Items are
+     * spread over the whole catalog, so threads rarely hit the same SKU; see
+     * {@link ReservationContentionBenchmark} for hot SKUs.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void reserveAndReleaseContended(ThreadState state) throws InsufficientStockException {
+        reserveAndRelease(state);
+    }
+}
@@ -0,0 +1,130 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.ledger.InventoryLedger;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reservations per second with the inventory ledger, by durability: in memory only (no ledger),
+ * written to the OS page cache, or forced to disk with {@code fsync}. Each operation reserves two
+ * items and releases them again, so it writes two records. With many threads, group commit lets
+ * one {@code fsync} cover the records of every thread waiting on it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"memory", "page-cache", "fsync"})
+    private String durability;
+
+    private Path directory;
+    private StockReservationEngine engine;
+    private InventoryLedger ledger;
+
+    @Setup
+    public void setup() throws IOException {
+        List<StockItem> items = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            items.add(new StockItem("sku-" + i, 10.0, Integer.MAX_VALUE / 2));
+        }
+        engine = new StockReservationEngine(StockCatalog.of(items));
+        directory = Files.createTempDirectory("ledger-bench");
+        if (!durability.equals("memory")) {
+            ledger = InventoryLedger.open(directory, engine, durability.equals("fsync"), InventoryLedger.DEFAULT_SNAPSHOT_EVENTS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (ledger != null) {
+            System.out.printf("%n%d records in %d group commits%n",
+                    ledger.getWriteAheadLog().getAppended(), ledger.getWriteAheadLog().getFlushes());
+            ledger.close();
+        }
+        deleteRecursively(directory);
+    }
+
+    /**
+     * Per-thread item names and reservation ids, so generating them is not part of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "bench-" + Thread.currentThread().getId() + "-";
+        private final List<String> itemNames = new ArrayList<>(1024);
+        private long sequence;
+
+        @Setup
+        public void setup() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1024; i++) {
+                itemNames.add("sku-" + random.nextInt(CATALOG_SIZE));
+            }
+        }
+
+        String nextItem() {
+            return itemNames.get((int) (sequence++ & 1023));
+        }
+
+        String nextReservationId() {
+            return prefix + sequence;
+        }
+    }
+
+    @Benchmark
+    public void reserveAndRelease(ThreadState state) throws InsufficientStockException {
+        List<OrderItem> orderItems = List.of(
+                new OrderItem(state.nextItem(), 10.0, 1),
+                new OrderItem(state.nextItem(), 10.0, 2));
+        String reservationId = state.nextReservationId();
+        engine.reserve(reservationId, orderItems);
+        engine.release(reservationId);
+    }
+
+    /**
+     * Same as {@link #reserveAndRelease} with 32 threads, like a worker with 32 activity slots.
+     */
+    @Benchmark
+    @Threads(32)
+    public void reserveAndReleaseConcurrently(ThreadState state) throws InsufficientStockException {
+        reserveAndRelease(state);
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.ledger.InventoryLedger;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for a worker to restore its reservations on startup: load the latest snapshot of
+ * {@code reservations} reservations, then replay a write-ahead log tail of 100,000 records.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class LedgerRecoveryBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int TAIL_RECORDS = 100_000;
+
+    @Param({"100000", "1000000"})
+    private int reservations;
+
+    private StockCatalog catalog;
+    private Path directory;
+
+    @Setup
+    public void setup() throws IOException, InsufficientStockException {
+        List<StockItem> items = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            items.add(new StockItem("sku-" + i, 10.0, Integer.MAX_VALUE / 2));
+        }
+        catalog = StockCatalog.of(items);
+        directory = Files.createTempDirectory("ledger-recovery-bench");
+
+        StockReservationEngine engine = new StockReservationEngine(catalog);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, engine, false, Long.MAX_VALUE)) {
+            for (int i = 0; i < reservations; i++) {
+                engine.reserve("order-" + i, List.of(
+                        new OrderItem("sku-" + (i % CATALOG_SIZE), 10.0, 1),
+                        new OrderItem("sku-" + ((i * 7) % CATALOG_SIZE), 10.0, 2)));
+            }
+            ledger.snapshot();
+            // Half the tail releases snapshotted reservations, half makes new ones
+            for (int i = 0; i < TAIL_RECORDS / 2; i++) {
+                engine.release("order-" + i);
+                engine.reserve("tail-order-" + i, List.of(new OrderItem("sku-" + (i % CATALOG_SIZE), 10.0, 1)));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LedgerBenchmark.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long recover() throws IOException {
+        StockReservationEngine engine = new StockReservationEngine(catalog);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, engine, false, Long.MAX_VALUE)) {
+            return ledger.getRecoveredReservations();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package orderfulfillapp.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.logging.ActivityMdcInterceptor;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the reserve-inventory activity body under each logging setup, with several
+ * threads logging at once like a busy activity worker. The appender writes to a temporary file
+ * rather than the console so the benchmark output stays readable.
+ * <ul>
+ *   <li>{@code development}: synchronous appender, {@code orderfulfillapp} at DEBUG ({@code logback.xml})</li>
+ *   <li>{@code synchronous}: synchronous appender at INFO, to separate the level from the appender</li>
+ *   <li>{@code production}: bounded async appender at INFO ({@code logback-production.xml})</li>
+ *   <li>{@code off}: application logging disabled, the upper bound</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger("orderfulfillapp.activities.OrderFulfillActivitiesImpl");
+    private static final String PATTERN =
+            "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} [%X{workflowId} %X{activityType} %X{attempt}] - %msg%n";
+
+    @Param({"development", "synchronous", "production", "off"})
+    private String mode;
+
+    private File logFile;
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setup() throws IOException {
+        logFile = File.createTempFile("logging-benchmark", ".log");
+        logFile.deleteOnExit();
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setFile(logFile.getAbsolutePath());
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        Level level = Level.INFO;
+        switch (mode) {
+            case "development":
+                level = Level.DEBUG;
+                break;
+            case "production":
+                // Same settings as logback-production.xml
+                AsyncAppender async = new AsyncAppender();
+                async.setContext(context);
+                async.setName("ASYNC");
+                async.setQueueSize(8192);
+                async.setDiscardingThreshold(1638);
+                async.setNeverBlock(true);
+                async.addAppender(file);
+                async.start();
+                appender = async;
+                break;
+            case "off":
+                level = Level.OFF;
+                break;
+            default:
+                break;
+        }
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+        context.getLogger("orderfulfillapp").setLevel(level);
+
+        List<String> itemNames = StockCatalog.getInstance().getItems().stream()
+                .sorted((a, b) -> Integer.compare(b.getStock(), a.getStock()))
+                .limit(3)
+                .map(StockItem::getItemName)
+                .toList();
+        orderItems = itemNames.stream().map(name -> new OrderItem(name, 10.0, 1)).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    /**
+     * Per-thread reservation ids, as each activity reserves for its own workflow.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "logging-bench-" + Thread.currentThread().getId() + "-";
+        private long sequence;
+
+        String nextWorkflowId() {
+            return prefix + sequence++;
+        }
+    }
+
+    /**
+     * The logging done around one reserveInventory activity attempt: the MDC set by
+     * {@link ActivityMdcInterceptor}, the activity's own lines, and the per-item lines of
+     * {@link InventoryApi}. The reservation is released again so stock never runs out.
+     */
+    @Benchmark
+    public void reserveInventoryActivity(ThreadState state) throws IOException, InsufficientStockException {
+        String workflowId = state.nextWorkflowId();
+        MDC.put(ActivityMdcInterceptor.WORKFLOW_ID, workflowId);
+        MDC.put(ActivityMdcInterceptor.ACTIVITY_TYPE, "ReserveInventory");
+        MDC.put(ActivityMdcInterceptor.ATTEMPT, "1");
+        try {
+            logger.info("Reserving inventory...");
+            InventoryApi.reserveInventory(workflowId, orderItems);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Simulating delay of {}ms", 1000);
+            }
+            InventoryApi.releaseInventory(workflowId);
+        } finally {
+            MDC.remove(ActivityMdcInterceptor.WORKFLOW_ID);
+            MDC.remove(ActivityMdcInterceptor.ACTIVITY_TYPE);
+            MDC.remove(ActivityMdcInterceptor.ATTEMPT);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.model.Order;
+import orderfulfillapp.starter.OrderStarter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating a set of random orders, including reading the stock database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderGenerationBenchmark {
+
+    @Param({"10", "1000"})
+    private int count;
+
+    @Param({"0", "20"})
+    private int invalidPercentage;
+
+    @Benchmark
+    public List<Order> generateOrders() {
+        return OrderStarter.generateOrders(count, invalidPercentage);
+    }
+}
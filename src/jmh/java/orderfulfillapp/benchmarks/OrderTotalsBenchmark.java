@@ -0,0 +1,120 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.OrderTotals;
+import orderfulfillapp.model.StockItem;
+import orderfulfillapp.starter.Distribution;
+import orderfulfillapp.starter.OrderGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order totals per second over a batch of 100,000 generated orders of one to five items:
+ * <ul>
+ * <li>{@code doubleStream}: the old total, {@code itemPrice * quantity} summed in a stream;</li>
+ * <li>{@code centsLoop}: the same in cents, with a plain loop over each order's items;</li>
+ * <li>{@code cached}: {@link Order#getTotalCents()} once each order has cached its total;</li>
+ * <li>{@code bulk}: {@link OrderTotals#of}, copying the batch into columns and summing those;</li>
+ * <li>{@code bulkColumns}: {@link OrderTotals#sum} on columns already built.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class OrderTotalsBenchmark {
+    private static final int ORDERS = 100_000;
+
+    private List<Order> orders;
+    private long[] priceCents;
+    private int[] quantities;
+    private int[] itemOffsets;
+
+    @Setup
+    public void setup() {
+        List<StockItem> stock = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            stock.add(new StockItem("sku-" + i, 0.99 + i % 500, 1_000_000));
+        }
+        OrderGenerator generator = new OrderGenerator(stock, 42);
+        generator.setItemCounts(5, Distribution.uniform());
+        orders = generator.generate(ORDERS);
+
+        itemOffsets = new int[ORDERS + 1];
+        for (int o = 0; o < ORDERS; o++) {
+            itemOffsets[o + 1] = itemOffsets[o] + orders.get(o).getItems().size();
+        }
+        priceCents = new long[itemOffsets[ORDERS]];
+        quantities = new int[priceCents.length];
+        for (int o = 0; o < ORDERS; o++) {
+            List<OrderItem> items = orders.get(o).getItems();
+            for (int i = 0; i < items.size(); i++) {
+                priceCents[itemOffsets[o] + i] = items.get(i).getItemPriceCents();
+                quantities[itemOffsets[o] + i] = items.get(i).getQuantity();
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public double doubleStream() {
+        double sum = 0;
+        for (Order order : orders) {
+            sum += order.getItems().stream()
+                    .mapToDouble(item -> item.getItemPrice() * item.getQuantity())
+                    .sum();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long centsLoop() {
+        long sum = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            List<OrderItem> items = orders.get(o).getItems();
+            for (int i = 0; i < items.size(); i++) {
+                sum += items.get(i).getLineTotalCents();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long cached() {
+        long sum = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            sum += orders.get(o).getTotalCents();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public OrderTotals bulk() {
+        return OrderTotals.of(orders);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long[] bulkColumns() {
+        return OrderTotals.sum(priceCents, quantities, itemOffsets);
+    }
+}
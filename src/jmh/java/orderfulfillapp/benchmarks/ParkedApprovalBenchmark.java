@@ -0,0 +1,127 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import orderfulfillapp.Shared;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.model.ApprovalStatus;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.starter.OrderApprover;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to approve a set of parked orders and see them through, with a sticky cache that holds
+ * all of them or only a few. Evicted workflows are replayed from history when their signal
+ * arrives. The workflow threads held by the parked orders are printed once per trial.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParkedApprovalBenchmark {
+    private static final int PARKED_ORDERS = 300;
+
+    @Param({"20", "600"})
+    private int cacheSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private TestWorkflowEnvironment testEnv;
+    private Order order;
+    private List<String> workflowIds;
+    private boolean printed;
+
+    @Setup
+    public void setup() {
+        testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(WorkerFactoryOptions.newBuilder()
+                        .setWorkflowCacheSize(cacheSize)
+                        .build())
+                .build());
+        Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+        ApprovalPolicy policy = new ApprovalPolicy(ApprovalPolicy.Mode.INLINE, ApprovalPolicy.DEFAULT_THRESHOLD);
+        worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class, () -> new OrderFulfillWorkflowImpl(policy));
+        worker.registerActivitiesImplementations(new HistorySizeBenchmark.NoopActivities());
+        testEnv.start();
+
+        order = new Order(List.of(new OrderItem("Wool Suit", 599.99, 20)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+    }
+
+    @Setup(Level.Iteration)
+    public void parkOrders() throws InterruptedException {
+        WorkflowClient client = testEnv.getWorkflowClient();
+        List<OrderFulfillWorkflow> workflows = new ArrayList<>(PARKED_ORDERS);
+        workflowIds = new ArrayList<>(PARKED_ORDERS);
+        for (int i = 0; i < PARKED_ORDERS; i++) {
+            String workflowId = "bench-parked-" + sequence.incrementAndGet();
+            OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId(workflowId)
+                            .build());
+            WorkflowClient.start(workflow::fulfillOrder, order);
+            workflows.add(workflow);
+            workflowIds.add(workflowId);
+        }
+        for (OrderFulfillWorkflow workflow : workflows) {
+            while (workflow.getApprovalStatus() != ApprovalStatus.PENDING) {
+                Thread.sleep(10);
+            }
+        }
+
+        if (!printed) {
+            long workflowThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("workflow-method-"))
+                    .count();
+            System.out.printf("%ncacheSize=%d: %d orders parked for approval on %d workflow threads%n",
+                    cacheSize, PARKED_ORDERS, workflowThreads);
+            printed = true;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    /**
+     * Approve every parked order and wait for all of them to be fulfilled.
+     */
+    @Benchmark
+    public long approveParked() throws InterruptedException {
+        WorkflowClient client = testEnv.getWorkflowClient();
+        long approved = new OrderApprover(client).approveAll(workflowIds.iterator());
+        for (String workflowId : workflowIds) {
+            client.newUntypedWorkflowStub(workflowId).getResult(String.class);
+        }
+        return approved;
+    }
+}
@@ -0,0 +1,83 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserve and release throughput of {@link StockReservationEngine} when every order draws its
+ * items from a few hot SKUs of a 10,000-SKU catalog, so all threads compete for the same
+ * counters. Runs on every thread of the machine; pass {@code -t} to scale the thread count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ReservationContentionBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"1", "4", "16"})
+    private int hotSkus;
+
+    private StockReservationEngine engine;
+
+    @Setup
+    public void setup() {
+        List<StockItem> items = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            items.add(new StockItem("sku-" + i, 10.0, Integer.MAX_VALUE / 2));
+        }
+        engine = new StockReservationEngine(StockCatalog.of(items));
+    }
+
+    /**
+     * Per-thread orders and reservation ids, so neither is part of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final String prefix = "bench-" + Thread.currentThread().getId() + "-";
+        private List<List<OrderItem>> orders;
+        private long sequence;
+
+        @Setup
+        public void setup(ReservationContentionBenchmark benchmark) {
+            orders = new ArrayList<>(1024);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1024; i++) {
+                orders.add(List.of(
+                        new OrderItem("sku-" + random.nextInt(benchmark.hotSkus), 10.0, 1),
+                        new OrderItem("sku-" + random.nextInt(benchmark.hotSkus), 10.0, 2)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void reserveAndRelease(ThreadState state) throws InsufficientStockException {
+        List<OrderItem> orderItems = state.orders.get((int) (state.sequence & 1023));
+        String reservationId = state.prefix + state.sequence++;
+        engine.reserve(reservationId, orderItems);
+        engine.release(reservationId);
+    }
+}
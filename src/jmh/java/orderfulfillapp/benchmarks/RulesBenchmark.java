@@ -0,0 +1,115 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.exception.PaymentDeclinedException;
+import orderfulfillapp.metrics.OrderMetrics;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.StockItem;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.rules.RuleSet;
+import orderfulfillapp.starter.Distribution;
+import orderfulfillapp.starter.OrderGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders checked per second against the approval and payment rules: the two default rules, or
+ * 30 rules of every kind (amount tiers, per-SKU limits, card expiry and velocity). With
+ * {@code metrics}, the per-rule latency timers report into a Prometheus registry; without, they
+ * are no-ops, which shows what timing every rule costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RulesBenchmark {
+    private static final int ORDERS = 4096;
+
+    @Param({"defaults", "30"})
+    private String rules;
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private RuleEngine engine;
+    private List<Order> orders;
+    private String[] orderKeys;
+
+    @Setup
+    public void setup() throws IOException {
+        if (metrics) {
+            OrderMetrics.enable();
+        }
+        engine = RuleEngine.of(rules.equals("defaults") ? RuleSet.defaults(10000) : thirtyRules());
+
+        List<StockItem> stock = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            stock.add(new StockItem("sku-" + i, 5.0 + i % 200, 1_000_000));
+        }
+        OrderGenerator generator = new OrderGenerator(stock, 42);
+        generator.setQuantities(30, Distribution.zipf(1.0));
+        orders = generator.generate(ORDERS);
+        orderKeys = new String[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orderKeys[i] = "bench-order-" + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int checkOrders() {
+        int held = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = orders.get(i);
+            if (engine.requiresApproval(order) != null) {
+                held++;
+            }
+            try {
+                engine.checkPayment(orderKeys[i], order);
+            } catch (PaymentDeclinedException e) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    private static RuleSet thirtyRules() throws IOException {
+        StringJoiner rules = new StringJoiner(",", "{\"rules\": [", "]}");
+        int[] tiers = {20000, 15000, 10000, 7500, 5000};
+        for (int i = 0; i < tiers.length; i++) {
+            rules.add(String.format("{\"name\": \"tier-%d\", \"action\": \"requireApproval\", \"totalOver\": %d,"
+                    + " \"totalAtMost\": %d, \"quantityOver\": %d}", i, tiers[i], tiers[i] * 2, 25 - i));
+        }
+        for (int i = 0; i < 20; i++) {
+            rules.add(String.format("{\"name\": \"sku-limit-%d\", \"action\": \"requireApproval\","
+                    + " \"item\": \"sku-%d\", \"quantityOver\": 20}", i, i * 37));
+        }
+        rules.add("{\"name\": \"expired-test-card\", \"action\": \"decline\", \"expiration\": \"12/23\"}");
+        rules.add("{\"name\": \"large-order-velocity\", \"action\": \"decline\", \"totalOver\": 50000,"
+                + " \"cardUsesOver\": 100, \"per\": \"PT1M\"}");
+        rules.add("{\"name\": \"bulk-velocity\", \"action\": \"decline\", \"quantityOver\": 29,"
+                + " \"cardUsesOver\": 1000000, \"per\": \"PT1M\"}");
+        rules.add("{\"name\": \"huge-order\", \"action\": \"decline\", \"totalOver\": 1000000}");
+        rules.add("{\"name\": \"expired-card\", \"action\": \"decline\", \"cardExpired\": true, \"totalOver\": 100000}");
+        return RuleSet.read(new ByteArrayInputStream(rules.toString().getBytes(StandardCharsets.UTF_8)), "benchmark");
+    }
+}
@@ -0,0 +1,102 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import orderfulfillapp.converter.OrderBinaryPayloadConverter;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.starter.OrderStarter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting orders to and from Temporal payloads, which happens for every
+ * workflow start, activity input and result, with the default JSON encoding and the
+ * binary order encoding. Payload sizes are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    private DataConverter dataConverter;
+    private Order order;
+    private Payload payload;
+    private List<Order> orders;
+    private Payload ordersPayload;
+
+    @Setup
+    public void setup() {
+        dataConverter = "binary".equals(encoding)
+                ? OrderBinaryPayloadConverter.newDataConverter()
+                : DefaultDataConverter.newDefaultInstance();
+        order = OrderStarter.getDefaultOrders().get(0);
+        payload = dataConverter.toPayload(order).orElseThrow();
+        orders = OrderStarter.generateOrders(100, 0);
+        ordersPayload = dataConverter.toPayload(orders).orElseThrow();
+
+        System.out.printf("%n%s payload size: order=%d bytes, 100 orders=%d bytes%n",
+                encoding, payload.getSerializedSize(), ordersPayload.getSerializedSize());
+    }
+
+    @Benchmark
+    public Payload serializeOrder() {
+        return dataConverter.toPayload(order).orElseThrow();
+    }
+
+    @Benchmark
+    public Order deserializeOrder() {
+        return dataConverter.fromPayload(payload, Order.class, Order.class);
+    }
+
+    @Benchmark
+    public Payload serializeOrders() {
+        return dataConverter.toPayload(orders).orElseThrow();
+    }
+
+    @Benchmark
+    public List<?> deserializeOrders() {
+        return dataConverter.fromPayload(ordersPayload, List.class, OrderListType.TYPE);
+    }
+
+    @Benchmark
+    public double totalAmount() {
+        return order.getTotalAmount();
+    }
+
+    /**
+     * Generic type of a batched activity argument, so JSON decodes into orders rather than maps.
+     */
+    private static final class OrderListType {
+        static final java.lang.reflect.Type TYPE;
+
+        static {
+            try {
+                TYPE = OrderListType.class.getDeclaredField("orders").getGenericType();
+            } catch (NoSuchFieldException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @SuppressWarnings("unused")
+        private List<Order> orders;
+    }
+}
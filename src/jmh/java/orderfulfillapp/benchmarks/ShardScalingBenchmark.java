@@ -0,0 +1,202 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
+import orderfulfillapp.Shared;
+import orderfulfillapp.activities.InventoryActivities;
+import orderfulfillapp.activities.OrderFulfillActivities;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.starter.OrderIdentity;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders fulfilled per second as worker hosts are added, against the in-process test server.
+ * The order and inventory queues are split into {@link #SHARDS} shards, which are divided
+ * evenly among the hosts. Every host is a separate {@link WorkerFactory} with the same fixed
+ * number of activity slots, shared out between the queues it polls, and activities sleep to
+ * stand in for calls to the payment, inventory and delivery services. Adding hosts therefore
+ * adds capacity, and throughput should grow close to linearly until the server saturates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardScalingBenchmark {
+    private static final int SHARDS = 4;
+    private static final int ORDERS_PER_INVOCATION = 100;
+    private static final int HOST_ACTIVITY_SLOTS = 8;
+    private static final long ACTIVITY_DELAY_MS = 200;
+
+    @Param({"1", "2", "4"})
+    private int hosts;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private TestWorkflowEnvironment testEnv;
+    private List<WorkerFactory> factories;
+    private ShardRouter router;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE, SHARDS);
+        ApprovalPolicy approvalPolicy = new ApprovalPolicy(ApprovalPolicy.Mode.INLINE, ApprovalPolicy.DEFAULT_THRESHOLD);
+        factories = new ArrayList<>();
+
+        for (int host = 0; host < hosts; host++) {
+            WorkerFactory factory = WorkerFactory.newInstance(testEnv.getWorkflowClient());
+            // Half the slots for payment and delivery on the shards' order queues, half for the
+            // reservations on the host's own queue; the shards' inventory queues only pick hosts
+            int shardsPerHost = SHARDS / hosts;
+            WorkerOptions workerOptions = WorkerOptions.newBuilder()
+                    .setMaxConcurrentActivityExecutionSize(Math.max(1, HOST_ACTIVITY_SLOTS / (2 * shardsPerHost)))
+                    .build();
+            SleepingInventoryActivities inventory = new SleepingInventoryActivities(router.hostInventoryQueue("host-" + host));
+            factory.newWorker(inventory.hostQueue, WorkerOptions.newBuilder()
+                            .setMaxConcurrentActivityExecutionSize(HOST_ACTIVITY_SLOTS / 2)
+                            .build())
+                    .registerActivitiesImplementations(inventory);
+            for (int shard = host * shardsPerHost; shard < (host + 1) * shardsPerHost; shard++) {
+                Worker worker = factory.newWorker(router.orderQueue(shard), workerOptions);
+                worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                        () -> new OrderFulfillWorkflowImpl(approvalPolicy, router));
+                worker.registerActivitiesImplementations(new SleepingActivities());
+                factory.newWorker(router.inventoryQueue(shard), workerOptions)
+                        .registerActivitiesImplementations(inventory);
+            }
+            factories.add(factory);
+        }
+        testEnv.start();
+        factories.forEach(WorkerFactory::start);
+
+        order = new Order(List.of(new OrderItem("Boot", 120.0, 1), new OrderItem("Sneaker", 60.0, 2)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        factories.forEach(WorkerFactory::shutdownNow);
+        testEnv.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public void fulfillOrders() {
+        WorkflowClient client = testEnv.getWorkflowClient();
+        List<WorkflowStub> stubs = new ArrayList<>(ORDERS_PER_INVOCATION);
+        for (int i = 0; i < ORDERS_PER_INVOCATION; i++) {
+            String workflowId = "bench-order-" + sequence.incrementAndGet();
+            WorkflowOptions options = OrderIdentity.workflowOptions(router.orderQueueFor(workflowId), workflowId);
+            OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, options);
+            WorkflowClient.start(workflow::fulfillOrder, order);
+            stubs.add(WorkflowStub.fromTyped(workflow));
+        }
+        for (WorkflowStub stub : stubs) {
+            stub.getResult(String.class);
+        }
+    }
+
+    private static String sleep(String result) {
+        try {
+            Thread.sleep(ACTIVITY_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    public static class SleepingActivities implements OrderFulfillActivities {
+        @Override
+        public String storeOrder(Order order) {
+            return "bench-order";
+        }
+
+        @Override
+        public void discardOrder(String orderKey) {
+        }
+
+        @Override
+        public boolean requireApproval(String orderKey) {
+            return false;
+        }
+
+        @Override
+        public String processPayment(String orderKey) {
+            return sleep("Payment processed");
+        }
+
+        @Override
+        public String reserveInventory(String orderKey) {
+            return sleep("Inventory reserved");
+        }
+
+        @Override
+        public String refundPayment(String orderKey) {
+            return "Payment refunded";
+        }
+
+        @Override
+        public String releaseInventory(String orderKey) {
+            return "Inventory released";
+        }
+
+        @Override
+        public String deliverOrder(String orderKey) {
+            return sleep("Order delivered");
+        }
+    }
+
+    public static class SleepingInventoryActivities implements InventoryActivities {
+        private final String hostQueue;
+
+        SleepingInventoryActivities(String hostQueue) {
+            this.hostQueue = hostQueue;
+        }
+
+        @Override
+        public String getHostTaskQueue() {
+            return hostQueue;
+        }
+
+        @Override
+        public String reserveShardInventory(String orderKey, int shard) {
+            return sleep("Inventory reserved on shard " + shard);
+        }
+
+        @Override
+        public String releaseShardInventory(String orderKey, int shard) {
+            return "Inventory released on shard " + shard;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package orderfulfillapp.benchmarks;
+
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import orderfulfillapp.Shared;
+import orderfulfillapp.activities.OrderFulfillActivities;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end latency of one order against the in-process test server, with payment, inventory
+ * and delivery each sleeping {@link #ACTIVITY_DELAY_MS}. Run one after the other they would take
+ * at least three times that; with payment and inventory in parallel, about twice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowLatencyBenchmark {
+    private static final long ACTIVITY_DELAY_MS = 500;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private TestWorkflowEnvironment testEnv;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+        worker.registerActivitiesImplementations(new SleepingActivities());
+        testEnv.start();
+
+        order = new Order(List.of(new OrderItem("Boot", 120.0, 1)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        testEnv.close();
+    }
+
+    @Benchmark
+    public String fulfillOrder() {
+        OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                        .setWorkflowId("bench-latency-" + sequence.incrementAndGet())
+                        .build());
+        return workflow.fulfillOrder(order);
+    }
+
+    private static String sleep(String result) {
+        try {
+            Thread.sleep(ACTIVITY_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    public static class SleepingActivities implements OrderFulfillActivities {
+        @Override
+        public String storeOrder(Order order) {
+            return "bench-order";
+        }
+
+        @Override
+        public void discardOrder(String orderKey) {
+        }
+
+        @Override
+        public boolean requireApproval(String orderKey) {
+            return false;
+        }
+
+        @Override
+        public String processPayment(String orderKey) {
+            return sleep("Payment processed");
+        }
+
+        @Override
+        public String reserveInventory(String orderKey) {
+            return sleep("Inventory reserved");
+        }
+
+        @Override
+        public String refundPayment(String orderKey) {
+            return "Payment refunded";
+        }
+
+        @Override
+        public String releaseInventory(String orderKey) {
+            return "Inventory released";
+        }
+
+        @Override
+        public String deliverOrder(String orderKey) {
+            return sleep("Order delivered");
+        }
+    }
+}
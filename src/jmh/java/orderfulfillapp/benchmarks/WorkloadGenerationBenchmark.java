@@ -0,0 +1,59 @@
+package orderfulfillapp.benchmarks;
+
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.StockItem;
+import orderfulfillapp.starter.Distribution;
+import orderfulfillapp.starter.OrderGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders generated per second by {@link OrderGenerator} over a synthetic 100,000-SKU catalog,
+ * for each SKU popularity distribution. Stock is built once, so only generation is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WorkloadGenerationBenchmark {
+    private static final int SKUS = 100_000;
+    private static final int ORDERS_PER_INVOCATION = 1_000_000;
+
+    @Param({"uniform", "zipf:1.1", "hotset:0.01:0.9"})
+    private String popularity;
+
+    private OrderGenerator generator;
+
+    @Setup
+    public void setup() {
+        List<StockItem> stock = new ArrayList<>(SKUS);
+        for (int i = 0; i < SKUS; i++) {
+            stock.add(new StockItem("sku-" + i, 1.0 + i % 500, 1_000_000));
+        }
+        generator = new OrderGenerator(stock, 42);
+        generator.setPopularity(Distribution.parse(popularity));
+        generator.setItemCounts(5, Distribution.zipf(1.0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public List<Order> generateOrders() {
+        return generator.generate(ORDERS_PER_INVOCATION);
+    }
+}
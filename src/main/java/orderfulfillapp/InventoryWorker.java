@@ -0,0 +1,64 @@
+package orderfulfillapp;
+
+import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
+import orderfulfillapp.activities.InventoryActivitiesImpl;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.config.WorkerConfig;
+import orderfulfillapp.routing.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Worker application that runs only the inventory activities, for deployments with
+ * {@code worker.inventoryMode=dedicated}. Inventory can then be scaled separately from the
+ * order workers, and each host keeps its stock cache warm for the orders it serves.
+ *
+ * The worker polls the inventory queue of each of its shards and a queue of its own. Workflows
+ * ask a shard's queue for a host, then send that order's reservation and release to the host's
+ * queue. Orders are read from the shared order store, so {@code worker.orderStoreDir} is required.
+ * It takes the same settings as {@link OrderFulfillWorker}.
+ */
+public class InventoryWorker {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryWorker.class);
+
+    public static void main(String[] args) throws IOException {
+        WorkerConfig config = OrderFulfillWorker.loadConfig(args);
+        if (config == null) {
+            return;
+        }
+        if (config.getOrderStoreDir() == null) {
+            logger.error("The inventory worker needs the order store shared with the order workers; set orderStoreDir");
+            System.exit(1);
+            return;
+        }
+        ShardRouter router = config.toShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE);
+        if (!router.routesInventory()) {
+            logger.warn("Inventory is reserved on the order workers; set inventoryMode=dedicated on all workers to use this one");
+        }
+
+        WorkerFactory factory = OrderFulfillWorker.newWorkerFactory(config, config.getInventoryMetricsPort());
+        WorkerOptions workerOptions = config.toWorkerOptions();
+        String hostQueue = router.hostInventoryQueue(config.toHostId());
+        InventoryActivitiesImpl inventoryActivities = new InventoryActivitiesImpl(config.toOrderStore(), router, hostQueue);
+
+        factory.newWorker(hostQueue, workerOptions).registerActivitiesImplementations(inventoryActivities);
+        for (int shard : config.getPolledShards()) {
+            factory.newWorker(router.inventoryQueue(shard), workerOptions)
+                    .registerActivitiesImplementations(inventoryActivities);
+        }
+
+        // Load the stock database, and any reservations kept from before a restart, before the first reservation arrives
+        InventoryApi.getReservationEngine();
+        if (config.getLedgerDir() != null) {
+            InventoryApi.openLedger(Paths.get(config.getLedgerDir()));
+        }
+        logger.info("Serving inventory shards {} of {} on host queue {}",
+                config.getPolledShards(), router.getShards(), hostQueue);
+
+        factory.start();
+    }
+}
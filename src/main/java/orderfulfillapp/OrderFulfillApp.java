@@ -1,10 +1,26 @@
 package orderfulfillapp;
 
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.converter.OrderDataConverter;
+import orderfulfillapp.metrics.OrderMetrics;
 import orderfulfillapp.model.Order;
+import orderfulfillapp.model.Money;
+import orderfulfillapp.model.OrderBatch;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.starter.Distribution;
+import orderfulfillapp.starter.LoadGenerator;
+import orderfulfillapp.starter.OrderApprover;
+import orderfulfillapp.starter.OrderGenerator;
+import orderfulfillapp.starter.OrderReader;
 import orderfulfillapp.starter.OrderStarter;
+import orderfulfillapp.starter.StreamingOrderStarter;
+import orderfulfillapp.store.FileOrderStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.commons.cli.*;
@@ -13,7 +29,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Main client application for order fulfillment.
@@ -42,35 +61,25 @@ public class OrderFulfillApp {
                 return;
             }
             
-            int numOrders = Integer.parseInt(cmd.getOptionValue("n", "1"));
-            int invalidPercentage = Integer.parseInt(cmd.getOptionValue("i", "0"));
-            
-            // Create a workflow service stub
-            WorkflowServiceStubs service = WorkflowServiceStubs.newLocalServiceStubs();
-            
-            // Create a workflow service client
-            WorkflowClient client = WorkflowClient.newInstance(service);
-            
-            // Load and process orders
-            List<Order> orders;
-            if (numOrders == 1 && invalidPercentage == 0) {
-                // Load test orders from JSON file
-                orders = loadTestOrders();
-                if (orders.isEmpty()) {
-                    logger.info("No test orders found, using default orders");
-                    orders = OrderStarter.getDefaultOrders();
-                }
+            // Create a workflow service stub, reporting client metrics for Prometheus if asked to
+            WorkflowServiceStubs service;
+            HttpServer metricsServer = null;
+            if (cmd.hasOption("metricsPort")) {
+                PrometheusMeterRegistry registry = OrderMetrics.enable();
+                metricsServer = OrderMetrics.startScrapeEndpoint(registry,
+                        Integer.parseInt(cmd.getOptionValue("metricsPort")));
+                service = OrderMetrics.newServiceStubs(registry);
             } else {
-                // Generate orders with specified parameters
-                orders = OrderStarter.generateOrders(numOrders, invalidPercentage);
+                service = WorkflowServiceStubs.newLocalServiceStubs();
+            }
+
+            try {
+                run(cmd, service);
+            } finally {
+                if (metricsServer != null) {
+                    metricsServer.stop(0);
+                }
             }
-            
-            logger.info("Processing {} orders", orders.size());
-            
-            // Execute the workflows
-            OrderStarter.runWorkflows(client, Shared.ORDER_FULFILL_TASK_QUEUE, orders);
-            
-            logger.info("All workflows completed");
             
         } catch (ParseException e) {
             logger.error("Error parsing command line arguments: {}", e.getMessage());
@@ -79,6 +88,113 @@ public class OrderFulfillApp {
         }
     }
     
+    private static void run(CommandLine cmd, WorkflowServiceStubs service) throws Exception {
+        int numOrders = Integer.parseInt(cmd.getOptionValue("n", "1"));
+        int invalidPercentage = Integer.parseInt(cmd.getOptionValue("i", "0"));
+        boolean batch = cmd.hasOption("b");
+        int chunkSize = Integer.parseInt(cmd.getOptionValue("c", String.valueOf(OrderBatch.DEFAULT_CHUNK_SIZE)));
+        
+        // Create a workflow service client, encoding orders in binary and compressing large payloads
+        WorkflowClient client = WorkflowClient.newInstance(service, WorkflowClientOptions.newBuilder()
+                .setDataConverter(OrderDataConverter.newInstance())
+                .build());
+        
+        // Orders are routed by workflow ID to the shard task queues; the count must match the workers'
+        ShardRouter router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE,
+                Integer.parseInt(cmd.getOptionValue("shards", "1")));
+
+        if (cmd.hasOption("approvePending")) {
+            // Approve every order workflow still running, then exit
+            new OrderApprover(client).approveRunning();
+            return;
+        }
+
+        if (cmd.hasOption("input")) {
+            // Stream orders from a file, starting workflows while the rest is still being read
+            Path input = Path.of(cmd.getOptionValue("input"));
+            StreamingOrderStarter starter = new StreamingOrderStarter(client, router,
+                    Integer.parseInt(cmd.getOptionValue("maxInFlight", "1000")), cmd.hasOption("preApproved"));
+            try (OrderReader orders = OrderReader.open(input)) {
+                logger.info("Streaming orders from {}", input);
+                starter.run(orders);
+            }
+            return;
+        }
+
+        if (cmd.hasOption("l")) {
+            // Generate sustained load from a pool of generated orders
+            List<Order> orderPool = newOrderGenerator(cmd, invalidPercentage).generate(Math.max(numOrders, 100));
+            LoadGenerator loadGenerator = new LoadGenerator(client, router, orderPool,
+                    Double.parseDouble(cmd.getOptionValue("rate", "50")),
+                    Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("duration", "60"))),
+                    Integer.parseInt(cmd.getOptionValue("maxInFlight", "1000")),
+                    Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("warmup", "10"))));
+            loadGenerator.run();
+            return;
+        }
+
+        // Load and process orders
+        List<Order> orders;
+        if (numOrders == 1 && invalidPercentage == 0 && !cmd.hasOption("seed")) {
+            // Load test orders from JSON file
+            orders = loadTestOrders();
+            if (orders.isEmpty()) {
+                logger.info("No test orders found, using default orders");
+                orders = OrderStarter.getDefaultOrders();
+            }
+        } else {
+            // Generate orders with specified parameters
+            orders = newOrderGenerator(cmd, invalidPercentage).generate(numOrders);
+        }
+        
+        // Order by order: each total is cached on its order, and one pass doesn't pay for copying into columns
+        long thresholdCents = Money.toCents(ApprovalPolicy.DEFAULT_THRESHOLD);
+        long sumCents = 0;
+        int overThreshold = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            long totalCents = orders.get(i).getTotalCents();
+            sumCents += totalCents;
+            overThreshold += totalCents > thresholdCents ? 1 : 0;
+        }
+        logger.info("Processing {} orders worth {}, {} of them over the default approval threshold", orders.size(),
+                Money.format(sumCents), overThreshold);
+        
+        // Execute the workflows
+        if (batch) {
+            // Batch orders are staged in the order store the workers read them from
+            String orderStoreDir = cmd.getOptionValue("orderStoreDir", System.getenv("WORKER_ORDER_STORE_DIR"));
+            if (orderStoreDir == null || orderStoreDir.isBlank()) {
+                logger.error("Batch mode needs the workers' order store: set --orderStoreDir or WORKER_ORDER_STORE_DIR");
+                System.exit(1);
+            }
+            // The batch workflow is not sharded; it runs on the first shard's queue
+            OrderStarter.runBatchWorkflow(client, router.orderQueue(0), new FileOrderStore(Path.of(orderStoreDir.trim())),
+                    orders, chunkSize);
+        } else {
+            OrderStarter.runWorkflows(client, router, orders, cmd.hasOption("preApproved"));
+        }
+        
+        logger.info("All workflows completed");
+    }
+    
+    /**
+     * Create the order generator described by the command line, seeded randomly unless --seed is given.
+     */
+    private static OrderGenerator newOrderGenerator(CommandLine cmd, int invalidPercentage) throws IOException {
+        long seed = cmd.hasOption("seed")
+                ? Long.parseLong(cmd.getOptionValue("seed"))
+                : ThreadLocalRandom.current().nextLong();
+        OrderGenerator generator = OrderStarter.newOrderGenerator(seed);
+        generator.setInvalidPercentage(invalidPercentage);
+        generator.setPopularity(Distribution.parse(cmd.getOptionValue("popularity", "uniform")));
+        generator.setItemCounts(Integer.parseInt(cmd.getOptionValue("maxItems", "3")),
+                Distribution.parse(cmd.getOptionValue("itemDistribution", "uniform")));
+        generator.setQuantities(Integer.parseInt(cmd.getOptionValue("maxQuantity", "3")),
+                Distribution.parse(cmd.getOptionValue("quantityDistribution", "uniform")));
+        logger.info("Generating orders with {}", generator);
+        return generator;
+    }
+
     private static Options createOptions() {
         Options options = new Options();
         
@@ -94,6 +210,116 @@ public class OrderFulfillApp {
                 .desc("Percentage of orders to make invalid 0-100 (default: 0)")
                 .build());
                 
+        options.addOption(Option.builder()
+                .longOpt("seed")
+                .hasArg()
+                .desc("Seed for generated orders; the same seed generates the same orders (default: random)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("popularity")
+                .hasArg()
+                .desc("How often each SKU is ordered: uniform (default), zipf[:s] or hotset[:fraction[:share]]")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("maxItems")
+                .hasArg()
+                .desc("Maximum items per generated order (default: 3)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("itemDistribution")
+                .hasArg()
+                .desc("Distribution of items per order between 1 and maxItems (default: uniform)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("maxQuantity")
+                .hasArg()
+                .desc("Maximum units per generated item (default: 3)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("quantityDistribution")
+                .hasArg()
+                .desc("Distribution of units per item between 1 and maxQuantity (default: uniform)")
+                .build());
+
+        options.addOption(Option.builder("b")
+                .longOpt("batch")
+                .desc("Fulfill all orders in a single batch workflow")
+                .build());
+
+        options.addOption(Option.builder("c")
+                .longOpt("chunkSize")
+                .hasArg()
+                .desc("Orders per batched activity call in batch mode (default: " + OrderBatch.DEFAULT_CHUNK_SIZE + ")")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("orderStoreDir")
+                .hasArg()
+                .desc("Batch mode: the workers' shared order store directory (default: WORKER_ORDER_STORE_DIR)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("input")
+                .hasArg()
+                .desc("Stream orders from a JSON array or NDJSON file instead of generating them")
+                .build());
+
+        options.addOption(Option.builder("l")
+                .longOpt("loadTest")
+                .desc("Generate load at a target rate and report latency percentiles")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("rate")
+                .hasArg()
+                .desc("Load test: orders started per second (default: 50)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("duration")
+                .hasArg()
+                .desc("Load test: measured duration in seconds (default: 60)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("maxInFlight")
+                .hasArg()
+                .desc("Load test and --input: maximum workflows running at once (default: 1000)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("warmup")
+                .hasArg()
+                .desc("Load test: unmeasured warm-up in seconds (default: 10)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("preApproved")
+                .desc("Start each order already approved, with signal-with-start")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("approvePending")
+                .desc("Approve every running order workflow waiting for approval, then exit")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("shards")
+                .hasArg()
+                .desc("Number of order task queue shards; must match the workers' worker.shards (default: 1)")
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("metricsPort")
+                .hasArg()
+                .desc("Serve client metrics for Prometheus on this port while running (default: off)")
+                .build());
+
         options.addOption(Option.builder("h")
                 .longOpt("help")
                 .desc("Display this help message")
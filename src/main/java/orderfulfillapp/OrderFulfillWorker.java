@@ -1,14 +1,38 @@
 package orderfulfillapp;
 
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+import orderfulfillapp.activities.BatchOrderFulfillActivitiesImpl;
+import orderfulfillapp.activities.InventoryActivitiesImpl;
 import orderfulfillapp.activities.OrderFulfillActivitiesImpl;
+import orderfulfillapp.api.FulfillmentSimulator;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.config.WorkerConfig;
+import orderfulfillapp.converter.OrderDataConverter;
+import orderfulfillapp.logging.ActivityMdcInterceptor;
+import orderfulfillapp.metrics.MetricsInterceptor;
+import orderfulfillapp.metrics.OrderMetrics;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.store.OrderStore;
+import orderfulfillapp.workflows.BatchOrderFulfillWorkflowImpl;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
 import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 /**
  * Worker application for order fulfillment.
  * Run a Worker with either mTLS or API key authentication.
@@ -21,25 +45,124 @@ import org.slf4j.LoggerFactory;
 public class OrderFulfillWorker {
     private static final Logger logger = LoggerFactory.getLogger(OrderFulfillWorker.class);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        WorkerConfig config = loadConfig(args);
+        if (config == null) {
+            return;
+        }
+        WorkerFactory factory = newWorkerFactory(config, config.getMetricsPort());
+        WorkerOptions workerOptions = config.toWorkerOptions();
 
-        // Create a workflow service stub
-        WorkflowServiceStubs service = WorkflowServiceStubs.newLocalServiceStubs();
+        // The approval policy and shard count are fixed for the life of the worker, which inline
+        // checks and inventory routing rely on for replay
+        ApprovalPolicy approvalPolicy = config.toApprovalPolicy();
+        ShardRouter router = config.toShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE);
+        OrderStore orderStore = config.toOrderStore();
+        RuleEngine rules = config.toRuleEngine();
+        if (config.getRulesFile() != null && approvalPolicy.getMode() == ApprovalPolicy.Mode.INLINE) {
+            logger.warn("Inline approval checks only the approval threshold; use approvalMode=local to apply the approval rules");
+        }
+        OrderFulfillActivitiesImpl activities;
+        if (config.getActivityCompletion() == WorkerConfig.ActivityCompletion.ASYNC) {
+            // Payments and deliveries wait for their callbacks without holding an activity slot
+            activities = new OrderFulfillActivitiesImpl(orderStore, rules,
+                    factory.getWorkflowClient().newActivityCompletionClient(), new FulfillmentSimulator());
+        } else {
+            activities = new OrderFulfillActivitiesImpl(orderStore, rules, null, null);
+        }
 
-        // Create a workflow service client which can be start, signal, query, and cancel workflow executions. 
-        WorkflowClient client = WorkflowClient.newInstance(service);
+        // Reservations for a shard's SKUs are made here, whichever shard the order's workflow is on,
+        // unless dedicated inventory workers make them
+        boolean localInventory = router.isSharded() && !router.isDedicatedInventory();
+        String hostQueue = router.hostInventoryQueue(config.toHostId());
+        InventoryActivitiesImpl inventoryActivities = new InventoryActivitiesImpl(orderStore, router, hostQueue);
+        if (localInventory) {
+            factory.newWorker(hostQueue, workerOptions).registerActivitiesImplementations(inventoryActivities);
+        }
+        if (!router.isDedicatedInventory() && config.getLedgerDir() != null) {
+            InventoryApi.openLedger(Paths.get(config.getLedgerDir()));
+        }
 
-        // Create a workflow worker factory. It is used to create workers that poll specific task queues for workflows and activities to execute.
-        WorkerFactory factory = WorkerFactory.newInstance(client);
+        // Create a workflow worker that polls the order task queue of each shard for workflows and activities to execute.
+        // Without sharding that is the OrderFulfillTaskQueue.
+        for (int shard : config.getPolledShards()) {
+            Worker worker = factory.newWorker(router.orderQueue(shard), workerOptions);
 
-        // Create a workflow worker that polls the OrderFulfillTaskQueue for workflows and activities to execute.
-        Worker worker = factory.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            // Register workflow and activities
+            worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                    () -> new OrderFulfillWorkflowImpl(approvalPolicy, router));
+            worker.registerWorkflowImplementationTypes(BatchOrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities, new BatchOrderFulfillActivitiesImpl(orderStore, rules));
 
-        // Register workflow and activities
-        worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
-        worker.registerActivitiesImplementations(new OrderFulfillActivitiesImpl());
+            if (localInventory) {
+                factory.newWorker(router.inventoryQueue(shard), workerOptions)
+                        .registerActivitiesImplementations(inventoryActivities);
+            }
+        }
+        logger.info("Polling shards {} of {}{}", config.getPolledShards(), router.getShards(),
+                router.isDedicatedInventory() ? ", inventory on dedicated workers" : "");
 
         // Start the worker
         factory.start();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Load worker tuning from worker.properties, environment variables and command line options.
+     * Prints the available settings and returns {@code null} when help was asked for, and exits
+     * when the configuration is invalid.
+     */
+    static WorkerConfig loadConfig(String[] args) throws IOException {
+        WorkerConfig config;
+        try {
+            config = WorkerConfig.load(args);
+        } catch (ParseException | IllegalArgumentException e) {
+            logger.error("Invalid worker configuration: {}", e.getMessage());
+            WorkerConfig.printHelp();
+            System.exit(1);
+            return null;
+        }
+        if (args.length > 0 && (args[0].equals("-h") || args[0].equals("--help"))) {
+            WorkerConfig.printHelp();
+            return null;
+        }
+        // Before anything loads the shared stock catalog
+        StockCatalog.setOffHeap(config.getCatalogStorage() == WorkerConfig.CatalogStorage.OFFHEAP);
+        InventoryApi.setStockShare(config.getStockShare(), config.getStockShares());
+        return config;
+    }
+
+    /**
+     * Create a worker factory connected to the Temporal service, with metrics served on the given
+     * port unless it is 0.
+     */
+    static WorkerFactory newWorkerFactory(WorkerConfig config, int metricsPort) throws IOException {
+        WorkerFactoryOptions factoryOptions = config.toWorkerFactoryOptions();
+        logger.info("Starting worker with {}", config);
+        logger.info("Effective worker factory options: workflowCacheSize={}, maxWorkflowThreadCount={}",
+                factoryOptions.getWorkflowCacheSize(), factoryOptions.getMaxWorkflowThreadCount());
+        logger.info("Effective worker options: {}", config.toWorkerOptions());
+
+        // Create a workflow service stub. With metrics enabled, the SDK's worker metrics (pollers, slots,
+        // latencies) are reported into the same registry as the application's and served for Prometheus.
+        WorkflowServiceStubs service;
+        if (metricsPort > 0) {
+            PrometheusMeterRegistry registry = OrderMetrics.enable();
+            OrderMetrics.startScrapeEndpoint(registry, metricsPort);
+            service = OrderMetrics.newServiceStubs(registry);
+        } else {
+            service = WorkflowServiceStubs.newLocalServiceStubs();
+        }
+
+        // Create a workflow service client which can be start, signal, query, and cancel workflow executions.
+        // It must use the same data converter as the clients starting workflows, which encodes orders in binary
+        // and compresses large payloads.
+        WorkflowClient client = WorkflowClient.newInstance(service, WorkflowClientOptions.newBuilder()
+                .setDataConverter(OrderDataConverter.newInstance())
+                .build());
+
+        // Create a workflow worker factory. It is used to create workers that poll specific task queues for workflows and activities to execute.
+        return WorkerFactory.newInstance(client, factoryOptions.toBuilder()
+                .setWorkerInterceptors(new MetricsInterceptor(), new ActivityMdcInterceptor())
+                .build());
+    }
+}
@@ -0,0 +1,61 @@
+package orderfulfillapp.activities;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+import orderfulfillapp.model.OrderResult;
+
+import java.util.List;
+
+/**
+ * Activity interface for fulfilling many orders per activity call.
+ * Orders are passed by their order store key, as in {@link OrderFulfillActivities}, and each key
+ * is also the order's reservation id. Every method returns one result per input order, in the
+ * same order. Business failures of individual orders, including orders missing from the store,
+ * are reported as failed results; only failures of the whole call (e.g. the payment gateway
+ * being down) are thrown and retried.
+ */
+@ActivityInterface
+public interface BatchOrderFulfillActivities {
+
+    /**
+     * Check each order against the approval rules, returning true for the ones that need approval.
+     */
+    @ActivityMethod
+    List<Boolean> requireApprovals(List<String> orderKeys);
+
+    /**
+     * Process payments for all orders in a single gateway round trip.
+     */
+    @ActivityMethod
+    List<OrderResult> processPayments(List<String> orderKeys);
+
+    /**
+     * Reserve inventory for all orders.
+     */
+    @ActivityMethod
+    List<OrderResult> reserveInventoryBatch(List<String> orderKeys) throws Exception;
+
+    /**
+     * Refund the payments of the given orders. Compensates {@link #processPayments}.
+     */
+    @ActivityMethod
+    List<OrderResult> refundPayments(List<String> orderKeys);
+
+    /**
+     * Release the inventory reserved for the given orders. Compensates {@link #reserveInventoryBatch}.
+     */
+    @ActivityMethod
+    List<OrderResult> releaseInventoryBatch(List<String> orderKeys) throws Exception;
+
+    /**
+     * Deliver all orders to their customers.
+     */
+    @ActivityMethod
+    List<OrderResult> deliverOrders(List<String> orderKeys);
+
+    /**
+     * Remove the given orders from the order store once the batch is done with them.
+     */
+    @ActivityMethod
+    void discardOrders(List<String> orderKeys);
+}
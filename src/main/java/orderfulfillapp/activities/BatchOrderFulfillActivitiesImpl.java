@@ -0,0 +1,204 @@
+package orderfulfillapp.activities;
+
+import io.temporal.activity.Activity;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.exception.PaymentDeclinedException;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderResult;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.rules.RuleSet;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.store.OrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implementation of batched order fulfillment activities.
+ * Each call pays the simulated service latency once for the whole batch instead of once per order.
+ * Orders are loaded from the order store the batch was staged in, which must be shared with the
+ * process that started the batch.
+ */
+public class BatchOrderFulfillActivitiesImpl implements BatchOrderFulfillActivities {
+    private static final Logger logger = LoggerFactory.getLogger(BatchOrderFulfillActivitiesImpl.class);
+    private final OrderStore orderStore;
+    private final RuleEngine rules;
+
+    /**
+     * Create the activities with an in-memory order store, for batches staged in the same process.
+     */
+    public BatchOrderFulfillActivitiesImpl() {
+        this(new InMemoryOrderStore(), RuleEngine.of(RuleSet.defaults(ApprovalPolicy.DEFAULT_THRESHOLD)));
+    }
+
+    public BatchOrderFulfillActivitiesImpl(OrderStore orderStore, RuleEngine rules) {
+        this.orderStore = orderStore;
+        this.rules = rules;
+    }
+
+    @Override
+    public List<Boolean> requireApprovals(List<String> orderKeys) {
+        logger.info("Checking {} orders against approval rules", orderKeys.size());
+
+        List<Order> orders = loadOrders(orderKeys);
+        List<Boolean> results = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            // Missing orders fail in the next step
+            results.add(order != null && rules.requiresApproval(order) != null);
+        }
+        return results;
+    }
+
+    @Override
+    public List<OrderResult> processPayments(List<String> orderKeys) {
+        logger.info("Processing payments for {} orders...", orderKeys.size());
+
+        List<Order> orders = loadOrders(orderKeys);
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order == null) {
+                results.add(notFound(orderKeys.get(i)));
+                continue;
+            }
+            try {
+                rules.checkPayment(orderKeys.get(i), order);
+                results.add(OrderResult.succeeded("Payment processed for " + order.getItems().size() + " items"));
+            } catch (PaymentDeclinedException e) {
+                results.add(OrderResult.failed(e.getMessage()));
+            }
+        }
+
+        simulateDelay(1000);
+        return results;
+    }
+
+    @Override
+    public List<OrderResult> reserveInventoryBatch(List<String> orderKeys) throws Exception {
+        logger.info("Reserving inventory for {} orders...", orderKeys.size());
+
+        // Resolve the engine once for the whole batch
+        StockReservationEngine engine = InventoryApi.getReservationEngine();
+        List<Order> orders = loadOrders(orderKeys);
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order == null) {
+                results.add(notFound(orderKeys.get(i)));
+                continue;
+            }
+            try {
+                engine.reserve(orderKeys.get(i), order.getItems());
+                results.add(OrderResult.succeeded("Inventory reserved for " + order.getItems().size() + " items"));
+            } catch (InsufficientStockException | RuntimeException e) {
+                results.add(OrderResult.failed(e.getMessage()));
+            }
+        }
+
+        simulateDelay(1000);
+        return results;
+    }
+
+    @Override
+    public List<OrderResult> refundPayments(List<String> orderKeys) {
+        logger.info("Refunding payments for {} orders...", orderKeys.size());
+
+        List<Order> orders = loadOrders(orderKeys);
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            results.add(order == null
+                    ? notFound(orderKeys.get(i))
+                    : OrderResult.succeeded("Payment refunded for " + order.getItems().size() + " items"));
+        }
+
+        simulateDelay(1000);
+        return results;
+    }
+
+    @Override
+    public List<OrderResult> releaseInventoryBatch(List<String> orderKeys) throws Exception {
+        logger.info("Releasing {} inventory reservations...", orderKeys.size());
+
+        StockReservationEngine engine = InventoryApi.getReservationEngine();
+        List<OrderResult> results = new ArrayList<>(orderKeys.size());
+        for (String orderKey : orderKeys) {
+            engine.release(orderKey);
+            results.add(OrderResult.succeeded("Inventory released"));
+        }
+        return results;
+    }
+
+    @Override
+    public List<OrderResult> deliverOrders(List<String> orderKeys) {
+        logger.info("Delivering {} orders...", orderKeys.size());
+
+        List<Order> orders = loadOrders(orderKeys);
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            results.add(order == null
+                    ? notFound(orderKeys.get(i))
+                    : OrderResult.succeeded("Order delivered for " + order.getItems().size() + " items"));
+        }
+
+        simulateDelay(1000);
+        return results;
+    }
+
+    @Override
+    public void discardOrders(List<String> orderKeys) {
+        try {
+            for (String orderKey : orderKeys) {
+                orderStore.remove(orderKey);
+            }
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+    }
+
+    /**
+     * Load the given orders from the store, with null for each one that is not there.
+     */
+    private List<Order> loadOrders(List<String> orderKeys) {
+        List<Order> orders = new ArrayList<>(orderKeys.size());
+        try {
+            for (String orderKey : orderKeys) {
+                orders.add(orderStore.get(orderKey));
+            }
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        return orders;
+    }
+
+    private static OrderResult notFound(String orderKey) {
+        return OrderResult.failed("Order not found in order store: " + orderKey);
+    }
+
+    /**
+     * Simulate delay with variance of +/- 20%.
+     */
+    private void simulateDelay(int sleepMs) {
+        double variance = sleepMs * 0.2;
+        int finalSleepMs = sleepMs + (int) (Math.floor(ThreadLocalRandom.current().nextDouble() * 2 * variance) - variance);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Simulating delay of {}ms", finalSleepMs);
+        }
+
+        try {
+            Thread.sleep(finalSleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Sleep interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package orderfulfillapp.activities;
+
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+/**
+ * Inventory activities for one inventory shard, scheduled on the shard's task queue so that
+ * every reservation for a SKU is made by the workers that poll its shard.
+ * Like {@link OrderFulfillActivities}, they take the order key and load the order from the
+ * order store, then only touch the order's items that belong to the shard.
+ *
+ * The workflow first asks the shard's queue for a host with {@link #getHostTaskQueue}, then
+ * reserves and releases on that host's own queue, so one host's stock cache serves the order.
+ */
+@ActivityInterface
+public interface InventoryActivities {
+
+    /**
+     * Get the task queue polled only by the worker running this activity.
+     */
+    @ActivityMethod
+    String getHostTaskQueue();
+
+    /**
+     * Reserve the order's items that belong to the given inventory shard, all or none of them.
+     */
+    @ActivityMethod
+    String reserveShardInventory(String orderKey, int shard) throws Exception;
+
+    /**
+     * Release what {@link #reserveShardInventory} reserved on the given shard.
+     */
+    @ActivityMethod
+    String releaseShardInventory(String orderKey, int shard);
+}
@@ -0,0 +1,79 @@
+package orderfulfillapp.activities;
+
+import io.temporal.activity.Activity;
+import io.temporal.failure.ApplicationFailure;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.store.OrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Implementation of the per-shard inventory activities.
+ * The router must have the same shard count as the one the workflows route with.
+ */
+public class InventoryActivitiesImpl implements InventoryActivities {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryActivitiesImpl.class);
+    private final OrderStore orderStore;
+    private final ShardRouter router;
+    private final String hostTaskQueue;
+
+    public InventoryActivitiesImpl(OrderStore orderStore, ShardRouter router, String hostTaskQueue) {
+        this.orderStore = orderStore;
+        this.router = router;
+        this.hostTaskQueue = hostTaskQueue;
+    }
+
+    @Override
+    public String getHostTaskQueue() {
+        return hostTaskQueue;
+    }
+
+    @Override
+    public String reserveShardInventory(String orderKey, int shard) throws Exception {
+        logger.info("Reserving inventory on shard {}...", shard);
+        List<OrderItem> items = shardItems(orderKey, shard);
+        InventoryApi.reserveInventory(reservationId(orderKey, shard), items);
+        return "Inventory reserved for " + items.size() + " items on shard " + shard;
+    }
+
+    @Override
+    public String releaseShardInventory(String orderKey, int shard) {
+        logger.info("Releasing inventory on shard {}...", shard);
+        try {
+            InventoryApi.releaseInventory(reservationId(orderKey, shard));
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        return "Inventory released on shard " + shard;
+    }
+
+    /**
+     * One reservation per order and shard, so a worker polling several shards keeps them apart
+     * and activity retries don't reserve twice.
+     */
+    static String reservationId(String orderKey, int shard) {
+        return orderKey + "/" + shard;
+    }
+
+    private List<OrderItem> shardItems(String orderKey, int shard) {
+        Order order;
+        try {
+            order = orderStore.get(orderKey);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        if (order == null) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Order not found in order store: " + orderKey, OrderStore.ORDER_NOT_FOUND_FAILURE);
+        }
+        return order.getItems().stream()
+                .filter(item -> router.shardFor(item.getItemName()) == shard)
+                .toList();
+    }
+}
@@ -7,31 +7,59 @@ import orderfulfillapp.model.Order;
 /**
  * Activity interface for order fulfillment operations.
  * Corresponds to the TypeScript activities.ts file.
+ *
+ * The order is stored once with {@link #storeOrder}, and every other activity takes the
+ * returned order key and loads only what it needs from the order store.
  */
 @ActivityInterface
 public interface OrderFulfillActivities {
 
     /**
-     * Check if the order requires approval (over $10k).
+     * Store the order in the order store and return its key. Run as a local activity.
      */
     @ActivityMethod
-    boolean requireApproval(Order order);
+    String storeOrder(Order order);
+
+    /**
+     * Remove the order from the order store once the workflow is done with it. Run as a local activity.
+     */
+    @ActivityMethod
+    void discardOrder(String orderKey);
+
+    /**
+     * Check if the order requires approval (over $10k by default). A pure computation on the
+     * order, so the workflow runs it as a local activity or inline unless configured otherwise.
+     */
+    @ActivityMethod
+    boolean requireApproval(String orderKey);
 
     /**
      * Process payment for the order.
      */
     @ActivityMethod
-    String processPayment(Order order) throws Exception;
+    String processPayment(String orderKey) throws Exception;
 
     /**
      * Reserve inventory for the order items.
      */
     @ActivityMethod
-    String reserveInventory(Order order) throws Exception;
+    String reserveInventory(String orderKey) throws Exception;
+
+    /**
+     * Refund the payment taken for the order. Compensates {@link #processPayment}.
+     */
+    @ActivityMethod
+    String refundPayment(String orderKey);
+
+    /**
+     * Release the inventory reserved for the order. Compensates {@link #reserveInventory}.
+     */
+    @ActivityMethod
+    String releaseInventory(String orderKey);
 
     /**
      * Deliver the order to the customer.
      */
     @ActivityMethod
-    String deliverOrder(Order order);
-} 
\ No newline at end of file
+    String deliverOrder(String orderKey);
+}
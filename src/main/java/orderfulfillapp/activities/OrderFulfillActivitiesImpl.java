@@ -1,51 +1,165 @@
 package orderfulfillapp.activities;
 
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ManualActivityCompletionClient;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.failure.CanceledFailure;
+import orderfulfillapp.api.FulfillmentSimulator;
 import orderfulfillapp.api.InventoryApi;
-import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.exception.PaymentDeclinedException;
 import orderfulfillapp.model.Order;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.rules.RuleSet;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.store.OrderStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Random;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of order fulfillment activities.
  * Corresponds to the TypeScript activities.ts implementation.
+ *
+ * With a {@link FulfillmentSimulator}, payment and delivery complete asynchronously: they hand the
+ * request to the simulated gateway or carrier and return, freeing their execution slot, and the
+ * activity is completed by task token when the callback arrives. Deliveries heartbeat the legs
+ * they have completed, and a retried delivery carries on from the last one. Completions and
+ * heartbeats are blocking calls to the Temporal service, so they run on a bounded executor of
+ * their own rather than on the simulator's few threads.
+ *
+ * Whether an order needs approval, and whether its payment is declined, is decided by a
+ * {@link RuleEngine}: by default, the approval policy's threshold and the expired test card.
  */
 public class OrderFulfillActivitiesImpl implements OrderFulfillActivities {
     private static final Logger logger = LoggerFactory.getLogger(OrderFulfillActivitiesImpl.class);
-    private final Random random = new Random();
+
+    // Threads and queued tasks for completions and heartbeats. When the queue is full, the
+    // simulator's thread makes the call itself, which slows the callbacks down rather than failing
+    static final int COMPLETION_THREADS = 8;
+    static final int COMPLETION_QUEUE_SIZE = 10_000;
+
+    private final OrderStore orderStore;
+    private final ActivityCompletionClient completionClient;
+    private final Executor completionExecutor;
+    private final FulfillmentSimulator simulator;
+    private final RuleEngine rules;
+
+    /**
+     * Create the activities with an in-memory order store, for a single worker process.
+     */
+    public OrderFulfillActivitiesImpl() {
+        this(new InMemoryOrderStore());
+    }
+
+    public OrderFulfillActivitiesImpl(OrderStore orderStore) {
+        this(orderStore, ApprovalPolicy.defaults());
+    }
+
+    public OrderFulfillActivitiesImpl(OrderStore orderStore, ApprovalPolicy approvalPolicy) {
+        this(orderStore, approvalPolicy, null, null);
+    }
+
+    /**
+     * Create the activities with asynchronous payment and delivery, answered by the given simulator
+     * and completed through the given client.
+     */
+    public OrderFulfillActivitiesImpl(OrderStore orderStore, ApprovalPolicy approvalPolicy,
+                                      ActivityCompletionClient completionClient, FulfillmentSimulator simulator) {
+        this(orderStore, RuleEngine.of(RuleSet.defaults(approvalPolicy.getThreshold())), completionClient, simulator);
+    }
+
+    /**
+     * Create the activities with the given approval and payment rules. Without a simulator and
+     * completion client, payment and delivery complete synchronously.
+     */
+    public OrderFulfillActivitiesImpl(OrderStore orderStore, RuleEngine rules,
+                                      ActivityCompletionClient completionClient, FulfillmentSimulator simulator) {
+        this.orderStore = orderStore;
+        this.completionClient = completionClient;
+        this.completionExecutor = completionClient == null ? null : newCompletionExecutor();
+        this.simulator = simulator;
+        this.rules = rules;
+    }
+
+    private static Executor newCompletionExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(COMPLETION_THREADS, COMPLETION_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(COMPLETION_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "activity-completion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
     @Override
-    public boolean requireApproval(Order order) {
-        logger.info("Checking order requires approval (over $10k)");
+    public String storeOrder(Order order) {
+        // One order per workflow, so a retried store overwrites rather than duplicates
+        String orderKey = Activity.getExecutionContext().getInfo().getWorkflowId();
+        try {
+            orderStore.put(orderKey, order);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        return orderKey;
+    }
 
-        // Simulate approval logic
-        double totalAmount = order.getTotalAmount();
-        if (totalAmount > 10000) {
-            logger.info("Order requires approval");
-            return true;
+    @Override
+    public void discardOrder(String orderKey) {
+        try {
+            orderStore.remove(orderKey);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
         }
+    }
 
-        simulateDelay(1000);
+    @Override
+    public boolean requireApproval(String orderKey) {
+        logger.info("Checking order against approval rules");
+        Order order = loadOrder(orderKey);
+
+        String rule = rules.requiresApproval(order);
+        if (rule != null) {
+            logger.info("Order requires approval by rule {}", rule);
+            return true;
+        }
         return false;
     }
 
     @Override
-    public String processPayment(Order order) throws CreditCardExpiredException {
+    public String processPayment(String orderKey) throws PaymentDeclinedException {
         logger.info("Processing payment...");
+        Order order = loadOrder(orderKey);
 
-        // Simulate payment processing logic
-        if ("12/23".equals(order.getPayment().getCreditCard().getExpiration())) {
-            throw new CreditCardExpiredException("Payment failed: Credit card expired");
-        }
+        // Check the payment rules before charging the card
+        rules.checkPayment(orderKey, order);
 
-        simulateDelay(1000);
-        return "Payment processed for " + order.getItems().size() + " items";
+        String result = "Payment processed for " + order.getItems().size() + " items";
+        if (simulator == null) {
+            simulateDelay(1000);
+            return result;
+        }
+        ManualActivityCompletionClient completion =
+                TaskTokenCompletionClient.doNotCompleteOnReturn(Activity.getExecutionContext(), completionClient);
+        simulator.charge(order).whenCompleteAsync((ignored, failure) -> complete(completion, result, failure),
+                completionExecutor);
+        return null;
     }
 
     @Override
-    public String reserveInventory(Order order) throws Exception {
+    public String reserveInventory(String orderKey) throws Exception {
         // // Simulate inventory service downtime
         // // The activity will sleep the first 3 times it is called
         // // And throw an error to simulate API call timeout
@@ -58,20 +172,133 @@ public class OrderFulfillActivitiesImpl implements OrderFulfillActivities {
         // }
 
         // Simulate inventory reservation logic
+        // One reservation per workflow, so activity retries don't reserve twice
         logger.info("Reserving inventory...");
-        InventoryApi.reserveInventory(order.getItems());
+        Order order = loadOrder(orderKey);
+        String reservationId = Activity.getExecutionContext().getInfo().getWorkflowId();
+        InventoryApi.reserveInventory(reservationId, order.getItems());
 
         simulateDelay(1000);
         return "Inventory reserved for " + order.getItems().size() + " items";
     }
 
     @Override
-    public String deliverOrder(Order order) {
+    public String refundPayment(String orderKey) {
+        // Simulate payment refund logic
+        logger.info("Refunding payment...");
+        Order order = loadOrder(orderKey);
+
+        simulateDelay(1000);
+        return "Payment refunded for " + order.getItems().size() + " items";
+    }
+
+    @Override
+    public String releaseInventory(String orderKey) {
+        logger.info("Releasing inventory...");
+        Order order = loadOrder(orderKey);
+        String reservationId = Activity.getExecutionContext().getInfo().getWorkflowId();
+        try {
+            InventoryApi.releaseInventory(reservationId);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+
+        return "Inventory released for " + order.getItems().size() + " items";
+    }
+
+    @Override
+    public String deliverOrder(String orderKey) {
         // Simulate order delivery logic
         logger.info("Delivering order...");
+        Order order = loadOrder(orderKey);
 
-        simulateDelay(1000);
-        return "Order delivered for " + order.getItems().size() + " items";
+        String result = "Order delivered for " + order.getItems().size() + " items";
+        if (simulator == null) {
+            simulateDelay(1000);
+            return result;
+        }
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        int completedLegs = context.getHeartbeatDetails(Integer.class).orElse(0);
+        if (completedLegs > 0) {
+            logger.info("Resuming delivery after {}", FulfillmentSimulator.DELIVERY_LEGS[completedLegs - 1]);
+        }
+        ManualActivityCompletionClient completion = TaskTokenCompletionClient.doNotCompleteOnReturn(context, completionClient);
+        DeliveryProgress progress = new DeliveryProgress(completion, completionExecutor);
+        simulator.deliver(order, completedLegs, progress::report)
+                .whenComplete((ignored, failure) -> progress.then(() -> complete(completion, result, failure)));
+        return null;
+    }
+
+    /**
+     * Heartbeats of one delivery, sent in order on the completion executor. A heartbeat that
+     * failed, because the activity was canceled or timed out, stops the delivery at its next leg.
+     */
+    private static final class DeliveryProgress {
+        private final ManualActivityCompletionClient completion;
+        private final Executor executor;
+        private CompletableFuture<Void> sent = CompletableFuture.completedFuture(null);
+        private volatile RuntimeException failure;
+
+        DeliveryProgress(ManualActivityCompletionClient completion, Executor executor) {
+            this.completion = completion;
+            this.executor = executor;
+        }
+
+        synchronized void report(int completedLegs) {
+            if (failure != null) {
+                throw failure;
+            }
+            sent = sent.thenRunAsync(() -> {
+                try {
+                    completion.recordHeartbeat(completedLegs);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }, executor);
+        }
+
+        /**
+         * Run the given action on the completion executor once every heartbeat so far was sent.
+         */
+        synchronized void then(Runnable action) {
+            sent = sent.thenRunAsync(action, executor);
+        }
+    }
+
+    /**
+     * Complete an asynchronous activity from the simulator's callback. The activity may have timed
+     * out or been canceled meanwhile, in which case there is nothing left to complete.
+     */
+    private static void complete(ManualActivityCompletionClient completion, String result, Throwable failure) {
+        try {
+            if (failure == null) {
+                completion.complete(result);
+            } else if (failure instanceof CanceledFailure) {
+                completion.reportCancellation(null);
+            } else {
+                completion.fail(failure);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not complete activity: {}", e.toString());
+        }
+    }
+
+    /**
+     * Load the order stored under the given key. A missing order fails without retries, since
+     * retrying won't bring it back; the workflow stores it again and calls the activity once more.
+     */
+    private Order loadOrder(String orderKey) {
+        Order order;
+        try {
+            order = orderStore.get(orderKey);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        if (order == null) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Order not found in order store: " + orderKey, OrderStore.ORDER_NOT_FOUND_FAILURE);
+        }
+        return order;
     }
 
     /**
@@ -80,9 +307,11 @@ public class OrderFulfillActivitiesImpl implements OrderFulfillActivities {
     private void simulateDelay(int sleepMs) {
         // Take sleepMs as input and introduce variance of +/- 20%
         double variance = sleepMs * 0.2;
-        int finalSleepMs = sleepMs + (int) (Math.floor(random.nextDouble() * 2 * variance) - variance);
+        int finalSleepMs = sleepMs + (int) (Math.floor(ThreadLocalRandom.current().nextDouble() * 2 * variance) - variance);
         
-        logger.info("Simulating delay of {}ms", finalSleepMs);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Simulating delay of {}ms", finalSleepMs);
+        }
         
         try {
             Thread.sleep(finalSleepMs);
@@ -0,0 +1,58 @@
+package orderfulfillapp.activities;
+
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ManualActivityCompletionClient;
+import io.temporal.client.ActivityCanceledException;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.failure.CanceledFailure;
+
+/**
+ * Completes an activity that returned without a result, from any thread, by its task token.
+ *
+ * {@link ActivityExecutionContext#useLocalManualCompletion()} keeps the activity's execution slot
+ * until the activity completes. Marking it {@link ActivityExecutionContext#doNotCompleteOnReturn()}
+ * and completing it through the client frees the slot as soon as the activity method returns.
+ */
+class TaskTokenCompletionClient implements ManualActivityCompletionClient {
+    private final ActivityCompletionClient completionClient;
+    private final byte[] taskToken;
+
+    private TaskTokenCompletionClient(ActivityCompletionClient completionClient, byte[] taskToken) {
+        this.completionClient = completionClient;
+        this.taskToken = taskToken;
+    }
+
+    /**
+     * Mark the running activity to be completed later and return the client to complete it with.
+     */
+    static ManualActivityCompletionClient doNotCompleteOnReturn(ActivityExecutionContext context,
+                                                                ActivityCompletionClient completionClient) {
+        context.doNotCompleteOnReturn();
+        return new TaskTokenCompletionClient(completionClient, context.getTaskToken());
+    }
+
+    @Override
+    public void complete(Object result) {
+        completionClient.complete(taskToken, result);
+    }
+
+    @Override
+    public void fail(Throwable failure) {
+        completionClient.completeExceptionally(taskToken,
+                failure instanceof Exception ? (Exception) failure : new RuntimeException(failure));
+    }
+
+    @Override
+    public void recordHeartbeat(Object details) throws CanceledFailure {
+        try {
+            completionClient.heartbeat(taskToken, details);
+        } catch (ActivityCanceledException e) {
+            throw new CanceledFailure("Activity canceled", details);
+        }
+    }
+
+    @Override
+    public void reportCancellation(Object details) {
+        completionClient.reportCancellation(taskToken, details);
+    }
+}
@@ -0,0 +1,322 @@
+package orderfulfillapp.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import orderfulfillapp.model.Money;
+import orderfulfillapp.model.StockItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stock database stored by column rather than as one {@link StockItem} per SKU, for catalogs of
+ * millions of SKUs. Each SKU is a dense int id, its position in the file, and the columns are:
+ * <ul>
+ * <li>names: the UTF-8 bytes of every name back to back, with an offset column;</li>
+ * <li>an open-addressing index from name to id, on each name's cached {@link String#hashCode()};</li>
+ * <li>prices as {@code long} cents, and stock as {@code int}.</li>
+ * </ul>
+ * That is about 28 bytes per SKU plus its name, against roughly 150 for a {@code StockItem} with its
+ * {@code String} and hash map entry, in a handful of objects instead of several per SKU.
+ *
+ * Off-heap tables keep every column in direct buffers, outside the garbage-collected heap. The
+ * foreign memory API is final on the release this builds for, but {@code MemorySegment} columns
+ * would add nothing here. Every column stays well under the 2 GB an int-indexed buffer can address
+ * (names, the largest, take about 300 MB at 10M SKUs). A direct buffer is freed with the table,
+ * where a segment needs an {@code Arena} that some owner must close after the last reader is done.
+ * Tables are immutable and safe to share between threads.
+ */
+public final class ColumnarStockTable {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final int size;
+    private final boolean offHeap;
+    private final boolean asciiNames;
+    private final ByteBuffer names;
+    private final IntBuffer nameOffsets;
+    private final IntBuffer nameHashes;
+    private final IntBuffer slots;
+    private final int slotMask;
+    private final LongBuffer priceCents;
+    private final IntBuffer stock;
+
+    private ColumnarStockTable(Builder builder) {
+        this.size = builder.size;
+        this.offHeap = builder.offHeap;
+        boolean ascii = true;
+        for (int i = 0; i < builder.nameBytes && ascii; i++) {
+            ascii = builder.names[i] >= 0;
+        }
+        this.asciiNames = ascii;
+        this.names = offHeap
+                ? ByteBuffer.allocateDirect(builder.nameBytes).put(0, builder.names, 0, builder.nameBytes)
+                : ByteBuffer.wrap(Arrays.copyOf(builder.names, builder.nameBytes));
+        this.nameOffsets = intColumn(builder.nameOffsets, size + 1);
+        this.nameHashes = intColumn(builder.nameHashes, size);
+        this.priceCents = longColumn(builder.priceCents, size);
+        this.stock = intColumn(builder.stock, size);
+
+        // At most half full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+        this.slots = intColumn(new int[capacity], capacity);
+        this.slotMask = capacity - 1;
+        for (int skuId = 0; skuId < size; skuId++) {
+            int slot = mix(nameHashes.get(skuId)) & slotMask;
+            boolean duplicate = false;
+            for (int entry; (entry = slots.get(slot)) != 0; slot = (slot + 1) & slotMask) {
+                if (nameHashes.get(entry - 1) == nameHashes.get(skuId) && sameName(entry - 1, skuId)) {
+                    // The first SKU of a name is the one found
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                slots.put(slot, skuId + 1);
+            }
+        }
+    }
+
+    public static ColumnarStockTable of(List<StockItem> items, boolean offHeap) {
+        Builder builder = builder(items.size(), offHeap);
+        for (StockItem item : items) {
+            builder.add(item.getItemName(), item.getItemPrice(), item.getStock());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int expectedSize, boolean offHeap) {
+        return new Builder(expectedSize, offHeap);
+    }
+
+    /**
+     * Load a stock database, trying the file system first and falling back to the classpath.
+     */
+    public static ColumnarStockTable load(String stockDatabasePath, boolean offHeap) throws IOException {
+        if (Files.exists(Paths.get(stockDatabasePath))) {
+            try (InputStream in = Files.newInputStream(Paths.get(stockDatabasePath))) {
+                return read(in, offHeap);
+            }
+        }
+        try (InputStream in = ColumnarStockTable.class.getClassLoader().getResourceAsStream(stockDatabasePath)) {
+            if (in == null) {
+                throw new IOException("Could not find stock database file: " + stockDatabasePath);
+            }
+            return read(in, offHeap);
+        }
+    }
+
+    /**
+     * Read a JSON array of stock items straight into columns, without creating a {@code StockItem} each.
+     */
+    public static ColumnarStockTable read(InputStream in, boolean offHeap) throws IOException {
+        Builder builder = builder(1024, offHeap);
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of stock items");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String itemName = null;
+                double itemPrice = 0;
+                int units = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "itemName":
+                            itemName = parser.getValueAsString();
+                            break;
+                        case "itemPrice":
+                            itemPrice = parser.getValueAsDouble();
+                            break;
+                        case "stock":
+                            units = parser.getValueAsInt();
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+                if (itemName == null) {
+                    throw new IOException("Stock item without itemName at " + parser.currentLocation());
+                }
+                builder.add(itemName, itemPrice, units);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Get the SKU id of the given item, or -1 if it is not stocked.
+     */
+    public int indexOf(String itemName) {
+        int hash = itemName.hashCode();
+        for (int slot = mix(hash) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int entry = slots.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (nameHashes.get(entry - 1) == hash && nameEquals(entry - 1, itemName)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Decode the name of the given SKU. This creates a new {@code String}, so callers that need
+     * a name repeatedly should keep it.
+     */
+    public String getName(int skuId) {
+        int start = nameOffsets.get(skuId);
+        byte[] bytes = new byte[nameOffsets.get(skuId + 1) - start];
+        names.get(start, bytes);
+        return new String(bytes, asciiNames ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    public long getPriceCents(int skuId) {
+        return priceCents.get(skuId);
+    }
+
+    public double getPrice(int skuId) {
+        return priceCents.get(skuId) / 100.0;
+    }
+
+    public int getStock(int skuId) {
+        return stock.get(skuId);
+    }
+
+    /**
+     * Create a {@link StockItem} for the given SKU.
+     */
+    public StockItem getItem(int skuId) {
+        return new StockItem(getName(skuId), getPrice(skuId), getStock(skuId));
+    }
+
+    /**
+     * Bytes held by the columns, on or off the heap.
+     */
+    public long getFootprintBytes() {
+        return (long) names.capacity()
+                + (long) Integer.BYTES * (nameOffsets.capacity() + nameHashes.capacity() + slots.capacity() + stock.capacity())
+                + (long) Long.BYTES * priceCents.capacity();
+    }
+
+    private boolean nameEquals(int skuId, String itemName) {
+        int start = nameOffsets.get(skuId);
+        int length = nameOffsets.get(skuId + 1) - start;
+        if (asciiNames) {
+            // Every stored name is ASCII, so one byte per char and no encoding of the query
+            if (itemName.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (itemName.charAt(i) != names.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        byte[] query = itemName.getBytes(StandardCharsets.UTF_8);
+        return query.length == length && names.slice(start, length).equals(ByteBuffer.wrap(query));
+    }
+
+    private boolean sameName(int a, int b) {
+        int startA = nameOffsets.get(a);
+        int startB = nameOffsets.get(b);
+        int length = nameOffsets.get(a + 1) - startA;
+        return length == nameOffsets.get(b + 1) - startB
+                && names.slice(startA, length).equals(names.slice(startB, length));
+    }
+
+    private static int mix(int hash) {
+        // Spread String hashes, which differ mostly in their low bits for similar names
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Copy the first {@code length} values into a direct buffer, or an exact-size array on the heap.
+     */
+    private IntBuffer intColumn(int[] values, int length) {
+        if (!offHeap) {
+            return IntBuffer.wrap(Arrays.copyOf(values, length));
+        }
+        return ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.nativeOrder())
+                .asIntBuffer().put(0, values, 0, length);
+    }
+
+    private LongBuffer longColumn(long[] values, int length) {
+        if (!offHeap) {
+            return LongBuffer.wrap(Arrays.copyOf(values, length));
+        }
+        return ByteBuffer.allocateDirect(length * Long.BYTES).order(ByteOrder.nativeOrder())
+                .asLongBuffer().put(0, values, 0, length);
+    }
+
+    /**
+     * Appends SKUs in id order. Columns grow on the heap while loading and are copied to their
+     * final, exact-size buffers by {@link #build}.
+     */
+    public static final class Builder {
+        private final boolean offHeap;
+        private byte[] names;
+        private int nameBytes;
+        private int[] nameOffsets;
+        private int[] nameHashes;
+        private long[] priceCents;
+        private int[] stock;
+        private int size;
+
+        private Builder(int expectedSize, boolean offHeap) {
+            int capacity = Math.max(16, expectedSize);
+            this.offHeap = offHeap;
+            this.names = new byte[capacity * 16];
+            this.nameOffsets = new int[capacity + 1];
+            this.nameHashes = new int[capacity];
+            this.priceCents = new long[capacity];
+            this.stock = new int[capacity];
+        }
+
+        public Builder add(String itemName, double itemPrice, int units) {
+            if (size == nameHashes.length) {
+                int capacity = size * 2;
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+                nameHashes = Arrays.copyOf(nameHashes, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                stock = Arrays.copyOf(stock, capacity);
+            }
+            byte[] bytes = itemName.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes + bytes.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, nameBytes + bytes.length));
+            }
+            System.arraycopy(bytes, 0, names, nameBytes, bytes.length);
+            nameBytes += bytes.length;
+            nameHashes[size] = itemName.hashCode();
+            priceCents[size] = Money.toCents(itemPrice);
+            stock[size] = units;
+            size++;
+            nameOffsets[size] = nameBytes;
+            return this;
+        }
+
+        public ColumnarStockTable build() {
+            return new ColumnarStockTable(this);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.model.Order;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Local stand-in for a payment gateway and a carrier that answer by callback, like the real ones.
+ * Requests return at once and are answered later from a small scheduled executor, so any number of
+ * charges and deliveries can be in flight without a thread each.
+ *
+ * Callbacks run on the simulator's threads, so they should hand off or finish quickly.
+ */
+public class FulfillmentSimulator implements AutoCloseable {
+    /**
+     * The legs of a delivery, in order; progress is reported as the index of the leg completed.
+     */
+    public static final String[] DELIVERY_LEGS = {"Picked", "Packed", "In transit", "Delivered"};
+
+    private final ScheduledExecutorService scheduler;
+    private final int chargeDelayMs;
+    private final int deliveryDelayMs;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * A simulator with the same delays as the synchronous activities: about a second per charge and delivery.
+     */
+    public FulfillmentSimulator() {
+        this(2, 1000, 1000);
+    }
+
+    public FulfillmentSimulator(int threads, int chargeDelayMs, int deliveryDelayMs) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fulfillment-simulator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chargeDelayMs = chargeDelayMs;
+        this.deliveryDelayMs = deliveryDelayMs;
+    }
+
+    /**
+     * Charge the order's card. The future completes when the gateway confirms the charge.
+     */
+    public CompletableFuture<Void> charge(Order order) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        started();
+        scheduler.schedule(() -> {
+            finished();
+            result.complete(null);
+        }, withVariance(chargeDelayMs), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    /**
+     * Deliver the order, starting after the leg {@code completedLegs} already reached, e.g. by an
+     * earlier attempt. {@code onProgress} is called with the number of legs completed after each leg;
+     * if it throws, the delivery stops and the future fails with that exception.
+     */
+    public CompletableFuture<Void> deliver(Order order, int completedLegs, IntConsumer onProgress) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        started();
+        scheduleLeg(completedLegs, onProgress, result);
+        return result;
+    }
+
+    private void scheduleLeg(int completedLegs, IntConsumer onProgress, CompletableFuture<Void> result) {
+        if (completedLegs >= DELIVERY_LEGS.length) {
+            finished();
+            result.complete(null);
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                onProgress.accept(completedLegs + 1);
+            } catch (RuntimeException e) {
+                finished();
+                result.completeExceptionally(e);
+                return;
+            }
+            scheduleLeg(completedLegs + 1, onProgress, result);
+        }, withVariance(deliveryDelayMs / DELIVERY_LEGS.length), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Charges and deliveries currently waiting for an answer.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The most charges and deliveries that were in flight at once.
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void started() {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    }
+
+    private void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * The delay with +/- 20% variance, like the synchronous activities.
+     */
+    private static long withVariance(int delayMs) {
+        double variance = delayMs * 0.2;
+        return delayMs + (long) (Math.floor(ThreadLocalRandom.current().nextDouble() * 2 * variance) - variance);
+    }
+}
@@ -1,16 +1,17 @@
 package orderfulfillapp.api;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import orderfulfillapp.Shared;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.ledger.InventoryLedger;
 import orderfulfillapp.model.OrderItem;
-import orderfulfillapp.model.StockItem;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,63 +20,115 @@ import org.slf4j.LoggerFactory;
  */
 public class InventoryApi {
     private static final Logger logger = LoggerFactory.getLogger(InventoryApi.class);
-    private static final String STOCK_DATABASE_PATH = Shared.STOCK_DATABASE_PATH;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static final String RESERVE_LATENCY = "orderfulfill.inventory.reserve";
+    public static final String RESERVE_MISSES = "orderfulfill.inventory.misses";
+
+    // Created up front so the reservation path doesn't look meters up on every call
+    private static final Timer reservedTimer = reserveTimer("reserved");
+    private static final Timer insufficientStockTimer = reserveTimer("insufficient_stock");
+    private static final Timer invalidItemTimer = reserveTimer("invalid_item");
+    private static final Counter insufficientStockMisses = Metrics.counter(RESERVE_MISSES, "reason", "insufficient_stock");
+    private static final Counter invalidItemMisses = Metrics.counter(RESERVE_MISSES, "reason", "invalid_item");
+
+    private static volatile StockReservationEngine reservationEngine;
+    private static int stockShare;
+    private static int stockShares = 1;
+    private static InventoryLedger ledger;
 
     /**
-     * Reserve inventory for the given order items.
-     * This simulates the inventory reservation process.
+     * Reserve inventory for the given order items under the given reservation id.
+     * Either every item is reserved or none is; reserving the same id twice is a no-op.
      */
-    public static void reserveInventory(List<OrderItem> orderItems) throws Exception {
-        List<StockItem> stockDatabase = loadStockDatabase();
+    public static void reserveInventory(String reservationId, List<OrderItem> orderItems)
+            throws IOException, InsufficientStockException {
+        // One line per item adds up on the hot path, so skip the loop entirely unless debugging
+        if (logger.isDebugEnabled()) {
+            for (OrderItem orderItem : orderItems) {
+                String itemName = orderItem.getItemName();
 
-        for (OrderItem orderItem : orderItems) {
-            String itemName = orderItem.getItemName();
+                // // // SIMULATE BUG FIX FOR INVALID DATA BUG
+                // // // Removes @@@ from the end of the item name if present
+                // if (itemName.endsWith("@@@")) {
+                //     itemName = itemName.substring(0, itemName.length() - 3);
+                //     logger.info("BUG FIX: Removed @@@ from item name: {}", itemName);
+                // }
 
-            // // // SIMULATE BUG FIX FOR INVALID DATA BUG
-            // // // Removes @@@ from the end of the item name if present
-            // if (itemName.endsWith("@@@")) {
-            //     itemName = itemName.substring(0, itemName.length() - 3);
-            //     logger.info("BUG FIX: Removed @@@ from item name: {}", itemName);
-            // }
+                logger.debug("Reserving inventory for item: {}", itemName);
+            }
+        }
 
-            final String finalItemName = itemName;
-            StockItem stockItem = stockDatabase.stream()
-                    .filter(item -> item.getItemName().equals(finalItemName))
-                    .findFirst()
-                    .orElse(null);
+        StockReservationEngine engine = getReservationEngine();
+        long start = System.nanoTime();
+        try {
+            engine.reserve(reservationId, orderItems);
+            reservedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (InsufficientStockException e) {
+            insufficientStockTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            insufficientStockMisses.increment();
+            throw e;
+        } catch (RuntimeException e) {
+            // Unknown items and invalid quantities
+            invalidItemTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            invalidItemMisses.increment();
+            throw e;
+        }
+    }
 
-            if (stockItem == null) {
-                throw new RuntimeException("Couldn't find item in stock database: " + orderItem.getItemName());
-            }
+    /**
+     * Release the inventory held by the given reservation id.
+     * Releasing an unknown or already released reservation is a no-op.
+     */
+    public static void releaseInventory(String reservationId) throws IOException {
+        logger.info("Releasing inventory reservation: {}", reservationId);
+        getReservationEngine().release(reservationId);
+    }
+
+    private static Timer reserveTimer(String outcome) {
+        return Timer.builder(RESERVE_LATENCY)
+                .description("Time to reserve stock for all items of an order")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(Metrics.globalRegistry);
+    }
 
-            logger.info("Reserving inventory for item: {}", orderItem.getItemName());
+    /**
+     * Keep the reservation engine's reservations in a ledger in the given directory, restoring
+     * those recorded before. Call once, before the first reservation.
+     */
+    public static synchronized InventoryLedger openLedger(Path directory) throws IOException {
+        if (ledger != null) {
+            throw new IllegalStateException("The inventory ledger is already open in " + directory);
         }
-        // simulating the reservation with log statements
+        ledger = InventoryLedger.open(directory, getReservationEngine());
+        return ledger;
     }
 
     /**
-     * Load the stock database from the JSON file.
+     * Reserve only from share {@code share} of {@code shares} of every SKU's stock, for hosts
+     * that serve the same shards. Takes effect when the reservation engine is first created.
      */
-    private static List<StockItem> loadStockDatabase() throws IOException {
-        try {
-            // Try to read from the file system first
-            if (Files.exists(Paths.get(STOCK_DATABASE_PATH))) {
-                byte[] jsonData = Files.readAllBytes(Paths.get(STOCK_DATABASE_PATH));
-                return objectMapper.readValue(jsonData, new TypeReference<List<StockItem>>() {});
-            }
-            
-            // Fall back to reading from classpath
-            try (InputStream inputStream = InventoryApi.class.getClassLoader()
-                    .getResourceAsStream(STOCK_DATABASE_PATH)) {
-                if (inputStream == null) {
-                    throw new IOException("Could not find stock database file: " + STOCK_DATABASE_PATH);
+    public static synchronized void setStockShare(int share, int shares) {
+        stockShare = share;
+        stockShares = shares;
+    }
+
+    /**
+     * Get the reservation engine backed by the shared stock catalog.
+     */
+    public static StockReservationEngine getReservationEngine() throws IOException {
+        StockReservationEngine engine = reservationEngine;
+        if (engine == null) {
+            synchronized (InventoryApi.class) {
+                engine = reservationEngine;
+                if (engine == null) {
+                    engine = new StockReservationEngine(StockCatalog.getInstance(), stockShare, stockShares);
+                    reservationEngine = engine;
                 }
-                return objectMapper.readValue(inputStream, new TypeReference<List<StockItem>>() {});
             }
-        } catch (IOException e) {
-            logger.error("Failed to load stock database from {}", STOCK_DATABASE_PATH, e);
-            throw e;
         }
+        return engine;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,279 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.Shared;
+import orderfulfillapp.model.StockItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Long-lived, in-memory view of the stock database.
+ * The JSON file is parsed once into a {@link ColumnarStockTable}, on or off the heap, which is
+ * indexed by item name. When the file lives on the
+ * file system it is watched for changes, and a freshly parsed snapshot is swapped in
+ * atomically so lookups never block on a reload.
+ */
+public class StockCatalog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StockCatalog.class);
+
+    private static volatile StockCatalog instance;
+    private static volatile boolean offHeapDefault;
+
+    private final String stockDatabasePath;
+    private final boolean offHeap;
+    private volatile Snapshot snapshot;
+    private WatchService watchService;
+
+    private StockCatalog(String stockDatabasePath, boolean offHeap, Snapshot snapshot) {
+        this.stockDatabasePath = stockDatabasePath;
+        this.offHeap = offHeap;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Keep the shared catalog's columns off the heap. Takes effect when the catalog is first loaded.
+     */
+    public static void setOffHeap(boolean offHeap) {
+        offHeapDefault = offHeap;
+    }
+
+    /**
+     * Get the shared catalog backed by {@link Shared#STOCK_DATABASE_PATH}, loading it on first use.
+     */
+    public static StockCatalog getInstance() throws IOException {
+        StockCatalog catalog = instance;
+        if (catalog == null) {
+            synchronized (StockCatalog.class) {
+                catalog = instance;
+                if (catalog == null) {
+                    catalog = open(Shared.STOCK_DATABASE_PATH, offHeapDefault);
+                    instance = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Load a catalog from the given path and start watching it for changes.
+     * The file system is tried first, falling back to the classpath (which is not watched).
+     */
+    public static StockCatalog open(String stockDatabasePath) throws IOException {
+        return open(stockDatabasePath, false);
+    }
+
+    /**
+     * Like {@link #open(String)}, with the catalog's columns on or off the heap.
+     */
+    public static StockCatalog open(String stockDatabasePath, boolean offHeap) throws IOException {
+        StockCatalog catalog = new StockCatalog(stockDatabasePath, offHeap,
+                new Snapshot(load(stockDatabasePath, offHeap), 1));
+        catalog.startWatching();
+        return catalog;
+    }
+
+    /**
+     * Create a fixed catalog from the given items, without any backing file.
+     */
+    public static StockCatalog of(List<StockItem> items) {
+        return of(ColumnarStockTable.of(items, false));
+    }
+
+    /**
+     * Create a fixed catalog over the given table, without any backing file.
+     */
+    public static StockCatalog of(ColumnarStockTable table) {
+        return new StockCatalog(null, table.isOffHeap(), new Snapshot(table, 1));
+    }
+
+    /**
+     * Look up a stock item by its exact name, or return null if it is not stocked.
+     */
+    public StockItem findItem(String itemName) {
+        return snapshot.findItem(itemName);
+    }
+
+    /**
+     * Get all stock items of the current snapshot, created as they are read.
+     */
+    public List<StockItem> getItems() {
+        return snapshot.getItems();
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Get the current snapshot. It never changes once published, so callers that need a
+     * consistent view across several lookups should hold on to it.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Re-read the backing file and publish a new snapshot.
+     * On failure the previous snapshot stays in place.
+     */
+    public void reload() throws IOException {
+        if (stockDatabasePath == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(load(stockDatabasePath, offHeap), current.getVersion() + 1);
+        logger.info("Reloaded stock database from {} ({} items)", stockDatabasePath, snapshot.size());
+    }
+
+    @Override
+    public void close() {
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close stock database watcher", e);
+            }
+        }
+    }
+
+    private void startWatching() {
+        Path file = Paths.get(stockDatabasePath).toAbsolutePath();
+        if (!Files.exists(file)) {
+            // Loaded from the classpath, nothing to watch
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Could not watch stock database {}, changes will not be picked up", file, e);
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watch(file), "stock-catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(Path file) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        logger.error("Failed to reload stock database, keeping previous snapshot", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Catalog closed
+        }
+    }
+
+    /**
+     * Load the stock database from the JSON file.
+     */
+    private static ColumnarStockTable load(String stockDatabasePath, boolean offHeap) throws IOException {
+        try {
+            return ColumnarStockTable.load(stockDatabasePath, offHeap);
+        } catch (IOException e) {
+            logger.error("Failed to load stock database from {}", stockDatabasePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Immutable, indexed view of the stock database at one point in time.
+     * Each item gets a dense SKU id (its position in the file) that stays valid for the
+     * lifetime of the snapshot. Items are stored by column; the {@link StockItem}s returned
+     * are created on each call, so hot paths should read the columns by SKU id instead.
+     */
+    public static final class Snapshot {
+        private final ColumnarStockTable table;
+        private final long version;
+
+        Snapshot(ColumnarStockTable table, long version) {
+            this.table = table;
+            this.version = version;
+        }
+
+        public StockItem findItem(String itemName) {
+            int skuId = table.indexOf(itemName);
+            return skuId < 0 ? null : table.getItem(skuId);
+        }
+
+        /**
+         * Get the SKU id of the given item, or -1 if it is not stocked.
+         */
+        public int indexOf(String itemName) {
+            return table.indexOf(itemName);
+        }
+
+        public StockItem getItem(int skuId) {
+            return table.getItem(skuId);
+        }
+
+        public String getName(int skuId) {
+            return table.getName(skuId);
+        }
+
+        public int getStock(int skuId) {
+            return table.getStock(skuId);
+        }
+
+        public List<StockItem> getItems() {
+            return new AbstractList<>() {
+                @Override
+                public StockItem get(int skuId) {
+                    return table.getItem(skuId);
+                }
+
+                @Override
+                public int size() {
+                    return table.size();
+                }
+            };
+        }
+
+        public ColumnarStockTable getTable() {
+            return table;
+        }
+
+        public int size() {
+            return table.size();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
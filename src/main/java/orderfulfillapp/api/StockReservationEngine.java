@@ -0,0 +1,366 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.OrderItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Concurrent stock reservation engine on top of a {@link StockCatalog}.
+ * Available units are kept in one lock-free counter per SKU, indexed by the catalog's SKU id,
+ * so reservations for different items never contend and reservations for the same item only
+ * contend on a single compare-and-set.
+ *
+ * A reservation covers all items of one order: either every item is decremented or none is.
+ * Reservations are keyed by a caller-chosen id, which makes both reserve and release
+ * idempotent and safe to retry. Each reservation knows which counters hold its units, so one
+ * made while the catalog is reloaded is moved onto the re-seeded counters rather than lost.
+ *
+ * With a {@link Journal}, every reserve and release is recorded after it is applied, and has
+ * been recorded by the time it returns. Replaying the records through {@link #reserve} and
+ * {@link #release} rebuilds the reservations, since both are idempotent.
+ *
+ * Several hosts that serve the same SKUs each seed their own engine from the same catalog, so
+ * each one takes a share of every SKU's stock instead of all of it. The shares of all hosts add
+ * up to the catalog's stock, so together they never reserve more than it holds.
+ */
+public class StockReservationEngine {
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private final StockCatalog catalog;
+    private final int share;
+    private final int shares;
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private volatile Counters counters;
+    private volatile Journal journal;
+
+    public StockReservationEngine(StockCatalog catalog) {
+        this(catalog, 0, 1);
+    }
+
+    /**
+     * An engine holding share {@code share} of {@code shares} equal shares of every SKU's stock.
+     */
+    public StockReservationEngine(StockCatalog catalog, int share, int shares) {
+        if (shares <= 0 || share < 0 || share >= shares) {
+            throw new IllegalArgumentException("Invalid stock share " + share + "/" + shares);
+        }
+        this.catalog = catalog;
+        this.share = share;
+        this.shares = shares;
+        this.counters = new Counters(catalog.snapshot(), share, shares);
+    }
+
+    /**
+     * Reserve stock for all the given items under the given reservation id.
+     * Reserving an id that is already held is a no-op.
+     *
+     * @throws InsufficientStockException if any item has fewer units available than requested,
+     *         in which case nothing is reserved
+     */
+    public void reserve(String reservationId, List<OrderItem> orderItems) throws InsufficientStockException {
+        Reservation existing = reservations.get(reservationId);
+        if (existing != null) {
+            // Still record it, as a retry may come before the first attempt was recorded
+            recordReserved(reservationId, existing);
+            return;
+        }
+
+        Counters current = currentCounters();
+        Reservation reservation = Reservation.of(current, orderItems);
+
+        int reserved = 0;
+        try {
+            for (; reserved < reservation.skuIds.length; reserved++) {
+                if (!current.tryTake(reservation.skuIds[reserved], reservation.quantities[reserved])) {
+                    throw new InsufficientStockException("Insufficient stock for item: " + reservation.itemNames[reserved]
+                            + " (requested " + reservation.quantities[reserved]
+                            + ", available " + current.available(reservation.skuIds[reserved]) + ")");
+                }
+            }
+        } finally {
+            if (reserved < reservation.skuIds.length) {
+                // Roll back the items taken before the failing one
+                for (int i = 0; i < reserved; i++) {
+                    current.put(reservation.skuIds[i], reservation.quantities[i]);
+                }
+            }
+        }
+
+        existing = reservations.putIfAbsent(reservationId, reservation);
+        if (existing != null) {
+            // A concurrent retry of the same reservation won the race, give our units back
+            for (int i = 0; i < reservation.skuIds.length; i++) {
+                current.put(reservation.skuIds[i], reservation.quantities[i]);
+            }
+            reservation = existing;
+        } else if (reservation.heldIn != currentCounters()) {
+            // Re-seeded between taking the units and registering them, possibly without this reservation
+            synchronized (this) {
+                reservation.moveTo(currentCounters());
+            }
+        }
+        recordReserved(reservationId, reservation);
+    }
+
+    /**
+     * Release the stock held by the given reservation.
+     * Releasing an unknown or already released id is a no-op.
+     */
+    public void release(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation != null) {
+            reservation.release();
+        }
+
+        // Recorded even when there was nothing to release, in case a retry overtook the first release
+        Journal current = journal;
+        if (current != null) {
+            try {
+                current.released(reservationId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to record release of " + reservationId, e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of units of this engine's share currently available for the given item,
+     * or -1 if it is not stocked.
+     */
+    public int getAvailable(String itemName) {
+        Counters current = currentCounters();
+        int skuId = current.snapshot.indexOf(itemName);
+        return skuId < 0 ? -1 : current.available(skuId);
+    }
+
+    public boolean isReserved(String reservationId) {
+        return reservations.containsKey(reservationId);
+    }
+
+    /**
+     * Number of reservations currently held.
+     */
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    /**
+     * Visit every reservation currently held. Reservations made or released during the visit may
+     * or may not be seen. The visitor must not modify the arrays it is given.
+     */
+    public void forEachReservation(ReservationVisitor visitor) {
+        reservations.forEach((reservationId, reservation) ->
+                visitor.visit(reservationId, reservation.itemNames, reservation.quantities));
+    }
+
+    /**
+     * Record every reserve and release from now on, or stop recording with {@code null}.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    private void recordReserved(String reservationId, Reservation reservation) {
+        Journal current = journal;
+        if (current != null) {
+            try {
+                current.reserved(reservationId, reservation.itemNames, reservation.quantities);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to record reservation " + reservationId, e);
+            }
+        }
+    }
+
+    /**
+     * Get the counters for the catalog's current snapshot. When the catalog has been reloaded,
+     * stock is re-seeded from the new file minus everything still held by open reservations.
+     * A reservation registered while re-seeding may be missed here; {@link #reserve} then moves
+     * it over itself.
+     */
+    private Counters currentCounters() {
+        Counters current = counters;
+        StockCatalog.Snapshot snapshot = catalog.snapshot();
+        if (current.snapshot == snapshot) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = counters;
+            if (current.snapshot != catalog.snapshot()) {
+                current = new Counters(catalog.snapshot(), share, shares);
+                for (Reservation reservation : reservations.values()) {
+                    reservation.moveTo(current);
+                }
+                counters = current;
+                logger.info("Re-seeded stock counters from stock database version {}",
+                        current.snapshot.getVersion());
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Durable record of reserves and releases. Each method returns once its record is durable.
+     */
+    public interface Journal {
+        void reserved(String reservationId, String[] itemNames, int[] quantities) throws IOException;
+
+        void released(String reservationId) throws IOException;
+    }
+
+    /**
+     * Receives one reservation: its items, merged per SKU, and the units of each.
+     */
+    @FunctionalInterface
+    public interface ReservationVisitor {
+        void visit(String reservationId, String[] itemNames, int[] quantities);
+    }
+
+    /**
+     * Units of share {@code share} of {@code shares} of the given stock. Remainders go to
+     * different shares for different amounts, and all shares add up to the stock.
+     */
+    static int shareOf(int stock, int share, int shares) {
+        return (int) ((long) stock * (share + 1) / shares - (long) stock * share / shares);
+    }
+
+    /**
+     * Available units per SKU for one catalog snapshot.
+     */
+    private static final class Counters {
+        private final StockCatalog.Snapshot snapshot;
+        private final AtomicIntegerArray available;
+
+        Counters(StockCatalog.Snapshot snapshot, int share, int shares) {
+            this.snapshot = snapshot;
+            int[] stock = new int[snapshot.size()];
+            for (int i = 0; i < stock.length; i++) {
+                stock[i] = shareOf(snapshot.getStock(i), share, shares);
+            }
+            this.available = new AtomicIntegerArray(stock);
+        }
+
+        boolean tryTake(int skuId, int quantity) {
+            while (true) {
+                int current = available.get(skuId);
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(skuId, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        void put(int skuId, int quantity) {
+            available.addAndGet(skuId, quantity);
+        }
+
+        /**
+         * Take units held by a reservation carried over from older counters, down to zero at most.
+         */
+        void hold(int skuId, int quantity) {
+            available.getAndUpdate(skuId, current -> Math.max(0, current - quantity));
+        }
+
+        int available(int skuId) {
+            return available.get(skuId);
+        }
+    }
+
+    /**
+     * Units held for one order, merged per SKU and sorted by SKU id, and the counters holding them.
+     * Moves between counters and the release are serialized on the reservation.
+     */
+    private static final class Reservation {
+        private final String[] itemNames;
+        private final int[] quantities;
+        // SKU ids in the counters the units are held in, -1 for items no longer stocked
+        private int[] skuIds;
+        private volatile Counters heldIn;
+        private boolean released;
+
+        private Reservation(Counters heldIn, int[] skuIds, String[] itemNames, int[] quantities) {
+            this.heldIn = heldIn;
+            this.skuIds = skuIds;
+            this.itemNames = itemNames;
+            this.quantities = quantities;
+        }
+
+        /**
+         * Hold this reservation's units in the given, newer counters instead.
+         * The old counters are being replaced, so nothing is given back to them.
+         */
+        synchronized void moveTo(Counters counters) {
+            if (released || heldIn == counters) {
+                return;
+            }
+            int[] moved = new int[itemNames.length];
+            for (int i = 0; i < itemNames.length; i++) {
+                moved[i] = counters.snapshot.indexOf(itemNames[i]);
+                if (moved[i] >= 0) {
+                    counters.hold(moved[i], quantities[i]);
+                }
+            }
+            skuIds = moved;
+            heldIn = counters;
+        }
+
+        synchronized void release() {
+            released = true;
+            for (int i = 0; i < skuIds.length; i++) {
+                if (skuIds[i] >= 0) {
+                    heldIn.put(skuIds[i], quantities[i]);
+                }
+            }
+        }
+
+        static Reservation of(Counters counters, List<OrderItem> orderItems) {
+            StockCatalog.Snapshot snapshot = counters.snapshot;
+            // Pack (skuId, item index) pairs into longs so one primitive sort merges duplicates
+            long[] packed = new long[orderItems.size()];
+            for (int i = 0; i < packed.length; i++) {
+                OrderItem orderItem = orderItems.get(i);
+                int skuId = snapshot.indexOf(orderItem.getItemName());
+                if (skuId < 0) {
+                    throw new RuntimeException("Couldn't find item in stock database: " + orderItem.getItemName());
+                }
+                if (orderItem.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Invalid quantity " + orderItem.getQuantity()
+                            + " for item: " + orderItem.getItemName());
+                }
+                packed[i] = ((long) skuId << 32) | i;
+            }
+            Arrays.sort(packed);
+
+            int[] skuIds = new int[packed.length];
+            // The order's own name strings, so the catalog's names are never decoded
+            String[] itemNames = new String[packed.length];
+            int[] quantities = new int[packed.length];
+            int count = 0;
+            for (long entry : packed) {
+                int skuId = (int) (entry >>> 32);
+                OrderItem orderItem = orderItems.get((int) entry);
+                if (count > 0 && skuIds[count - 1] == skuId) {
+                    quantities[count - 1] += orderItem.getQuantity();
+                } else {
+                    skuIds[count] = skuId;
+                    itemNames[count] = orderItem.getItemName();
+                    quantities[count] = orderItem.getQuantity();
+                    count++;
+                }
+            }
+            return new Reservation(counters, Arrays.copyOf(skuIds, count), Arrays.copyOf(itemNames, count),
+                    Arrays.copyOf(quantities, count));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package orderfulfillapp.config;
+
+import orderfulfillapp.model.Money;
+import orderfulfillapp.model.Order;
+
+import java.time.Duration;
+
+/**
+ * Which orders need approval, where the workflow runs that check, and how long it waits for a
+ * decision. The check is a cheap, deterministic computation on the order total, so it doesn't
+ * need a full activity task round trip through the server.
+ */
+public class ApprovalPolicy {
+
+    /**
+     * Where the approval check runs.
+     */
+    public enum Mode {
+        /**
+         * In workflow code. Fastest, with nothing recorded in history, but the policy must not
+         * change while workflows are running or their replays will diverge.
+         */
+        INLINE,
+        /**
+         * As a local activity on the workflow worker. Only a marker is recorded in history, so
+         * the policy can change between deployments.
+         */
+        LOCAL,
+        /**
+         * As a normal activity, scheduled through the server like any heavy step.
+         */
+        REMOTE
+    }
+
+    public static final double DEFAULT_THRESHOLD = 10000;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofHours(24);
+
+    private static final ApprovalPolicy DEFAULT = new ApprovalPolicy(Mode.LOCAL, DEFAULT_THRESHOLD, DEFAULT_TIMEOUT);
+
+    private final Mode mode;
+    private final double threshold;
+    private final long thresholdCents;
+    private final Duration timeout;
+
+    public ApprovalPolicy(Mode mode, double threshold) {
+        this(mode, threshold, DEFAULT_TIMEOUT);
+    }
+
+    public ApprovalPolicy(Mode mode, double threshold, Duration timeout) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Approval threshold must not be negative, got " + threshold);
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Approval timeout must be positive, got " + timeout);
+        }
+        this.mode = mode;
+        this.threshold = threshold;
+        this.thresholdCents = Money.toCents(threshold);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Local approval checks for orders over $10k, waiting up to a day for a decision.
+     */
+    public static ApprovalPolicy defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Check if the order's total is over the approval threshold.
+     */
+    public boolean requiresApproval(Order order) {
+        return order.getTotalCents() > thresholdCents;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * How long an order that requires approval waits for a decision before the workflow fails.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ApprovalPolicy{mode=" + mode + ", threshold=" + threshold + ", timeout=" + timeout + '}';
+    }
+}
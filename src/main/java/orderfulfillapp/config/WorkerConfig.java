@@ -0,0 +1,806 @@
+package orderfulfillapp.config;
+
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+import io.temporal.worker.tuning.ResourceBasedControllerOptions;
+import io.temporal.worker.tuning.ResourceBasedSlotOptions;
+import io.temporal.worker.tuning.ResourceBasedTuner;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.rules.RuleSet;
+import orderfulfillapp.store.FileOrderStore;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.store.OrderStore;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Worker configuration for {@link orderfulfillapp.OrderFulfillWorker}.
+ * Every setting can come from three sources, later ones overriding earlier ones:
+ * <ol>
+ *   <li>a properties file ({@code --config}, {@code WORKER_CONFIG_FILE}, or {@code worker.properties}
+ *       on the classpath) with keys prefixed by {@code worker.}, e.g. {@code worker.activityPollers}</li>
+ *   <li>environment variables in upper snake case, e.g. {@code WORKER_ACTIVITY_POLLERS}</li>
+ *   <li>command line options, e.g. {@code --activityPollers 8}</li>
+ * </ol>
+ * Anything not set keeps the SDK defaults, except in virtual thread mode where the activity
+ * slot counts default much higher.
+ */
+public class WorkerConfig {
+
+    /**
+     * Which kind of threads execute activities and local activities.
+     */
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    /**
+     * Where inventory activities run: on the order workers, or only on separate
+     * {@link orderfulfillapp.InventoryWorker} processes.
+     */
+    public enum InventoryMode {
+        LOCAL,
+        DEDICATED
+    }
+
+    /**
+     * How payment and delivery complete: on the activity thread, or later from the simulated
+     * gateway's and carrier's callbacks, without holding an activity slot meanwhile.
+     */
+    public enum ActivityCompletion {
+        SYNC,
+        ASYNC
+    }
+
+    /**
+     * Where the stock catalog's columns are kept: on the garbage-collected heap, or in direct
+     * memory outside it, so a catalog of millions of SKUs adds nothing for the collector to trace.
+     */
+    public enum CatalogStorage {
+        HEAP,
+        OFFHEAP
+    }
+
+    /**
+     * How task slots are sized: fixed slot counts, or slots that grow and shrink to keep
+     * CPU and memory usage near the targets.
+     */
+    public enum Tuner {
+        FIXED,
+        RESOURCE
+    }
+
+    // Setting names with their descriptions, in the order they are documented
+    private static final Map<String, String> SETTINGS = new LinkedHashMap<>();
+
+    static {
+        SETTINGS.put("threadMode", "Threads for activities: platform (default) or virtual");
+        SETTINGS.put("maxConcurrentActivities", "Activity execution slots (max slots with the resource tuner)");
+        SETTINGS.put("maxConcurrentLocalActivities", "Local activity execution slots (max slots with the resource tuner)");
+        SETTINGS.put("maxConcurrentWorkflowTasks", "Workflow task execution slots (max slots with the resource tuner)");
+        SETTINGS.put("activityPollers", "Concurrent activity task pollers");
+        SETTINGS.put("workflowPollers", "Concurrent workflow task pollers");
+        SETTINGS.put("workflowCacheSize", "Sticky workflow cache size");
+        SETTINGS.put("maxWorkflowThreads", "Maximum number of workflow threads");
+        SETTINGS.put("tuner", "Slot tuning: fixed (default) or resource");
+        SETTINGS.put("targetMemoryUsage", "Resource tuner target memory usage, 0-1 (default: 0.8)");
+        SETTINGS.put("targetCpuUsage", "Resource tuner target CPU usage, 0-1 (default: 0.9)");
+        SETTINGS.put("orderStoreDir", "Directory shared by all workers for the order store (default: in memory)");
+        SETTINGS.put("approvalMode", "Where the approval check runs: inline, local (default) or remote");
+        SETTINGS.put("approvalThreshold", "Order total above which approval is required (default: 10000)");
+        SETTINGS.put("approvalTimeout", "How long an order waits for approval, e.g. PT24H (default) or P3D");
+        SETTINGS.put("rulesFile", "JSON file of approval and payment rules, reloaded when it changes (default: approvalThreshold only)");
+        SETTINGS.put("shards", "Number of order and inventory task queue shards; starters must use the same (default: 1)");
+        SETTINGS.put("workerShards", "Shards this worker polls, e.g. 0-3,6 (default: all)");
+        SETTINGS.put("inventoryMode", "Where inventory activities run: local (default) or dedicated on inventory workers");
+        SETTINGS.put("ledgerDir", "Directory of this worker's inventory ledger, to keep reservations across restarts (default: in memory)");
+        SETTINGS.put("hostId", "Inventory host id, naming this worker's host queue; must stay the same across restarts (default: kept in ledgerDir)");
+        SETTINGS.put("stockShare", "This host's share of each SKU's stock when several hosts poll the same shards, e.g. 0/2 (default: 0/1, all of it)");
+        SETTINGS.put("catalogStorage", "Where the stock catalog is kept: heap (default) or offheap");
+        SETTINGS.put("activityCompletion", "How payment and delivery complete: sync (default) or async by callback");
+        SETTINGS.put("metricsPort", "Port of the Prometheus /metrics endpoint, 0 to disable (default: 8077, 8078 on inventory workers)");
+    }
+
+    // Blocking activities only park a virtual thread, so one JVM can hold far more of them in flight
+    static final int VIRTUAL_MAX_CONCURRENT_ACTIVITIES = 20_000;
+    static final int VIRTUAL_ACTIVITY_POLLERS = 16;
+    static final double DEFAULT_TARGET_MEMORY_USAGE = 0.8;
+    static final double DEFAULT_TARGET_CPU_USAGE = 0.9;
+    static final int DEFAULT_METRICS_PORT = 8077;
+    // So an order worker and an inventory worker can run side by side on one machine
+    static final int DEFAULT_INVENTORY_METRICS_PORT = 8078;
+    // File in the ledger directory holding the generated host id
+    static final String HOST_ID_FILE = "host-id";
+
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+    private Integer maxConcurrentActivities;
+    private Integer maxConcurrentLocalActivities;
+    private Integer maxConcurrentWorkflowTasks;
+    private Integer activityPollers;
+    private Integer workflowPollers;
+    private Integer workflowCacheSize;
+    private Integer maxWorkflowThreads;
+    private Tuner tuner = Tuner.FIXED;
+    private double targetMemoryUsage = DEFAULT_TARGET_MEMORY_USAGE;
+    private double targetCpuUsage = DEFAULT_TARGET_CPU_USAGE;
+    private String orderStoreDir;
+    private ApprovalPolicy.Mode approvalMode = ApprovalPolicy.defaults().getMode();
+    private double approvalThreshold = ApprovalPolicy.DEFAULT_THRESHOLD;
+    private Duration approvalTimeout = ApprovalPolicy.DEFAULT_TIMEOUT;
+    private String rulesFile;
+    private int shards = 1;
+    private SortedSet<Integer> workerShards;
+    private InventoryMode inventoryMode = InventoryMode.LOCAL;
+    private String ledgerDir;
+    private String hostId;
+    private int stockShare;
+    private int stockShares = 1;
+    private CatalogStorage catalogStorage = CatalogStorage.HEAP;
+    private ActivityCompletion activityCompletion = ActivityCompletion.SYNC;
+    private Integer metricsPort;
+
+    /**
+     * Load the configuration from the properties file, the environment and the command line.
+     */
+    public static WorkerConfig load(String[] args) throws ParseException, IOException {
+        CommandLine cmd = new DefaultParser().parse(createOptions(), args);
+
+        Map<String, String> settings = new HashMap<>(readProperties(
+                cmd.getOptionValue("config", System.getenv("WORKER_CONFIG_FILE"))));
+        for (String name : SETTINGS.keySet()) {
+            String value = System.getenv(toEnvironmentVariable(name));
+            if (value != null && !value.isBlank()) {
+                settings.put(name, value);
+            }
+            if (cmd.hasOption(name)) {
+                settings.put(name, cmd.getOptionValue(name));
+            }
+        }
+        return fromSettings(settings);
+    }
+
+    /**
+     * Build a configuration from setting names (without the {@code worker.} prefix) to values.
+     */
+    public static WorkerConfig fromSettings(Map<String, String> settings) {
+        for (String name : settings.keySet()) {
+            if (!SETTINGS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown worker setting: " + name);
+            }
+        }
+
+        WorkerConfig config = new WorkerConfig();
+        if (settings.containsKey("threadMode")) {
+            config.setThreadMode(parseEnum(ThreadMode.class, settings.get("threadMode")));
+        }
+        config.setMaxConcurrentActivities(parsePositive(settings, "maxConcurrentActivities"));
+        config.setMaxConcurrentLocalActivities(parsePositive(settings, "maxConcurrentLocalActivities"));
+        config.setMaxConcurrentWorkflowTasks(parsePositive(settings, "maxConcurrentWorkflowTasks"));
+        config.setActivityPollers(parsePositive(settings, "activityPollers"));
+        config.setWorkflowPollers(parsePositive(settings, "workflowPollers"));
+        config.setWorkflowCacheSize(parsePositive(settings, "workflowCacheSize"));
+        config.setMaxWorkflowThreads(parsePositive(settings, "maxWorkflowThreads"));
+        if (settings.containsKey("tuner")) {
+            config.setTuner(parseEnum(Tuner.class, settings.get("tuner")));
+        }
+        if (settings.containsKey("targetMemoryUsage")) {
+            config.setTargetMemoryUsage(parseFraction(settings, "targetMemoryUsage"));
+        }
+        if (settings.containsKey("targetCpuUsage")) {
+            config.setTargetCpuUsage(parseFraction(settings, "targetCpuUsage"));
+        }
+        String orderStoreDir = settings.get("orderStoreDir");
+        if (orderStoreDir != null && !orderStoreDir.isBlank()) {
+            config.setOrderStoreDir(orderStoreDir.trim());
+        }
+        if (settings.containsKey("approvalMode")) {
+            config.setApprovalMode(parseEnum(ApprovalPolicy.Mode.class, settings.get("approvalMode")));
+        }
+        if (settings.containsKey("approvalThreshold")) {
+            double threshold = Double.parseDouble(settings.get("approvalThreshold").trim());
+            if (threshold < 0) {
+                throw new IllegalArgumentException("approvalThreshold must not be negative, got " + threshold);
+            }
+            config.setApprovalThreshold(threshold);
+        }
+        if (settings.containsKey("approvalTimeout")) {
+            Duration timeout;
+            try {
+                timeout = Duration.parse(settings.get("approvalTimeout").trim());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("approvalTimeout must be an ISO-8601 duration such as PT24H, got "
+                        + settings.get("approvalTimeout"));
+            }
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("approvalTimeout must be positive, got " + timeout);
+            }
+            config.setApprovalTimeout(timeout);
+        }
+        String rulesFile = settings.get("rulesFile");
+        if (rulesFile != null && !rulesFile.isBlank()) {
+            config.setRulesFile(rulesFile.trim());
+        }
+        Integer shards = parsePositive(settings, "shards");
+        if (shards != null) {
+            config.setShards(shards);
+        }
+        String workerShards = settings.get("workerShards");
+        if (workerShards != null && !workerShards.isBlank()) {
+            config.setWorkerShards(parseShards(workerShards, config.getShards()));
+        }
+        if (settings.containsKey("inventoryMode")) {
+            config.setInventoryMode(parseEnum(InventoryMode.class, settings.get("inventoryMode")));
+        }
+        String ledgerDir = settings.get("ledgerDir");
+        if (ledgerDir != null && !ledgerDir.isBlank()) {
+            config.setLedgerDir(ledgerDir.trim());
+        }
+        String hostId = settings.get("hostId");
+        if (hostId != null && !hostId.isBlank()) {
+            config.setHostId(hostId.trim());
+        }
+        String stockShare = settings.get("stockShare");
+        if (stockShare != null && !stockShare.isBlank()) {
+            String[] parts = stockShare.trim().split("/");
+            int share = parts.length == 2 ? Integer.parseInt(parts[0].trim()) : -1;
+            int shares = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : 0;
+            if (shares <= 0 || share < 0 || share >= shares) {
+                throw new IllegalArgumentException("stockShare must be <share>/<shares> with share between 0 and shares - 1, got "
+                        + stockShare);
+            }
+            config.setStockShare(share, shares);
+        }
+        if (settings.containsKey("catalogStorage")) {
+            config.setCatalogStorage(parseEnum(CatalogStorage.class, settings.get("catalogStorage")));
+        }
+        if (settings.containsKey("activityCompletion")) {
+            config.setActivityCompletion(parseEnum(ActivityCompletion.class, settings.get("activityCompletion")));
+        }
+        String metricsPort = settings.get("metricsPort");
+        if (metricsPort != null && !metricsPort.isBlank()) {
+            int port = Integer.parseInt(metricsPort.trim());
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("metricsPort must be between 0 and 65535, got " + port);
+            }
+            config.setMetricsPort(port);
+        }
+        return config;
+    }
+
+    /**
+     * Print the command line usage, including every setting.
+     */
+    public static void printHelp() {
+        new HelpFormatter().printHelp("OrderFulfillWorker", createOptions());
+    }
+
+    /**
+     * Build the worker factory options for this configuration.
+     */
+    public WorkerFactoryOptions toWorkerFactoryOptions() {
+        WorkerFactoryOptions.Builder builder = WorkerFactoryOptions.newBuilder();
+        if (workflowCacheSize != null) {
+            builder.setWorkflowCacheSize(workflowCacheSize);
+        }
+        if (maxWorkflowThreads != null) {
+            builder.setMaxWorkflowThreadCount(maxWorkflowThreads);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build the worker options for this configuration.
+     */
+    public WorkerOptions toWorkerOptions() {
+        WorkerOptions.Builder builder = WorkerOptions.newBuilder();
+
+        Integer activities = maxConcurrentActivities;
+        Integer localActivities = maxConcurrentLocalActivities;
+        Integer pollers = activityPollers;
+        if (threadMode == ThreadMode.VIRTUAL) {
+            builder.setUsingVirtualThreadsOnActivityWorker(true)
+                    .setUsingVirtualThreadsOnLocalActivityWorker(true);
+            activities = activities != null ? activities : VIRTUAL_MAX_CONCURRENT_ACTIVITIES;
+            localActivities = localActivities != null ? localActivities : VIRTUAL_MAX_CONCURRENT_ACTIVITIES;
+            pollers = pollers != null ? pollers : VIRTUAL_ACTIVITY_POLLERS;
+        }
+
+        if (tuner == Tuner.RESOURCE) {
+            // A tuner replaces fixed slot counts, so the configured counts become its upper bounds
+            builder.setWorkerTuner(ResourceBasedTuner.newBuilder()
+                    .setControllerOptions(ResourceBasedControllerOptions
+                            .newBuilder(targetMemoryUsage, targetCpuUsage)
+                            .build())
+                    .setWorkflowSlotOptions(slotOptions(
+                            ResourceBasedTuner.DEFAULT_WORKFLOW_SLOT_OPTIONS, maxConcurrentWorkflowTasks))
+                    .setActivitySlotOptions(slotOptions(
+                            ResourceBasedTuner.DEFAULT_ACTIVITY_SLOT_OPTIONS, activities))
+                    .setLocalActivitySlotOptions(slotOptions(
+                            ResourceBasedTuner.DEFAULT_ACTIVITY_SLOT_OPTIONS, localActivities))
+                    .build());
+        } else {
+            if (activities != null) {
+                builder.setMaxConcurrentActivityExecutionSize(activities);
+            }
+            if (localActivities != null) {
+                builder.setMaxConcurrentLocalActivityExecutionSize(localActivities);
+            }
+            if (maxConcurrentWorkflowTasks != null) {
+                builder.setMaxConcurrentWorkflowTaskExecutionSize(maxConcurrentWorkflowTasks);
+            }
+        }
+
+        if (pollers != null) {
+            builder.setMaxConcurrentActivityTaskPollers(pollers);
+        }
+        if (workflowPollers != null) {
+            builder.setMaxConcurrentWorkflowTaskPollers(workflowPollers);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create the order store for this configuration: a shared directory if one is set,
+     * otherwise the worker's memory, which only works with a single worker process.
+     */
+    public OrderStore toOrderStore() throws IOException {
+        if (orderStoreDir != null) {
+            return new FileOrderStore(Paths.get(orderStoreDir));
+        }
+        return new InMemoryOrderStore();
+    }
+
+    /**
+     * Get the id of this worker's inventory host queue. Workflows send a shard's release to the
+     * host that made the reservation, so a restarted host must come back with the same id to
+     * release the reservations its ledger restored. A configured {@code hostId} is used as is.
+     * Otherwise the id is generated once and kept in {@code ledgerDir}, next to the reservations
+     * it belongs to. Without a ledger the reservations don't survive a restart either, so the id
+     * is this process's pid and host name.
+     */
+    public String toHostId() throws IOException {
+        if (hostId != null) {
+            return hostId;
+        }
+        if (ledgerDir == null) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+        Path hostIdFile = Files.createDirectories(Paths.get(ledgerDir)).resolve(HOST_ID_FILE);
+        if (!Files.exists(hostIdFile)) {
+            Files.writeString(hostIdFile, UUID.randomUUID().toString());
+        }
+        return Files.readString(hostIdFile).trim();
+    }
+
+    /**
+     * Build the approval policy shared by the workflow and activity implementations.
+     */
+    public ApprovalPolicy toApprovalPolicy() {
+        return new ApprovalPolicy(approvalMode, approvalThreshold, approvalTimeout);
+    }
+
+    /**
+     * Build the rules engine for the approval and payment activities: the rules file if one is set,
+     * watched for changes, otherwise the approval threshold and the expired test card.
+     */
+    public RuleEngine toRuleEngine() throws IOException {
+        if (rulesFile != null) {
+            return RuleEngine.open(Paths.get(rulesFile));
+        }
+        return RuleEngine.of(RuleSet.defaults(approvalThreshold));
+    }
+
+    /**
+     * Build the router shared by the workflows and the inventory activities.
+     */
+    public ShardRouter toShardRouter(String baseQueue) {
+        return new ShardRouter(baseQueue, shards, inventoryMode == InventoryMode.DEDICATED);
+    }
+
+    /**
+     * Get the shards this worker polls: the configured ones, or all of them.
+     */
+    public SortedSet<Integer> getPolledShards() {
+        if (workerShards != null) {
+            return workerShards;
+        }
+        SortedSet<Integer> all = new TreeSet<>();
+        for (int shard = 0; shard < shards; shard++) {
+            all.add(shard);
+        }
+        return all;
+    }
+
+    private static ResourceBasedSlotOptions slotOptions(ResourceBasedSlotOptions defaults, Integer maximumSlots) {
+        if (maximumSlots == null) {
+            return defaults;
+        }
+        return ResourceBasedSlotOptions.newBuilder()
+                .setMinimumSlots(Math.min(defaults.getMinimumSlots(), maximumSlots))
+                .setMaximumSlots(maximumSlots)
+                .setRampThrottle(defaults.getRampThrottle())
+                .build();
+    }
+
+    private static Options createOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder()
+                .longOpt("config")
+                .hasArg()
+                .desc("Worker properties file (default: worker.properties on the classpath)")
+                .build());
+        for (Map.Entry<String, String> setting : SETTINGS.entrySet()) {
+            options.addOption(Option.builder()
+                    .longOpt(setting.getKey())
+                    .hasArg()
+                    .desc(setting.getValue() + " [" + toEnvironmentVariable(setting.getKey()) + "]")
+                    .build());
+        }
+        options.addOption(Option.builder("h")
+                .longOpt("help")
+                .desc("Display this help message")
+                .build());
+        return options;
+    }
+
+    /**
+     * Read {@code worker.}-prefixed settings from the given file, or from {@code worker.properties}
+     * on the classpath when no file is given.
+     */
+    private static Map<String, String> readProperties(String path) throws IOException {
+        Properties properties = new Properties();
+        if (path != null) {
+            try (InputStream inputStream = Files.newInputStream(Paths.get(path))) {
+                properties.load(inputStream);
+            }
+        } else {
+            try (InputStream inputStream = WorkerConfig.class.getClassLoader()
+                    .getResourceAsStream("worker.properties")) {
+                if (inputStream != null) {
+                    properties.load(inputStream);
+                }
+            }
+        }
+
+        Map<String, String> settings = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("worker.")) {
+                settings.put(key.substring("worker.".length()), properties.getProperty(key).trim());
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Map a setting name to its environment variable, e.g. activityPollers to WORKER_ACTIVITY_POLLERS.
+     */
+    static String toEnvironmentVariable(String name) {
+        return "WORKER_" + name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static Integer parsePositive(Map<String, String> settings, String name) {
+        String value = settings.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int parsed = Integer.parseInt(value.trim());
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(name + " must be positive, got " + parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parse a list of shards and shard ranges such as {@code 0-3,6}.
+     */
+    static SortedSet<Integer> parseShards(String value, int shards) {
+        SortedSet<Integer> parsed = new TreeSet<>();
+        for (String part : value.split(",")) {
+            String[] bounds = part.trim().split("-");
+            int from = Integer.parseInt(bounds[0].trim());
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+            if (bounds.length > 2 || from < 0 || to < from || to >= shards) {
+                throw new IllegalArgumentException("workerShards must list shards between 0 and " + (shards - 1)
+                        + ", got " + value);
+            }
+            for (int shard = from; shard <= to; shard++) {
+                parsed.add(shard);
+            }
+        }
+        return parsed;
+    }
+
+    private static double parseFraction(Map<String, String> settings, String name) {
+        double parsed = Double.parseDouble(settings.get(name).trim());
+        if (parsed <= 0 || parsed > 1) {
+            throw new IllegalArgumentException(name + " must be in (0, 1], got " + parsed);
+        }
+        return parsed;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public void setThreadMode(ThreadMode threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    public Integer getMaxConcurrentActivities() {
+        return maxConcurrentActivities;
+    }
+
+    public void setMaxConcurrentActivities(Integer maxConcurrentActivities) {
+        this.maxConcurrentActivities = maxConcurrentActivities;
+    }
+
+    public Integer getMaxConcurrentLocalActivities() {
+        return maxConcurrentLocalActivities;
+    }
+
+    public void setMaxConcurrentLocalActivities(Integer maxConcurrentLocalActivities) {
+        this.maxConcurrentLocalActivities = maxConcurrentLocalActivities;
+    }
+
+    public Integer getMaxConcurrentWorkflowTasks() {
+        return maxConcurrentWorkflowTasks;
+    }
+
+    public void setMaxConcurrentWorkflowTasks(Integer maxConcurrentWorkflowTasks) {
+        this.maxConcurrentWorkflowTasks = maxConcurrentWorkflowTasks;
+    }
+
+    public Integer getActivityPollers() {
+        return activityPollers;
+    }
+
+    public void setActivityPollers(Integer activityPollers) {
+        this.activityPollers = activityPollers;
+    }
+
+    public Integer getWorkflowPollers() {
+        return workflowPollers;
+    }
+
+    public void setWorkflowPollers(Integer workflowPollers) {
+        this.workflowPollers = workflowPollers;
+    }
+
+    public Integer getWorkflowCacheSize() {
+        return workflowCacheSize;
+    }
+
+    public void setWorkflowCacheSize(Integer workflowCacheSize) {
+        this.workflowCacheSize = workflowCacheSize;
+    }
+
+    public Integer getMaxWorkflowThreads() {
+        return maxWorkflowThreads;
+    }
+
+    public void setMaxWorkflowThreads(Integer maxWorkflowThreads) {
+        this.maxWorkflowThreads = maxWorkflowThreads;
+    }
+
+    public Tuner getTuner() {
+        return tuner;
+    }
+
+    public void setTuner(Tuner tuner) {
+        this.tuner = tuner;
+    }
+
+    public double getTargetMemoryUsage() {
+        return targetMemoryUsage;
+    }
+
+    public void setTargetMemoryUsage(double targetMemoryUsage) {
+        this.targetMemoryUsage = targetMemoryUsage;
+    }
+
+    public double getTargetCpuUsage() {
+        return targetCpuUsage;
+    }
+
+    public void setTargetCpuUsage(double targetCpuUsage) {
+        this.targetCpuUsage = targetCpuUsage;
+    }
+
+    public String getOrderStoreDir() {
+        return orderStoreDir;
+    }
+
+    public void setOrderStoreDir(String orderStoreDir) {
+        this.orderStoreDir = orderStoreDir;
+    }
+
+    public ApprovalPolicy.Mode getApprovalMode() {
+        return approvalMode;
+    }
+
+    public void setApprovalMode(ApprovalPolicy.Mode approvalMode) {
+        this.approvalMode = approvalMode;
+    }
+
+    public double getApprovalThreshold() {
+        return approvalThreshold;
+    }
+
+    public void setApprovalThreshold(double approvalThreshold) {
+        this.approvalThreshold = approvalThreshold;
+    }
+
+    public Duration getApprovalTimeout() {
+        return approvalTimeout;
+    }
+
+    public void setApprovalTimeout(Duration approvalTimeout) {
+        this.approvalTimeout = approvalTimeout;
+    }
+
+    /**
+     * File of approval and payment rules, or {@code null} to use the approval threshold.
+     */
+    public String getRulesFile() {
+        return rulesFile;
+    }
+
+    public void setRulesFile(String rulesFile) {
+        this.rulesFile = rulesFile;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public SortedSet<Integer> getWorkerShards() {
+        return workerShards;
+    }
+
+    public void setWorkerShards(SortedSet<Integer> workerShards) {
+        this.workerShards = workerShards;
+    }
+
+    public InventoryMode getInventoryMode() {
+        return inventoryMode;
+    }
+
+    public void setInventoryMode(InventoryMode inventoryMode) {
+        this.inventoryMode = inventoryMode;
+    }
+
+    /**
+     * Directory of the inventory ledger, or {@code null} to keep reservations in memory only.
+     */
+    public String getLedgerDir() {
+        return ledgerDir;
+    }
+
+    public void setLedgerDir(String ledgerDir) {
+        this.ledgerDir = ledgerDir;
+    }
+
+    /**
+     * Configured inventory host id, or {@code null} to use the one kept in the ledger directory.
+     */
+    public String getHostId() {
+        return hostId;
+    }
+
+    public void setHostId(String hostId) {
+        this.hostId = hostId;
+    }
+
+    /**
+     * Which of {@link #getStockShares} equal shares of each SKU's stock this host reserves from.
+     */
+    public int getStockShare() {
+        return stockShare;
+    }
+
+    public int getStockShares() {
+        return stockShares;
+    }
+
+    public void setStockShare(int stockShare, int stockShares) {
+        this.stockShare = stockShare;
+        this.stockShares = stockShares;
+    }
+
+    public CatalogStorage getCatalogStorage() {
+        return catalogStorage;
+    }
+
+    public void setCatalogStorage(CatalogStorage catalogStorage) {
+        this.catalogStorage = catalogStorage;
+    }
+
+    public ActivityCompletion getActivityCompletion() {
+        return activityCompletion;
+    }
+
+    public void setActivityCompletion(ActivityCompletion activityCompletion) {
+        this.activityCompletion = activityCompletion;
+    }
+
+    /**
+     * Port of an order worker's Prometheus scrape endpoint, or 0 when metrics are disabled.
+     */
+    public int getMetricsPort() {
+        return metricsPort != null ? metricsPort : DEFAULT_METRICS_PORT;
+    }
+
+    /**
+     * Port of an inventory worker's Prometheus scrape endpoint, or 0 when metrics are disabled.
+     * A configured port applies to both kinds of worker.
+     */
+    public int getInventoryMetricsPort() {
+        return metricsPort != null ? metricsPort : DEFAULT_INVENTORY_METRICS_PORT;
+    }
+
+    public void setMetricsPort(Integer metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerConfig{" +
+                "threadMode=" + threadMode +
+                ", maxConcurrentActivities=" + maxConcurrentActivities +
+                ", maxConcurrentLocalActivities=" + maxConcurrentLocalActivities +
+                ", maxConcurrentWorkflowTasks=" + maxConcurrentWorkflowTasks +
+                ", activityPollers=" + activityPollers +
+                ", workflowPollers=" + workflowPollers +
+                ", workflowCacheSize=" + workflowCacheSize +
+                ", maxWorkflowThreads=" + maxWorkflowThreads +
+                ", tuner=" + tuner +
+                ", targetMemoryUsage=" + targetMemoryUsage +
+                ", targetCpuUsage=" + targetCpuUsage +
+                ", orderStoreDir=" + orderStoreDir +
+                ", approvalMode=" + approvalMode +
+                ", approvalThreshold=" + approvalThreshold +
+                ", approvalTimeout=" + approvalTimeout +
+                ", rulesFile=" + rulesFile +
+                ", shards=" + shards +
+                ", workerShards=" + workerShards +
+                ", inventoryMode=" + inventoryMode +
+                ", ledgerDir=" + ledgerDir +
+                ", hostId=" + hostId +
+                ", stockShare=" + stockShare + "/" + stockShares +
+                ", catalogStorage=" + catalogStorage +
+                ", activityCompletion=" + activityCompletion +
+                ", metricsPort=" + metricsPort +
+                '}';
+    }
+}
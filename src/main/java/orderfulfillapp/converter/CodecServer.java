@@ -0,0 +1,195 @@
+package orderfulfillapp.converter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.util.JsonFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.payload.codec.PayloadCodec;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec server for the order payloads, so the Temporal Web UI and CLI can show them.
+ * It implements the remote codec protocol: {@code POST /decode} and {@code POST /encode}
+ * take and return {@code {"payloads": [...]}}. Decoding inflates compressed payloads and
+ * also renders binary order payloads as JSON, which is what a human wants to read.
+ *
+ * With {@code --decode <file>} it instead decodes every payload in a workflow history
+ * exported as JSON (for example with {@code temporal workflow show --output json}) and
+ * prints the result, without starting a server.
+ */
+public class CodecServer {
+    private static final Logger logger = LoggerFactory.getLogger(CodecServer.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ByteString BINARY_ORDER_ENCODING = ByteString.copyFromUtf8(OrderBinaryPayloadConverter.ENCODING_TYPE);
+
+    private final PayloadCodec codec;
+    private final OrderBinaryPayloadConverter binaryConverter = new OrderBinaryPayloadConverter();
+    private final JacksonJsonPayloadConverter jsonConverter = new JacksonJsonPayloadConverter();
+
+    public CodecServer(PayloadCodec codec) {
+        this.codec = codec;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.addOption(Option.builder("p")
+                .longOpt("port")
+                .hasArg()
+                .desc("Port to listen on (default: 8888)")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("origin")
+                .hasArg()
+                .desc("Web UI origin allowed to call the server (default: http://localhost:8233)")
+                .build());
+        options.addOption(Option.builder("d")
+                .longOpt("decode")
+                .hasArg()
+                .desc("Decode the payloads of a workflow history JSON file and print it")
+                .build());
+        options.addOption(Option.builder("h")
+                .longOpt("help")
+                .desc("Show this help message")
+                .build());
+
+        CommandLine cmd;
+        try {
+            cmd = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            logger.error("Error parsing command line arguments: {}", e.getMessage());
+            new HelpFormatter().printHelp("CodecServer", options);
+            System.exit(1);
+            return;
+        }
+        if (cmd.hasOption("h")) {
+            new HelpFormatter().printHelp("CodecServer", options);
+            return;
+        }
+
+        // Decoding only needs the codec itself, the threshold just has to be valid
+        CodecServer server = new CodecServer(new CompressionPayloadCodec(OrderDataConverter.DEFAULT_COMPRESSION_THRESHOLD));
+        if (cmd.hasOption("d")) {
+            JsonNode history = objectMapper.readTree(new File(cmd.getOptionValue("d")));
+            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(server.decodeHistory(history)));
+            return;
+        }
+
+        int port = Integer.parseInt(cmd.getOptionValue("p", "8888"));
+        server.start(port, cmd.getOptionValue("origin", "http://localhost:8233"));
+    }
+
+    /**
+     * Start serving {@code /encode} and {@code /decode} on the given port.
+     */
+    public HttpServer start(int port, String allowedOrigin) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/decode", exchange -> handle(exchange, allowedOrigin, true));
+        server.createContext("/encode", exchange -> handle(exchange, allowedOrigin, false));
+        server.start();
+        logger.info("Codec server listening on port {}, allowing origin {}", port, allowedOrigin);
+        return server;
+    }
+
+    /**
+     * Decode compressed payloads and render binary order payloads as JSON.
+     */
+    public List<Payload> decode(List<Payload> payloads) {
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : codec.decode(payloads)) {
+            if (BINARY_ORDER_ENCODING.equals(payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null))) {
+                Object value = binaryConverter.fromData(payload, Object.class, Object.class);
+                payload = jsonConverter.toData(value).orElse(payload);
+            }
+            decoded.add(payload);
+        }
+        return decoded;
+    }
+
+    /**
+     * Decode every payload found in a history exported as JSON, in place.
+     * Any object with {@code metadata} and {@code data} fields is treated as a payload.
+     */
+    public JsonNode decodeHistory(JsonNode node) throws IOException {
+        if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            if (object.has("metadata") && object.has("data")) {
+                Payload.Builder payload = Payload.newBuilder();
+                JsonFormat.parser().ignoringUnknownFields().merge(object.toString(), payload);
+                Payload decoded = decode(List.of(payload.build())).get(0);
+                object.removeAll();
+                object.setAll((ObjectNode) objectMapper.readTree(JsonFormat.printer().print(decoded)));
+                return object;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                decodeHistory(fields.next().getValue());
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                decodeHistory(element);
+            }
+        }
+        return node;
+    }
+
+    private void handle(HttpExchange exchange, String allowedOrigin, boolean decode) throws IOException {
+        try {
+            exchange.getResponseHeaders().add("Access-Control-Allow-Origin", allowedOrigin);
+            exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "POST, OPTIONS");
+            exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, X-Namespace");
+            exchange.getResponseHeaders().add("Access-Control-Allow-Credentials", "true");
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Payloads.Builder request = Payloads.newBuilder();
+            try (InputStream body = exchange.getRequestBody()) {
+                JsonFormat.parser().ignoringUnknownFields().merge(new String(body.readAllBytes(), StandardCharsets.UTF_8), request);
+            }
+            List<Payload> result = decode ? decode(request.getPayloadsList()) : codec.encode(request.getPayloadsList());
+
+            byte[] response = JsonFormat.printer().print(Payloads.newBuilder().addAllPayloads(result).build())
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Failed to {} payloads: {}", decode ? "decode" : "encode", e.getMessage());
+            exchange.sendResponseHeaders(400, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
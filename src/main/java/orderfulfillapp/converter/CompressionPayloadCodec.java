@@ -0,0 +1,133 @@
+package orderfulfillapp.converter;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Payload codec that deflates payloads at or above a size threshold.
+ * Large B2B orders are repeated in the history for every activity scheduled with them, and
+ * their item names compress well. Small payloads are passed through untouched, since
+ * compressing them costs CPU and saves next to nothing.
+ *
+ * A compressed payload holds the whole original payload, metadata included, and is marked
+ * with the {@value #ENCODING_TYPE} encoding, so decoding restores it exactly and payloads
+ * written before compression was enabled pass through unchanged.
+ */
+public class CompressionPayloadCodec implements PayloadCodec {
+    public static final String ENCODING_TYPE = "binary/deflate";
+
+    private static final ByteString ENCODING = ByteString.copyFromUtf8(ENCODING_TYPE);
+
+    private final int threshold;
+    private final int level;
+
+    /**
+     * @param threshold minimum serialized payload size in bytes to compress
+     * @param level deflate level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     */
+    public CompressionPayloadCodec(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public CompressionPayloadCodec(int threshold) {
+        this(threshold, Deflater.BEST_SPEED);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        List<Payload> encoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            encoded.add(encode(payload));
+        }
+        return encoded;
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            decoded.add(decode(payload));
+        }
+        return decoded;
+    }
+
+    private Payload encode(Payload payload) {
+        int size = payload.getSerializedSize();
+        if (size < threshold) {
+            return payload;
+        }
+
+        byte[] compressed = deflate(payload.toByteArray());
+        if (compressed.length >= size) {
+            // Not compressible, keep the original
+            return payload;
+        }
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING)
+                .setData(UnsafeByteOperations.unsafeWrap(compressed))
+                .build();
+    }
+
+    private static Payload decode(Payload payload) {
+        if (!ENCODING.equals(payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null))) {
+            return payload;
+        }
+        try {
+            return Payload.parseFrom(inflate(payload.getData()));
+        } catch (InvalidProtocolBufferException | DataFormatException e) {
+            throw new DataConverterException("Failed to decompress payload", e);
+        }
+    }
+
+    private byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 64);
+            byte[] buffer = new byte[Math.min(input.length + 64, 64 * 1024)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteString input) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input.asReadOnlyByteBuffer());
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.size() * 4);
+            byte[] buffer = new byte[Math.min(input.size() * 4 + 64, 64 * 1024)];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed payload");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package orderfulfillapp.converter;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderBatch;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.OrderResult;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.model.StockItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compact binary payload converter for the {@code orderfulfillapp.model} classes.
+ * Orders and their parts are written field by field without names, with variable-length
+ * integers and length-prefixed UTF-8 strings, which makes payloads several times smaller
+ * than JSON and cheaper to encode and decode. Non-empty lists of one model type are
+ * supported as well, so batched activity arguments and results get the same encoding.
+ *
+ * Every payload starts with a schema version and a type tag. Values this converter does
+ * not know are left to the next converter in the chain, which in
+ * {@link #newDataConverter()} is the standard JSON converter, and payloads written by
+ * other converters are still decoded by them, so histories recorded with JSON replay as before.
+ */
+public class OrderBinaryPayloadConverter implements PayloadConverter {
+    public static final String ENCODING_TYPE = "binary/orderfulfill";
+
+    /**
+     * Current schema version. Bump it when the layout of a type changes, and keep reading
+     * older versions for as long as workflows recorded with them may be replayed.
+     */
+    static final int SCHEMA_VERSION = 4;
+
+    // Version 2 added the order id
+    private static final int ORDER_ID_VERSION = 2;
+
+    // Version 3 replaced the orders and results of a batch with store references and counts
+    private static final int BATCH_BY_REFERENCE_VERSION = 3;
+
+    // Version 4 added the indexes of a batch's failed and held orders
+    private static final int BATCH_OUTCOMES_VERSION = 4;
+
+    private static final ByteString ENCODING = ByteString.copyFromUtf8(ENCODING_TYPE);
+
+    private static final int TAG_ORDER = 1;
+    private static final int TAG_ORDER_ITEM = 2;
+    private static final int TAG_PAYMENT = 3;
+    private static final int TAG_CREDIT_CARD = 4;
+    private static final int TAG_ORDER_RESULT = 5;
+    private static final int TAG_ORDER_BATCH = 6;
+    private static final int TAG_STOCK_ITEM = 7;
+    private static final int TAG_LIST = 8;
+
+    /**
+     * Create a data converter with the standard converters and this one placed right before
+     * the JSON converter, so model objects are written in binary and everything else as before.
+     */
+    public static DataConverter newDataConverter() {
+        List<PayloadConverter> converters = new ArrayList<>(Arrays.asList(DefaultDataConverter.STANDARD_PAYLOAD_CONVERTERS));
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof JacksonJsonPayloadConverter)) {
+            json++;
+        }
+        converters.add(json, new OrderBinaryPayloadConverter());
+        return new DefaultDataConverter(converters.toArray(new PayloadConverter[0]));
+    }
+
+    @Override
+    public String getEncodingType() {
+        return ENCODING_TYPE;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) throws DataConverterException {
+        int tag = tagOf(value);
+        if (tag == 0) {
+            return Optional.empty();
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(SCHEMA_VERSION);
+            out.writeByte(tag);
+            write(out, tag, value);
+            out.flush();
+            return Optional.of(Payload.newBuilder()
+                    .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING)
+                    .setData(UnsafeByteOperations.unsafeWrap(bytes.toByteArray()))
+                    .build());
+        } catch (IOException e) {
+            throw new DataConverterException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) throws DataConverterException {
+        try (DataInputStream in = new DataInputStream(content.getData().newInput())) {
+            int version = in.readUnsignedByte();
+            if (version > SCHEMA_VERSION) {
+                throw new DataConverterException("Unsupported order payload schema version " + version
+                        + ", this build reads up to " + SCHEMA_VERSION, content, new Type[] {valueType});
+            }
+            Object value = read(in, version, in.readUnsignedByte());
+            if (!valueClass.isInstance(value)) {
+                throw new DataConverterException("Order payload holds " + value.getClass().getSimpleName()
+                        + " and cannot be read as " + valueClass.getName(), content, new Type[] {valueType});
+            }
+            return valueClass.cast(value);
+        } catch (IOException e) {
+            throw new DataConverterException(content, new Type[] {valueType}, e);
+        }
+    }
+
+    /**
+     * Get the type tag for a value, or 0 if this converter does not handle it.
+     */
+    private static int tagOf(Object value) {
+        if (value instanceof Order) {
+            return TAG_ORDER;
+        } else if (value instanceof OrderItem) {
+            return TAG_ORDER_ITEM;
+        } else if (value instanceof Payment) {
+            return TAG_PAYMENT;
+        } else if (value instanceof CreditCard) {
+            return TAG_CREDIT_CARD;
+        } else if (value instanceof OrderResult) {
+            return TAG_ORDER_RESULT;
+        } else if (value instanceof OrderBatch) {
+            return TAG_ORDER_BATCH;
+        } else if (value instanceof StockItem) {
+            return TAG_STOCK_ITEM;
+        } else if (value instanceof List) {
+            // Only non-empty lists of a single model type; an empty list has no element type to record
+            List<?> list = (List<?>) value;
+            if (list.isEmpty() || list.get(0) == null || list.get(0) instanceof List || tagOf(list.get(0)) == 0) {
+                return 0;
+            }
+            Class<?> elementClass = list.get(0).getClass();
+            for (Object element : list) {
+                if (element == null || element.getClass() != elementClass) {
+                    return 0;
+                }
+            }
+            return TAG_LIST;
+        }
+        return 0;
+    }
+
+    private static void write(DataOutputStream out, int tag, Object value) throws IOException {
+        switch (tag) {
+            case TAG_ORDER:
+                writeOrder(out, (Order) value);
+                break;
+            case TAG_ORDER_ITEM:
+                writeOrderItem(out, (OrderItem) value);
+                break;
+            case TAG_PAYMENT:
+                writePayment(out, (Payment) value);
+                break;
+            case TAG_CREDIT_CARD:
+                writeCreditCard(out, (CreditCard) value);
+                break;
+            case TAG_ORDER_RESULT:
+                writeOrderResult(out, (OrderResult) value);
+                break;
+            case TAG_ORDER_BATCH:
+                writeOrderBatch(out, (OrderBatch) value);
+                break;
+            case TAG_STOCK_ITEM:
+                writeStockItem(out, (StockItem) value);
+                break;
+            case TAG_LIST:
+                List<?> list = (List<?>) value;
+                int elementTag = tagOf(list.get(0));
+                out.writeByte(elementTag);
+                writeVarInt(out, list.size());
+                for (Object element : list) {
+                    write(out, elementTag, element);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown order payload type tag " + tag);
+        }
+    }
+
+    private static Object read(DataInputStream in, int version, int tag) throws IOException {
+        switch (tag) {
+            case TAG_ORDER:
+                return readOrder(in, version);
+            case TAG_ORDER_ITEM:
+                return readOrderItem(in);
+            case TAG_PAYMENT:
+                return readPayment(in);
+            case TAG_CREDIT_CARD:
+                return readCreditCard(in);
+            case TAG_ORDER_RESULT:
+                return readOrderResult(in);
+            case TAG_ORDER_BATCH:
+                return readOrderBatch(in, version);
+            case TAG_STOCK_ITEM:
+                return readStockItem(in);
+            case TAG_LIST:
+                int elementTag = in.readUnsignedByte();
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in, version, elementTag));
+                }
+                return list;
+            default:
+                throw new IOException("Unknown order payload type tag " + tag);
+        }
+    }
+
+    private static void writeOrder(DataOutputStream out, Order order) throws IOException {
+        writeString(out, order.getOrderId());
+        writeList(out, order.getItems(), TAG_ORDER_ITEM);
+        out.writeBoolean(order.getPayment() != null);
+        if (order.getPayment() != null) {
+            writePayment(out, order.getPayment());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Order readOrder(DataInputStream in, int version) throws IOException {
+        String orderId = version >= ORDER_ID_VERSION ? readString(in) : null;
+        List<OrderItem> items = (List<OrderItem>) readList(in, version, TAG_ORDER_ITEM);
+        Payment payment = in.readBoolean() ? readPayment(in) : null;
+        return new Order(orderId, items, payment);
+    }
+
+    private static void writeOrderItem(DataOutputStream out, OrderItem item) throws IOException {
+        writeString(out, item.getItemName());
+        out.writeDouble(item.getItemPrice());
+        writeVarInt(out, item.getQuantity());
+    }
+
+    private static OrderItem readOrderItem(DataInputStream in) throws IOException {
+        return new OrderItem(readString(in), in.readDouble(), readVarInt(in));
+    }
+
+    private static void writePayment(DataOutputStream out, Payment payment) throws IOException {
+        out.writeBoolean(payment.getCreditCard() != null);
+        if (payment.getCreditCard() != null) {
+            writeCreditCard(out, payment.getCreditCard());
+        }
+    }
+
+    private static Payment readPayment(DataInputStream in) throws IOException {
+        return new Payment(in.readBoolean() ? readCreditCard(in) : null);
+    }
+
+    private static void writeCreditCard(DataOutputStream out, CreditCard creditCard) throws IOException {
+        writeString(out, creditCard.getNumber());
+        writeString(out, creditCard.getExpiration());
+    }
+
+    private static CreditCard readCreditCard(DataInputStream in) throws IOException {
+        return new CreditCard(readString(in), readString(in));
+    }
+
+    private static void writeOrderResult(DataOutputStream out, OrderResult result) throws IOException {
+        writeVarInt(out, result.getOrderIndex());
+        out.writeBoolean(result.isSuccess());
+        writeString(out, result.getMessage());
+    }
+
+    private static OrderResult readOrderResult(DataInputStream in) throws IOException {
+        return new OrderResult(readVarInt(in), in.readBoolean(), readString(in));
+    }
+
+    private static void writeOrderBatch(DataOutputStream out, OrderBatch batch) throws IOException {
+        writeString(out, batch.getBatchId());
+        writeVarInt(out, batch.getOrderCount());
+        writeVarInt(out, batch.getNextOrder());
+        writeVarInt(out, batch.getChunkSize());
+        writeVarInt(out, batch.getOrdersPerRun());
+        writeVarInt(out, batch.getSucceeded());
+        writeVarInt(out, batch.getFailed());
+        writeVarInt(out, batch.getHeldForApproval());
+        writeIndexes(out, batch.getFailedOrders());
+        writeIndexes(out, batch.getHeldOrders());
+    }
+
+    private static OrderBatch readOrderBatch(DataInputStream in, int version) throws IOException {
+        if (version < BATCH_BY_REFERENCE_VERSION) {
+            throw new IOException("Batches with inline orders (schema version " + version + ") are no longer supported");
+        }
+        OrderBatch batch = new OrderBatch(readString(in), readVarInt(in), 0, 0);
+        batch.setNextOrder(readVarInt(in));
+        batch.setChunkSize(readVarInt(in));
+        batch.setOrdersPerRun(readVarInt(in));
+        batch.setSucceeded(readVarInt(in));
+        batch.setFailed(readVarInt(in));
+        batch.setHeldForApproval(readVarInt(in));
+        // Batches recorded before version 4 only have counts
+        if (version >= BATCH_OUTCOMES_VERSION) {
+            batch.setFailedOrders(readIndexes(in));
+            batch.setHeldOrders(readIndexes(in));
+        }
+        return batch;
+    }
+
+    private static void writeIndexes(DataOutputStream out, List<Integer> indexes) throws IOException {
+        writeVarInt(out, indexes.size());
+        for (int index : indexes) {
+            writeVarInt(out, index);
+        }
+    }
+
+    private static List<Integer> readIndexes(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(readVarInt(in));
+        }
+        return indexes;
+    }
+
+    private static void writeStockItem(DataOutputStream out, StockItem item) throws IOException {
+        writeString(out, item.getItemName());
+        out.writeDouble(item.getItemPrice());
+        writeVarInt(out, item.getStock());
+    }
+
+    private static StockItem readStockItem(DataInputStream in) throws IOException {
+        return new StockItem(readString(in), in.readDouble(), readVarInt(in));
+    }
+
+    /**
+     * Write a nested list of one known type, with its size plus one so null can be told apart from empty.
+     */
+    private static void writeList(DataOutputStream out, List<?> list, int elementTag) throws IOException {
+        if (list == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, list.size() + 1);
+        for (Object element : list) {
+            write(out, elementTag, element);
+        }
+    }
+
+    private static List<?> readList(DataInputStream in, int version, int elementTag) throws IOException {
+        int size = readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(read(in, version, elementTag));
+        }
+        return list;
+    }
+
+    /**
+     * Write a string as its UTF-8 length plus one (0 for null) followed by the bytes.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write an int in 7-bit groups, so small non-negative values take a single byte.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer in order payload");
+    }
+}
@@ -0,0 +1,45 @@
+package orderfulfillapp.converter;
+
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+
+import java.util.Collections;
+
+/**
+ * Data converter shared by the order fulfillment clients and workers: model objects are
+ * encoded in binary, and payloads above the compression threshold are deflated.
+ * Clients and workers must agree on it, or they cannot read each other's payloads.
+ */
+public final class OrderDataConverter {
+    /**
+     * Environment variable with the compression threshold in bytes; a negative value disables compression.
+     */
+    public static final String COMPRESSION_THRESHOLD_ENV = "PAYLOAD_COMPRESSION_THRESHOLD";
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 2048;
+
+    private OrderDataConverter() {
+    }
+
+    /**
+     * Create the data converter with the compression threshold from the environment.
+     */
+    public static DataConverter newInstance() {
+        String threshold = System.getenv(COMPRESSION_THRESHOLD_ENV);
+        return newInstance(threshold == null || threshold.isBlank()
+                ? DEFAULT_COMPRESSION_THRESHOLD
+                : Integer.parseInt(threshold.trim()));
+    }
+
+    /**
+     * Create the data converter, compressing payloads of at least the given size in bytes,
+     * or none at all if the threshold is negative.
+     */
+    public static DataConverter newInstance(int compressionThreshold) {
+        DataConverter dataConverter = OrderBinaryPayloadConverter.newDataConverter();
+        if (compressionThreshold < 0) {
+            return dataConverter;
+        }
+        return new CodecDataConverter(dataConverter,
+                Collections.singletonList(new CompressionPayloadCodec(compressionThreshold)));
+    }
+}
@@ -1,10 +1,10 @@
 package orderfulfillapp.exception;
 
 /**
- * Exception thrown when a credit card is expired.
+ * Exception thrown when a credit card is expired, the payment decline rules check most often.
  * This exception is marked as non-retryable in the workflow configuration.
  */
-public class CreditCardExpiredException extends Exception {
+public class CreditCardExpiredException extends PaymentDeclinedException {
     
     public CreditCardExpiredException(String message) {
         super(message);
@@ -0,0 +1,16 @@
+package orderfulfillapp.exception;
+
+/**
+ * Exception thrown when an order asks for more units of an item than are in stock.
+ * This exception is marked as non-retryable in the workflow configuration.
+ */
+public class InsufficientStockException extends Exception {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+
+    public InsufficientStockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
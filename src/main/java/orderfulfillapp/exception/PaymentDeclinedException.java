@@ -0,0 +1,16 @@
+package orderfulfillapp.exception;
+
+/**
+ * Exception thrown when a payment rule declines an order's payment.
+ * This exception is marked as non-retryable in the workflow configuration.
+ */
+public class PaymentDeclinedException extends Exception {
+
+    public PaymentDeclinedException(String message) {
+        super(message);
+    }
+
+    public PaymentDeclinedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
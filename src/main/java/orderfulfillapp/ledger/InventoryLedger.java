@@ -0,0 +1,237 @@
+package orderfulfillapp.ledger;
+
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.OrderItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Event-sourced, persistent record of the reservations held by a {@link StockReservationEngine}.
+ * Stock itself still comes from the stock database; what survives a restart is the reservations,
+ * and with them the units they hold.
+ *
+ * Every reserve and release is appended to a {@link WriteAheadLog} and is durable by the time it
+ * returns, with concurrent writers sharing each {@code fsync}. Every {@code snapshotEvents} records
+ * a background thread rotates the log and writes a {@link LedgerSnapshot}, after which the older
+ * segments are deleted. On open, the latest snapshot is loaded and the segments after it are
+ * replayed through the engine.
+ *
+ * Snapshots are taken while reservations continue, so one may already include some of the records
+ * in the segments after it. That is harmless, since replaying a reserve or release that is already
+ * applied changes nothing. One ledger directory belongs to one engine, in one process.
+ */
+public class InventoryLedger implements StockReservationEngine.Journal, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+
+    public static final long DEFAULT_SNAPSHOT_EVENTS = 100_000;
+
+    private static final byte RESERVED = 1;
+    private static final byte RELEASED = 2;
+
+    private final Path directory;
+    private final StockReservationEngine engine;
+    private final WriteAheadLog wal;
+    private final long snapshotEvents;
+    private final AtomicLong eventsSinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor;
+    private long recoveredReservations;
+    private long replayedEvents;
+    private long recoveryMillis;
+
+    private InventoryLedger(Path directory, StockReservationEngine engine, boolean fsync, long snapshotEvents) throws IOException {
+        this.directory = directory;
+        this.engine = engine;
+        this.snapshotEvents = snapshotEvents;
+        recover();
+        this.wal = new WriteAheadLog(directory, fsync);
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        engine.setJournal(this);
+    }
+
+    /**
+     * Restore the engine's reservations from the ledger in the given directory, creating it if
+     * needed, and record every reserve and release from then on.
+     */
+    public static InventoryLedger open(Path directory, StockReservationEngine engine) throws IOException {
+        return open(directory, engine, true, DEFAULT_SNAPSHOT_EVENTS);
+    }
+
+    /**
+     * Like {@link #open(Path, StockReservationEngine)}, optionally without {@code fsync}, which only
+     * survives process crashes, and with the given number of records between snapshots.
+     */
+    public static InventoryLedger open(Path directory, StockReservationEngine engine, boolean fsync,
+                                       long snapshotEvents) throws IOException {
+        if (snapshotEvents <= 0) {
+            throw new IllegalArgumentException("Records between snapshots must be positive");
+        }
+        return new InventoryLedger(Files.createDirectories(directory), engine, fsync, snapshotEvents);
+    }
+
+    @Override
+    public void reserved(String reservationId, String[] itemNames, int[] quantities) throws IOException {
+        byte[] id = reservationId.getBytes(StandardCharsets.UTF_8);
+        byte[][] names = new byte[itemNames.length][];
+        int size = 1 + 2 + id.length + 2;
+        for (int i = 0; i < itemNames.length; i++) {
+            names[i] = itemNames[i].getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length + 4;
+        }
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(RESERVED).putShort((short) id.length).put(id).putShort((short) names.length);
+        for (int i = 0; i < names.length; i++) {
+            record.putShort((short) names[i].length).put(names[i]).putInt(quantities[i]);
+        }
+        write(record.array());
+    }
+
+    @Override
+    public void released(String reservationId) throws IOException {
+        byte[] id = reservationId.getBytes(StandardCharsets.UTF_8);
+        write(ByteBuffer.allocate(1 + 2 + id.length).put(RELEASED).putShort((short) id.length).put(id).array());
+    }
+
+    /**
+     * Rotate the log and snapshot the reservations held now, then delete what the snapshot replaces.
+     */
+    public void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long segment = wal.rotate();
+        eventsSinceSnapshot.set(0);
+        long size = LedgerSnapshot.write(directory, segment, engine);
+        wal.deleteSegmentsBefore(segment);
+        LedgerSnapshot.deleteBefore(directory, segment);
+        logger.info("Snapshot of {} reservations before segment {}: {} bytes in {}ms", engine.getReservationCount(),
+                segment, size, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public long getRecoveredReservations() {
+        return recoveredReservations;
+    }
+
+    public long getReplayedEvents() {
+        return replayedEvents;
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public WriteAheadLog getWriteAheadLog() {
+        return wal;
+    }
+
+    /**
+     * Stop recording and close the log. Records already written stay durable.
+     */
+    @Override
+    public void close() throws IOException {
+        engine.setJournal(null);
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    private void write(byte[] record) throws IOException {
+        wal.write(record);
+        if (eventsSinceSnapshot.incrementAndGet() >= snapshotEvents && snapshotting.compareAndSet(false, true)) {
+            snapshotExecutor.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Failed to snapshot inventory ledger in {}", directory, e);
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Load the latest snapshot, then replay the segments after it, before anything is recorded.
+     */
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        try (Stream<Path> files = Files.list(directory)) {
+            // Left behind by a crash while writing a snapshot
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().startsWith(".snapshot-")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        List<Long> snapshots = LedgerSnapshot.snapshots(directory);
+        long firstSegment = 0;
+        if (!snapshots.isEmpty()) {
+            firstSegment = snapshots.get(snapshots.size() - 1);
+            LedgerSnapshot.read(directory, firstSegment, this::restore);
+        }
+        for (long segment : WriteAheadLog.segments(directory)) {
+            if (segment >= firstSegment) {
+                replayedEvents += WriteAheadLog.read(directory, segment, this::replay);
+            }
+        }
+        recoveredReservations = engine.getReservationCount();
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!snapshots.isEmpty() || replayedEvents > 0) {
+            logger.info("Recovered {} reservations from {} in {}ms ({} records replayed)",
+                    recoveredReservations, directory, recoveryMillis, replayedEvents);
+        }
+    }
+
+    private void replay(ByteBuffer record) {
+        byte type = record.get();
+        String reservationId = LedgerSnapshot.readString(record);
+        if (type == RELEASED) {
+            engine.release(reservationId);
+            return;
+        }
+        int items = record.getShort() & 0xffff;
+        String[] itemNames = new String[items];
+        int[] quantities = new int[items];
+        for (int i = 0; i < items; i++) {
+            itemNames[i] = LedgerSnapshot.readString(record);
+            quantities[i] = record.getInt();
+        }
+        restore(reservationId, itemNames, quantities);
+    }
+
+    private void restore(String reservationId, String[] itemNames, int[] quantities) {
+        List<OrderItem> items = new ArrayList<>(itemNames.length);
+        for (int i = 0; i < itemNames.length; i++) {
+            items.add(new OrderItem(itemNames[i], 0, quantities[i]));
+        }
+        try {
+            engine.reserve(reservationId, items);
+        } catch (InsufficientStockException | RuntimeException e) {
+            // The stock database changed under the reservation, e.g. the item was delisted
+            logger.warn("Dropping recovered reservation {}: {}", reservationId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package orderfulfillapp.ledger;
+
+import orderfulfillapp.api.StockReservationEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary snapshot of the reservations held, in {@code snapshot-<segment>.bin}, where
+ * {@code segment} is the first write-ahead log segment whose records it does not include.
+ *
+ * Item names are stored once in a dictionary and reservations refer to them by index, so a
+ * snapshot is mostly reservation ids. Snapshots are written to a temporary file and renamed into
+ * place, and read through a memory mapping; a trailing CRC32C checksum covers the whole file.
+ */
+public final class LedgerSnapshot {
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final int MAGIC = 0x494e5653;
+    private static final int VERSION = 1;
+
+    private LedgerSnapshot() {
+    }
+
+    /**
+     * Write the engine's reservations as the snapshot for the given segment and return its size
+     * in bytes.
+     */
+    public static long write(Path directory, long segment, StockReservationEngine engine) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        int[] count = new int[1];
+        try {
+            engine.forEachReservation((reservationId, itemNames, quantities) -> {
+                try {
+                    writeString(body, reservationId);
+                    body.writeShort(itemNames.length);
+                    for (int i = 0; i < itemNames.length; i++) {
+                        Integer index = dictionary.get(itemNames[i]);
+                        if (index == null) {
+                            index = names.size();
+                            dictionary.put(itemNames[i], index);
+                            names.add(itemNames[i]);
+                        }
+                        body.writeInt(index);
+                        body.writeInt(quantities[i]);
+                    }
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(segment);
+        header.writeInt(names.size());
+        for (String name : names) {
+            writeString(header, name);
+        }
+        header.writeInt(count[0]);
+
+        int size = headerBytes.size() + bodyBytes.size() + Integer.BYTES;
+        Path temporary = Files.createTempFile(directory, ".snapshot-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                mapped.put(headerBytes.toByteArray()).put(bodyBytes.toByteArray());
+                CRC32C crc = new CRC32C();
+                crc.update(mapped.duplicate().flip());
+                mapped.putInt((int) crc.getValue());
+                mapped.force();
+            }
+            Files.move(temporary, path(directory, segment), StandardCopyOption.ATOMIC_MOVE);
+            WriteAheadLog.syncDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return size;
+    }
+
+    /**
+     * Read the snapshot for the given segment, passing every reservation to the visitor, and
+     * return the number of reservations.
+     */
+    public static int read(Path directory, long segment, StockReservationEngine.ReservationVisitor visitor) throws IOException {
+        Path file = path(directory, segment);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buffer.limit() < 24 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an inventory ledger snapshot: " + file);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, buffer.limit() - Integer.BYTES));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                throw new IOException("Corrupt inventory ledger snapshot: " + file);
+            }
+
+            buffer.position(16);
+            String[] names = new String[buffer.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = readString(buffer);
+            }
+            int count = buffer.getInt();
+            for (int r = 0; r < count; r++) {
+                String reservationId = readString(buffer);
+                int items = buffer.getShort() & 0xffff;
+                String[] itemNames = new String[items];
+                int[] quantities = new int[items];
+                for (int i = 0; i < items; i++) {
+                    itemNames[i] = names[buffer.getInt()];
+                    quantities[i] = buffer.getInt();
+                }
+                visitor.visit(reservationId, itemNames, quantities);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Segments of the snapshots in the directory, in order.
+     */
+    public static List<Long> snapshots(Path directory) throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    snapshots.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    /**
+     * Delete the snapshots older than the given segment's.
+     */
+    public static void deleteBefore(Path directory, long segment) throws IOException {
+        for (long older : snapshots(directory)) {
+            if (older < segment) {
+                Files.deleteIfExists(path(directory, older));
+            }
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Path path(Path directory, long segment) {
+        return directory.resolve(String.format("snapshot-%016d.bin", segment));
+    }
+}
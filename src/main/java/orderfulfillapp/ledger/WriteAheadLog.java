@@ -0,0 +1,323 @@
+package orderfulfillapp.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records in numbered segment files, {@code wal-<segment>.log}, with group commit.
+ *
+ * {@link #append} only copies a record into memory and returns its sequence number;
+ * {@link #awaitDurable} then waits until it is on disk. The first waiter writes out everything
+ * appended so far and forces it to disk in a single {@code fsync}, while records appended
+ * meanwhile wait for the next one. The more writers there are, the more records each
+ * {@code fsync} covers.
+ *
+ * Each record is framed by its length and a CRC32C checksum, so a record torn by a crash ends
+ * the segment when it is read back. A log that failed to write or force fails every later call,
+ * since what reached the disk is then unknown.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+    private static final int HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDone = lock.newCondition();
+
+    private FileChannel channel;
+    private long segment;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private long durable;
+    private boolean flushing;
+    private IOException failure;
+    private long flushes;
+
+    /**
+     * Open a new segment after the last one in the directory. Existing segments are never
+     * appended to, as their last record may be torn.
+     *
+     * @param fsync whether to force records to disk; without it they only reach the OS page
+     *        cache and survive a process crash but not a power loss
+     */
+    public WriteAheadLog(Path directory, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.fsync = fsync;
+        List<Long> segments = segments(directory);
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        this.channel = openSegment(segment);
+    }
+
+    /**
+     * Append a record and return its sequence number, to wait on with {@link #awaitDurable}.
+     */
+    public long append(byte[] record) throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            if (pending.remaining() < HEADER_SIZE + record.length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + HEADER_SIZE + record.length));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(record);
+            pending.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the record with the given sequence number is durable, writing it out if no
+     * other thread is already doing so.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                checkFailure();
+                if (flushing) {
+                    flushDone.await();
+                } else {
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the write-ahead log");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record and wait until it is durable.
+     */
+    public void write(byte[] record) throws IOException {
+        awaitDurable(append(record));
+    }
+
+    /**
+     * Make everything appended so far durable, close the current segment and start the next.
+     * Returns the number of the new segment: every record appended before the call is in an
+     * earlier one.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            long last = appended;
+            while (durable < last) {
+                checkFailure();
+                if (flushing) {
+                    flushDone.await();
+                } else {
+                    flush();
+                }
+            }
+            while (flushing) {
+                flushDone.await();
+            }
+            checkFailure();
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted rotating the write-ahead log");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments before the given one, once a snapshot has made them redundant.
+     */
+    public void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (long older : segments(directory)) {
+            if (older < firstKept) {
+                Files.deleteIfExists(segmentPath(directory, older));
+            }
+        }
+    }
+
+    public long getSegment() {
+        lock.lock();
+        try {
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of group commits so far; with many writers, far fewer than records.
+     */
+    public long getFlushes() {
+        lock.lock();
+        try {
+            return flushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppended() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (failure == null && durable < appended) {
+                awaitDurable(appended);
+            }
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write out and force everything appended so far. Called with the lock held, which it
+     * releases during the I/O so other threads can keep appending.
+     */
+    private void flush() throws IOException {
+        flushing = true;
+        ByteBuffer batch = pending;
+        long batchEnd = appended;
+        pending = spare;
+        FileChannel target = channel;
+        lock.unlock();
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                target.write(batch);
+            }
+            if (fsync) {
+                target.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            batch.clear();
+            spare = batch;
+            flushing = false;
+            if (error != null) {
+                failure = error;
+            } else {
+                durable = batchEnd;
+                flushes++;
+            }
+            flushDone.signalAll();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed earlier, records may be lost", failure);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel opened = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        if (fsync) {
+            syncDirectory(directory);
+        }
+        return opened;
+    }
+
+    /**
+     * Read every intact record of the given segment in order, stopping at the first torn or
+     * corrupt one. Returns the number of records read.
+     */
+    public static long read(Path directory, long segment, Consumer<ByteBuffer> consumer) throws IOException {
+        long records = 0;
+        try (FileChannel in = FileChannel.open(segmentPath(directory, segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer record = buffer.slice(buffer.position(), length);
+                CRC32C crc = new CRC32C();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                consumer.accept(record);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Numbers of the segments in the directory, in order.
+     */
+    public static List<Long> segments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%016d.log", segment));
+    }
+
+    /**
+     * Force the directory itself, so newly created or renamed files survive a power loss.
+     * Not every platform supports this, in which case it is skipped.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Directories can't be opened for sync on some platforms
+        }
+    }
+}
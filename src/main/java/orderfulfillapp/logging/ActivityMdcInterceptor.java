@@ -0,0 +1,46 @@
+package orderfulfillapp.logging;
+
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ActivityInfo;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptor;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+import org.slf4j.MDC;
+
+/**
+ * Worker interceptor that puts the workflow id, activity type and attempt of the running
+ * activity into the logging MDC, so every log line an activity writes can be traced back to
+ * its workflow without repeating the ids in each message.
+ */
+public class ActivityMdcInterceptor extends WorkerInterceptorBase {
+    public static final String WORKFLOW_ID = "workflowId";
+    public static final String ACTIVITY_TYPE = "activityType";
+    public static final String ATTEMPT = "attempt";
+
+    @Override
+    public ActivityInboundCallsInterceptor interceptActivity(ActivityInboundCallsInterceptor next) {
+        return new ActivityInboundCallsInterceptorBase(next) {
+            private ActivityInfo info;
+
+            @Override
+            public void init(ActivityExecutionContext context) {
+                info = context.getInfo();
+                super.init(context);
+            }
+
+            @Override
+            public ActivityOutput execute(ActivityInput input) {
+                MDC.put(WORKFLOW_ID, info.getWorkflowId());
+                MDC.put(ACTIVITY_TYPE, info.getActivityType());
+                MDC.put(ATTEMPT, Integer.toString(info.getAttempt()));
+                try {
+                    return super.execute(input);
+                } finally {
+                    MDC.remove(WORKFLOW_ID);
+                    MDC.remove(ACTIVITY_TYPE);
+                    MDC.remove(ATTEMPT);
+                }
+            }
+        };
+    }
+}
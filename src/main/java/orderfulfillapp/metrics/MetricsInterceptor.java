@@ -0,0 +1,55 @@
+package orderfulfillapp.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptor;
+import io.temporal.common.interceptors.ActivityInboundCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkerInterceptorBase;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.serviceclient.CheckedExceptionWrapper;
+
+/**
+ * Worker interceptor that counts failed activity attempts by activity type and exception type,
+ * e.g. how many payments failed with {@code CreditCardExpiredException}. The SDK already reports
+ * activity latency per activity type, but its failure counter doesn't say why.
+ */
+public class MetricsInterceptor extends WorkerInterceptorBase {
+    public static final String ACTIVITY_FAILURES = "orderfulfill.activity.failures";
+
+    @Override
+    public ActivityInboundCallsInterceptor interceptActivity(ActivityInboundCallsInterceptor next) {
+        return new ActivityInboundCallsInterceptorBase(next) {
+            private String activityType;
+
+            @Override
+            public void init(ActivityExecutionContext context) {
+                activityType = context.getInfo().getActivityType();
+                super.init(context);
+            }
+
+            @Override
+            public ActivityOutput execute(ActivityInput input) {
+                try {
+                    return super.execute(input);
+                } catch (RuntimeException e) {
+                    Metrics.counter(ACTIVITY_FAILURES,
+                            "activity_type", activityType,
+                            "exception", exceptionType(e)).increment();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Name the exception the activity actually threw: checked exceptions arrive wrapped, and
+     * application failures carry their own type.
+     */
+    static String exceptionType(Throwable failure) {
+        Throwable cause = CheckedExceptionWrapper.unwrap(failure);
+        if (cause instanceof ApplicationFailure) {
+            return ((ApplicationFailure) cause).getType();
+        }
+        return cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,95 @@
+package orderfulfillapp.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Process-wide metrics, exported in the Prometheus text format.
+ * Application code records into Micrometer's global registry, which is a no-op until
+ * {@link #enable} adds the Prometheus registry to it, so tests and tools that never enable
+ * metrics pay almost nothing. The Temporal SDK's own metrics (poller, slot, schedule-to-start
+ * and end-to-end latencies) are reported into the same registry through
+ * {@link #newServiceStubs}.
+ */
+public final class OrderMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(OrderMetrics.class);
+
+    // The SDK buffers its metrics and hands them to Micrometer on this interval
+    private static final com.uber.m3.util.Duration SDK_REPORT_INTERVAL = com.uber.m3.util.Duration.ofSeconds(10);
+
+    private static volatile PrometheusMeterRegistry registry;
+
+    private OrderMetrics() {
+    }
+
+    /**
+     * Create the Prometheus registry and add it to the global registry, once per process.
+     */
+    public static PrometheusMeterRegistry enable() {
+        PrometheusMeterRegistry current = registry;
+        if (current == null) {
+            synchronized (OrderMetrics.class) {
+                current = registry;
+                if (current == null) {
+                    current = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+                    new JvmMemoryMetrics().bindTo(current);
+                    new JvmGcMetrics().bindTo(current);
+                    new JvmThreadMetrics().bindTo(current);
+                    Metrics.addRegistry(current);
+                    registry = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Create service stubs for the local Temporal server whose SDK metrics are reported into
+     * the given registry.
+     */
+    public static WorkflowServiceStubs newServiceStubs(PrometheusMeterRegistry registry) {
+        Scope scope = new RootScopeBuilder()
+                .reporter(new MicrometerClientStatsReporter(registry))
+                .reportEvery(SDK_REPORT_INTERVAL);
+        return WorkflowServiceStubs.newServiceStubs(WorkflowServiceStubsOptions.newBuilder()
+                .setMetricsScope(scope)
+                .build());
+    }
+
+    /**
+     * Serve the registry at {@code GET /metrics} on the given port until the server is stopped.
+     */
+    public static HttpServer startScrapeEndpoint(PrometheusMeterRegistry registry, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+        });
+        server.start();
+        logger.info("Serving Prometheus metrics on http://localhost:{}/metrics", server.getAddress().getPort());
+        return server;
+    }
+}
@@ -0,0 +1,17 @@
+package orderfulfillapp.model;
+
+/**
+ * Where an order stands with respect to approval, as reported by the workflow's approval query.
+ */
+public enum ApprovalStatus {
+    /** The approval check hasn't run yet. */
+    NOT_CHECKED,
+    /** The order is under the approval threshold. */
+    NOT_REQUIRED,
+    /** The workflow is parked waiting for an approve or reject signal. */
+    PENDING,
+    APPROVED,
+    REJECTED,
+    /** No decision arrived within the approval timeout. */
+    TIMED_OUT
+}
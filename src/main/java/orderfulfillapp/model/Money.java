@@ -0,0 +1,35 @@
+package orderfulfillapp.model;
+
+/**
+ * Amounts of money as a {@code long} number of cents, so totals are exact and adding them up
+ * allocates nothing. Amounts still cross JSON and the command line as decimal {@code double}s,
+ * and are rounded to the nearest cent on the way in.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Round a decimal amount, such as {@code 49.99}, to cents.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * The decimal amount of the given cents, the nearest {@code double} to it.
+     */
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Format cents with two decimals, e.g. {@code 4999} as {@code "49.99"}.
+     */
+    public static String format(long cents) {
+        long whole = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
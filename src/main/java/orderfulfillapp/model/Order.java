@@ -1,7 +1,10 @@
 package orderfulfillapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -9,27 +12,59 @@ import java.util.List;
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Order {
+    // Identity assigned upstream, if any; re-submissions of an order carry the same id
+    @JsonProperty("orderId")
+    private String orderId;
+
+    // Read-only copy of the items, so the cached total always matches them
     @JsonProperty("items")
     private List<OrderItem> items;
 
     @JsonProperty("payment")
     private Payment payment;
 
+    // Total of the items in cents, worked out on first use
+    private transient volatile long totalCents = UNKNOWN_TOTAL;
+
+    private static final long UNKNOWN_TOTAL = Long.MIN_VALUE;
+
     // Default constructor for Jackson
     public Order() {
     }
 
     public Order(List<OrderItem> items, Payment payment) {
-        this.items = items;
+        this(null, items, payment);
+    }
+
+    public Order(String orderId, List<OrderItem> items, Payment payment) {
+        this.orderId = orderId;
+        this.items = copyOf(items);
         this.payment = payment;
     }
 
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    /**
+     * The order's items, which can't be changed in place; use {@link #setItems} instead.
+     */
     public List<OrderItem> getItems() {
         return items;
     }
 
+    @JsonProperty("items")
     public void setItems(List<OrderItem> items) {
-        this.items = items;
+        this.items = copyOf(items);
+        this.totalCents = UNKNOWN_TOTAL;
+    }
+
+    private static List<OrderItem> copyOf(List<OrderItem> items) {
+        return items == null ? null : Collections.unmodifiableList(new ArrayList<>(items));
     }
 
     public Payment getPayment() {
@@ -40,22 +75,37 @@ public class Order {
         this.payment = payment;
     }
 
+    /**
+     * Total of the items in cents, exact. It is worked out once and reused by logging and the
+     * approval check; the items can only be replaced through {@link #setItems}, which starts over.
+     */
+    @JsonIgnore
+    public long getTotalCents() {
+        long total = totalCents;
+        if (total == UNKNOWN_TOTAL) {
+            total = 0;
+            if (items != null) {
+                for (int i = 0; i < items.size(); i++) {
+                    total += items.get(i).getLineTotalCents();
+                }
+            }
+            totalCents = total;
+        }
+        return total;
+    }
+
     /**
      * Calculate the total amount from items.
      */
     public double getTotalAmount() {
-        if (items == null || items.isEmpty()) {
-            return 0.0;
-        }
-        return items.stream()
-                .mapToDouble(item -> item.getItemPrice() * item.getQuantity())
-                .sum();
+        return Money.toAmount(getTotalCents());
     }
 
     @Override
     public String toString() {
         return "Order{" +
-                "items=" + items +
+                "orderId=" + orderId +
+                ", items=" + items +
                 ", payment=" + payment +
                 ", totalAmount=" + getTotalAmount() +
                 '}';
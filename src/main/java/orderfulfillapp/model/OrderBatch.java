@@ -0,0 +1,204 @@
+package orderfulfillapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a batch of orders to fulfill in one workflow execution, by reference.
+ * The orders are staged in the order store under {@link #orderKey}, so the batch only carries
+ * its size, how far it has got and what came of the orders so far: counts, plus the indexes of
+ * the orders that failed or were held for approval. Every other processed order succeeded.
+ * When the workflow continues as new, the same batch is passed on, and its input only grows
+ * with the orders that did not succeed, however many orders the batch holds.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrderBatch {
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final int DEFAULT_ORDERS_PER_RUN = 1000;
+
+    @JsonProperty("batchId")
+    private String batchId;
+
+    @JsonProperty("orderCount")
+    private int orderCount;
+
+    @JsonProperty("nextOrder")
+    private int nextOrder;
+
+    @JsonProperty("chunkSize")
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    @JsonProperty("ordersPerRun")
+    private int ordersPerRun = DEFAULT_ORDERS_PER_RUN;
+
+    @JsonProperty("succeeded")
+    private int succeeded;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    @JsonProperty("heldForApproval")
+    private int heldForApproval;
+
+    @JsonProperty("failedOrders")
+    private List<Integer> failedOrders = new ArrayList<>();
+
+    @JsonProperty("heldOrders")
+    private List<Integer> heldOrders = new ArrayList<>();
+
+    // Default constructor for Jackson
+    public OrderBatch() {
+    }
+
+    public OrderBatch(String batchId, int orderCount, int chunkSize, int ordersPerRun) {
+        this.batchId = batchId;
+        this.orderCount = orderCount;
+        this.chunkSize = chunkSize;
+        this.ordersPerRun = ordersPerRun;
+    }
+
+    /**
+     * Get the order store key of the batch order with the given index. It is also the order's
+     * reservation id, which keeps reservations unique across continue-as-new runs.
+     */
+    public static String orderKey(String batchId, int orderIndex) {
+        return batchId + "-" + orderIndex;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    /**
+     * Number of orders staged for the batch, with indexes 0 to {@code orderCount - 1}.
+     */
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Index of the first order not processed yet.
+     */
+    public int getNextOrder() {
+        return nextOrder;
+    }
+
+    public void setNextOrder(int nextOrder) {
+        this.nextOrder = nextOrder;
+    }
+
+    /**
+     * Number of orders sent to each batched activity call.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Number of orders processed before the workflow continues as new.
+     */
+    public int getOrdersPerRun() {
+        return ordersPerRun;
+    }
+
+    public void setOrdersPerRun(int ordersPerRun) {
+        this.ordersPerRun = ordersPerRun;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Number of orders left out of the batch because they need approval.
+     */
+    public int getHeldForApproval() {
+        return heldForApproval;
+    }
+
+    public void setHeldForApproval(int heldForApproval) {
+        this.heldForApproval = heldForApproval;
+    }
+
+    /**
+     * Indexes of the orders that failed, in ascending order.
+     */
+    public List<Integer> getFailedOrders() {
+        return failedOrders;
+    }
+
+    public void setFailedOrders(List<Integer> failedOrders) {
+        this.failedOrders = failedOrders;
+    }
+
+    /**
+     * Indexes of the orders held for approval, in ascending order. They stay in the order store
+     * under {@link #orderKey}, to be resubmitted as single orders.
+     */
+    public List<Integer> getHeldOrders() {
+        return heldOrders;
+    }
+
+    public void setHeldOrders(List<Integer> heldOrders) {
+        this.heldOrders = heldOrders;
+    }
+
+    /**
+     * Record that the order with the given index failed.
+     */
+    public void addFailedOrder(int orderIndex) {
+        failedOrders.add(orderIndex);
+        failed++;
+    }
+
+    /**
+     * Record that the order with the given index was held for approval.
+     */
+    public void addHeldOrder(int orderIndex) {
+        heldOrders.add(orderIndex);
+        heldForApproval++;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBatch{" +
+                "batchId='" + batchId + '\'' +
+                ", orderCount=" + orderCount +
+                ", nextOrder=" + nextOrder +
+                ", chunkSize=" + chunkSize +
+                ", ordersPerRun=" + ordersPerRun +
+                ", succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", heldForApproval=" + heldForApproval +
+                ", failedOrders=" + failedOrders +
+                ", heldOrders=" + heldOrders +
+                '}';
+    }
+}
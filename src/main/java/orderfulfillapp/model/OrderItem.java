@@ -1,59 +1,70 @@
 package orderfulfillapp.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Represents a single item in an order with name, price, and quantity.
+ * The price is held in cents (see {@link Money}) and read and written as the decimal {@code itemPrice}.
+ * Items are immutable, so an order's total can't go stale once worked out.
  */
 public class OrderItem {
     @JsonProperty("itemName")
-    private String itemName;
+    private final String itemName;
 
-    @JsonProperty("itemPrice")
-    private double itemPrice;
+    private final long itemPriceCents;
 
     @JsonProperty("quantity")
-    private int quantity;
+    private final int quantity;
 
-    // Default constructor for Jackson
-    public OrderItem() {
+    @JsonCreator
+    public OrderItem(@JsonProperty("itemName") String itemName, @JsonProperty("itemPrice") double itemPrice,
+                     @JsonProperty("quantity") int quantity) {
+        this(itemName, Money.toCents(itemPrice), quantity);
     }
 
-    public OrderItem(String itemName, double itemPrice, int quantity) {
+    private OrderItem(String itemName, long itemPriceCents, int quantity) {
         this.itemName = itemName;
-        this.itemPrice = itemPrice;
+        this.itemPriceCents = itemPriceCents;
         this.quantity = quantity;
     }
 
+    public static OrderItem ofCents(String itemName, long itemPriceCents, int quantity) {
+        return new OrderItem(itemName, itemPriceCents, quantity);
+    }
+
     public String getItemName() {
         return itemName;
     }
 
-    public void setItemName(String itemName) {
-        this.itemName = itemName;
+    @JsonProperty("itemPrice")
+    public double getItemPrice() {
+        return Money.toAmount(itemPriceCents);
     }
 
-    public double getItemPrice() {
-        return itemPrice;
+    @JsonIgnore
+    public long getItemPriceCents() {
+        return itemPriceCents;
     }
 
-    public void setItemPrice(double itemPrice) {
-        this.itemPrice = itemPrice;
+    /**
+     * Price times quantity, in cents.
+     */
+    @JsonIgnore
+    public long getLineTotalCents() {
+        return itemPriceCents * quantity;
     }
 
     public int getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
-    }
-
     @Override
     public String toString() {
         return "OrderItem{" +
                 "itemName='" + itemName + '\'' +
-                ", itemPrice=" + itemPrice +
+                ", itemPrice=" + Money.format(itemPriceCents) +
                 ", quantity=" + quantity +
                 '}';
     }
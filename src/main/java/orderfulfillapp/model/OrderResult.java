@@ -0,0 +1,68 @@
+package orderfulfillapp.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents the outcome of fulfilling a single order within a batch.
+ */
+public class OrderResult {
+    @JsonProperty("orderIndex")
+    private int orderIndex;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("message")
+    private String message;
+
+    // Default constructor for Jackson
+    public OrderResult() {
+    }
+
+    public OrderResult(int orderIndex, boolean success, String message) {
+        this.orderIndex = orderIndex;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static OrderResult succeeded(String message) {
+        return new OrderResult(-1, true, message);
+    }
+
+    public static OrderResult failed(String message) {
+        return new OrderResult(-1, false, message);
+    }
+
+    public int getOrderIndex() {
+        return orderIndex;
+    }
+
+    public void setOrderIndex(int orderIndex) {
+        this.orderIndex = orderIndex;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderResult{" +
+                "orderIndex=" + orderIndex +
+                ", success=" + success +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+package orderfulfillapp.model;
+
+import java.util.List;
+
+/**
+ * Totals of a batch of orders, worked out together. The items of every order are copied once
+ * into flat price and quantity columns, and the totals are summed from those in one primitive
+ * loop, which the JIT can unroll and vectorize, instead of order by order through the item
+ * objects.
+ */
+public final class OrderTotals {
+    private final long[] totalCents;
+
+    private OrderTotals(long[] totalCents) {
+        this.totalCents = totalCents;
+    }
+
+    public static OrderTotals of(List<Order> orders) {
+        int[] itemOffsets = new int[orders.size() + 1];
+        for (int o = 0; o < orders.size(); o++) {
+            List<OrderItem> items = orders.get(o).getItems();
+            itemOffsets[o + 1] = itemOffsets[o] + (items == null ? 0 : items.size());
+        }
+        long[] priceCents = new long[itemOffsets[orders.size()]];
+        int[] quantities = new int[priceCents.length];
+        for (int o = 0; o < orders.size(); o++) {
+            List<OrderItem> items = orders.get(o).getItems();
+            for (int i = itemOffsets[o]; i < itemOffsets[o + 1]; i++) {
+                OrderItem item = items.get(i - itemOffsets[o]);
+                priceCents[i] = item.getItemPriceCents();
+                quantities[i] = item.getQuantity();
+            }
+        }
+        return new OrderTotals(sum(priceCents, quantities, itemOffsets));
+    }
+
+    /**
+     * Sum price times quantity over each order's run of items, where order {@code o} owns items
+     * {@code itemOffsets[o]} up to {@code itemOffsets[o + 1]}.
+     */
+    public static long[] sum(long[] priceCents, int[] quantities, int[] itemOffsets) {
+        long[] totals = new long[itemOffsets.length - 1];
+        for (int o = 0; o < totals.length; o++) {
+            long total = 0;
+            for (int i = itemOffsets[o], end = itemOffsets[o + 1]; i < end; i++) {
+                total += priceCents[i] * quantities[i];
+            }
+            totals[o] = total;
+        }
+        return totals;
+    }
+
+    public int size() {
+        return totalCents.length;
+    }
+
+    public long getTotalCents(int order) {
+        return totalCents[order];
+    }
+
+    /**
+     * Total of the whole batch, in cents.
+     */
+    public long getSumCents() {
+        long sum = 0;
+        for (long total : totalCents) {
+            sum += total;
+        }
+        return sum;
+    }
+
+    /**
+     * Number of orders whose total is over the given amount, in cents.
+     */
+    public int countOver(long thresholdCents) {
+        int count = 0;
+        for (long total : totalCents) {
+            count += total > thresholdCents ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,170 @@
+package orderfulfillapp.routing;
+
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Routes orders and SKUs to sharded task queues derived from a base queue name.
+ * Order keys pick one of the order queues ({@code <base>-<shard>}), and SKUs pick one of the
+ * inventory queues ({@code <base>-inventory-<shard>}), so every reservation for a SKU is handled
+ * by the workers polling its shard. With a single shard the base queue is used unchanged and
+ * inventory is not sharded.
+ *
+ * With dedicated inventory, inventory activities run on separate inventory workers, even with a
+ * single shard. Each of those workers also polls a queue of its own ({@link #hostInventoryQueue}),
+ * so every operation on one order's reservation can be sent to the host that made it.
+ *
+ * Keys are placed on a consistent-hash ring with many points per shard, so changing the shard
+ * count from N to N+1 moves only about 1/(N+1) of the keys. Routing is a pure function of the
+ * key and shard count, which workflow code relies on for deterministic replay.
+ */
+public final class ShardRouter {
+    // Points per shard on the ring; more points spread keys more evenly
+    static final int POINTS_PER_SHARD = 160;
+
+    private final String baseQueue;
+    private final int shards;
+    private final boolean dedicatedInventory;
+    private final long[] ringHashes;
+    private final int[] ringShards;
+
+    public ShardRouter(String baseQueue, int shards) {
+        this(baseQueue, shards, false);
+    }
+
+    public ShardRouter(String baseQueue, int shards, boolean dedicatedInventory) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive, got " + shards);
+        }
+        this.baseQueue = baseQueue;
+        this.shards = shards;
+        this.dedicatedInventory = dedicatedInventory;
+
+        // Sort the points by hash so a key's shard is found with a binary search
+        int points = shards * POINTS_PER_SHARD;
+        long[][] ring = new long[points][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int point = 0; point < POINTS_PER_SHARD; point++) {
+                ring[shard * POINTS_PER_SHARD + point] = new long[] {hash("shard-" + shard + "-" + point), shard};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        this.ringHashes = new long[points];
+        this.ringShards = new int[points];
+        for (int i = 0; i < points; i++) {
+            ringHashes[i] = ring[i][0];
+            ringShards[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * A router that keeps everything on the base queue.
+     */
+    public static ShardRouter unsharded(String baseQueue) {
+        return new ShardRouter(baseQueue, 1);
+    }
+
+    public boolean isSharded() {
+        return shards > 1;
+    }
+
+    public boolean isDedicatedInventory() {
+        return dedicatedInventory;
+    }
+
+    /**
+     * Whether inventory is reserved through the inventory queues rather than on the workflow's
+     * own task queue.
+     */
+    public boolean routesInventory() {
+        return isSharded() || dedicatedInventory;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public String getBaseQueue() {
+        return baseQueue;
+    }
+
+    /**
+     * Get the shard of a key: the first ring point at or after the key's hash, wrapping around.
+     */
+    public int shardFor(String key) {
+        if (shards == 1) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(ringHashes, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return ringShards[index == ringHashes.length ? 0 : index];
+    }
+
+    public String orderQueue(int shard) {
+        return shards == 1 ? baseQueue : baseQueue + "-" + shard;
+    }
+
+    /**
+     * Get the task queue for the workflow of an order, by its order key (workflow ID).
+     */
+    public String orderQueueFor(String orderKey) {
+        return orderQueue(shardFor(orderKey));
+    }
+
+    public String inventoryQueue(int shard) {
+        return baseQueue + "-inventory-" + shard;
+    }
+
+    /**
+     * Get the queue polled only by the inventory worker on the given host.
+     */
+    public String hostInventoryQueue(String hostId) {
+        return baseQueue + "-inventory-host-" + hostId;
+    }
+
+    /**
+     * Get the inventory shards holding the items of an order, in ascending order.
+     */
+    public SortedSet<Integer> inventoryShardsFor(Order order) {
+        SortedSet<Integer> inventoryShards = new TreeSet<>();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                inventoryShards.add(shardFor(item.getItemName()));
+            }
+        }
+        return inventoryShards;
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's characters, finished with the MurmurHash3 mixer so that
+     * similar keys such as {@code sku-1} and {@code sku-2} land far apart on the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardRouter{" +
+                "baseQueue=" + baseQueue +
+                ", shards=" + shards +
+                ", dedicatedInventory=" + dedicatedInventory +
+                '}';
+    }
+}
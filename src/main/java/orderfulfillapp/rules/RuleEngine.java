@@ -0,0 +1,175 @@
+package orderfulfillapp.rules;
+
+import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.exception.PaymentDeclinedException;
+import orderfulfillapp.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Clock;
+
+/**
+ * Checks orders against the current {@link RuleSet}. Rules loaded from a file are watched, like
+ * the stock database, and a freshly compiled rule set is swapped in atomically when the file
+ * changes, so checks never block on a reload. A file that doesn't compile is logged and the
+ * previous rules stay in place. Velocity counts start over with each reload.
+ */
+public class RuleEngine implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RuleEngine.class);
+
+    private final Path rulesPath;
+    private final Clock clock;
+    private volatile RuleSet rules;
+    private WatchService watchService;
+
+    private RuleEngine(Path rulesPath, RuleSet rules, Clock clock) {
+        this.rulesPath = rulesPath;
+        this.rules = rules;
+        this.clock = clock;
+    }
+
+    /**
+     * Check orders against the given fixed rules.
+     */
+    public static RuleEngine of(RuleSet rules) {
+        return of(rules, Clock.systemDefaultZone());
+    }
+
+    public static RuleEngine of(RuleSet rules, Clock clock) {
+        return new RuleEngine(null, rules, clock);
+    }
+
+    /**
+     * Load rules from the given file and start watching it for changes.
+     */
+    public static RuleEngine open(Path rulesPath) throws IOException {
+        return open(rulesPath, Clock.systemDefaultZone());
+    }
+
+    public static RuleEngine open(Path rulesPath, Clock clock) throws IOException {
+        RuleEngine engine = new RuleEngine(rulesPath, load(rulesPath), clock);
+        logger.info("Loaded {} rules from {}", engine.rules.size(), rulesPath);
+        engine.startWatching();
+        return engine;
+    }
+
+    /**
+     * Get the name of the first rule that requires approval of the order, or null if none does.
+     */
+    public String requiresApproval(Order order) {
+        RuleSet.Rule rule = rules.requiresApproval(order, clock);
+        return rule == null ? null : rule.getName();
+    }
+
+    /**
+     * Check the order's payment against the decline rules before the card is charged. The order
+     * key identifies the order across retries, so velocity rules count each order once.
+     *
+     * @throws CreditCardExpiredException if a rule on the card's expiry declines it
+     * @throws PaymentDeclinedException if any other rule declines it
+     */
+    public void checkPayment(String orderKey, Order order) throws PaymentDeclinedException {
+        RuleSet.Rule rule = rules.declines(orderKey, order, clock);
+        if (rule == null) {
+            return;
+        }
+        if (rule.checksExpiry()) {
+            throw new CreditCardExpiredException("Payment failed: Credit card expired");
+        }
+        throw new PaymentDeclinedException("Payment declined by rule " + rule.getName());
+    }
+
+    /**
+     * Get the current rules. They never change once compiled; a reload replaces them.
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Re-read and compile the rules file, and publish the new rules.
+     * On failure the previous rules stay in place.
+     */
+    public void reload() throws IOException {
+        if (rulesPath == null) {
+            return;
+        }
+        rules = load(rulesPath);
+        logger.info("Reloaded {} rules from {}", rules.size(), rulesPath);
+    }
+
+    @Override
+    public void close() {
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close rules watcher", e);
+            }
+        }
+    }
+
+    private static RuleSet load(Path rulesPath) throws IOException {
+        try (InputStream in = Files.newInputStream(rulesPath)) {
+            return RuleSet.read(in, rulesPath.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid rules in " + rulesPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void startWatching() {
+        Path file = rulesPath.toAbsolutePath();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Could not watch rules {}, changes will not be picked up", file, e);
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watch(file), "rules-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(Path file) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        logger.error("Failed to reload rules, keeping previous rules", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Engine closed
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package orderfulfillapp.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Money;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Approval and payment rules, compiled from their definitions into an evaluation plan.
+ *
+ * Each rule has a name, an action, and conditions that must all hold for it to match:
+ * <pre>
+ * {"sampleLatencyEvery": 16,
+ *  "rules": [
+ *   {"name": "large-order", "action": "requireApproval", "totalOver": 10000},
+ *   {"name": "bulk-boots", "action": "requireApproval", "item": "Boot", "quantityOver": 5},
+ *   {"name": "expired-card", "action": "decline", "cardExpired": true},
+ *   {"name": "card-velocity", "action": "decline", "cardUsesOver": 5, "per": "PT1M"}
+ * ]}
+ * </pre>
+ * Conditions:
+ * <ul>
+ * <li>{@code totalOver} / {@code totalAtMost}: the order total, for amount tiers;</li>
+ * <li>{@code item} and/or {@code quantityOver}: an item of that name, or any item, with more than
+ * that quantity, for per-SKU limits;</li>
+ * <li>{@code cardExpired}: the card's {@code MM/YY} expiry is before the current month; a
+ * missing or unreadable expiry counts as expired;</li>
+ * <li>{@code expiration}: the card's expiry is exactly this text;</li>
+ * <li>{@code cardUsesOver} within {@code per} (default {@code PT1M}): the card was checked by
+ * this rule for more than that many orders in the current window. Each order counts once and
+ * a retry gets the order's first answer, so retried payments neither push a card over the limit
+ * nor get declined once later orders have.</li>
+ * </ul>
+ * {@code requireApproval} rules are checked by the approval step and {@code decline} rules before
+ * charging the card; in each, the first rule that matches decides.
+ *
+ * Every condition is compiled to a small lambda with its operands already converted, such as
+ * amounts to cents, and a rule's conditions are ordered cheapest first, so most rules are
+ * decided by one {@code long} comparison and nothing is parsed or looked up per order. Velocity
+ * conditions always go last, so only orders that meet the rule's other conditions are counted.
+ * The time each rule takes is recorded per rule as {@value #EVALUATION_LATENCY}, and its
+ * matches as {@value #MATCHES}. Reading the clock costs more than most rules, so by default only
+ * one evaluation in {@value #DEFAULT_SAMPLE_LATENCY_EVERY}, picked at random, is timed; set
+ * {@code sampleLatencyEvery} to 1 to time them all. Matches are always counted.
+ */
+public final class RuleSet {
+    public static final String EVALUATION_LATENCY = "orderfulfill.rules.evaluation";
+    public static final String MATCHES = "orderfulfill.rules.matches";
+
+    public static final int DEFAULT_SAMPLE_LATENCY_EVERY = 16;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Cards tracked per velocity rule; beyond that the least recently checked card is dropped
+    static final int MAX_TRACKED_CARDS = 100_000;
+
+    /**
+     * What a matching rule does.
+     */
+    public enum Action {
+        REQUIRE_APPROVAL("requireApproval"),
+        DECLINE("decline");
+
+        private final String name;
+
+        Action(String name) {
+            this.name = name;
+        }
+
+        static Action parse(String name) {
+            for (Action action : values()) {
+                if (action.name.equals(name)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Unknown rule action " + name + ", expected requireApproval or decline");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Rule[] approvalRules;
+    private final Rule[] declineRules;
+    private final String source;
+    private final int sampleLatencyEvery;
+
+    private RuleSet(List<Rule> rules, String source, int sampleLatencyEvery) {
+        this.approvalRules = rules.stream().filter(rule -> rule.action == Action.REQUIRE_APPROVAL).toArray(Rule[]::new);
+        this.declineRules = rules.stream().filter(rule -> rule.action == Action.DECLINE).toArray(Rule[]::new);
+        this.source = source;
+        this.sampleLatencyEvery = sampleLatencyEvery;
+    }
+
+    /**
+     * The rules the application had before rules were configurable: orders over the given
+     * amount need approval, and the test data's expired card is declined.
+     */
+    public static RuleSet defaults(double approvalThreshold) {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(new Rule("large-order", Action.REQUIRE_APPROVAL,
+                List.of(totalOver(Money.toCents(approvalThreshold))), false));
+        rules.add(new Rule("expired-card", Action.DECLINE, List.of(expiration("12/23")), true));
+        return new RuleSet(rules, "defaults", DEFAULT_SAMPLE_LATENCY_EVERY);
+    }
+
+    /**
+     * Parse and compile the rules in the given JSON document.
+     *
+     * @throws IllegalArgumentException if a rule is not valid
+     */
+    public static RuleSet read(InputStream in, String source) throws IOException {
+        JsonNode root = objectMapper.readTree(in);
+        JsonNode definitions = root == null ? null : root.get("rules");
+        if (definitions == null || !definitions.isArray()) {
+            throw new IllegalArgumentException("Expected an object with a \"rules\" array in " + source);
+        }
+        JsonNode sampling = root.get("sampleLatencyEvery");
+        int sampleLatencyEvery = DEFAULT_SAMPLE_LATENCY_EVERY;
+        if (sampling != null) {
+            if (!sampling.canConvertToInt() || sampling.asInt() < 1) {
+                throw new IllegalArgumentException("sampleLatencyEvery must be a positive integer in " + source);
+            }
+            sampleLatencyEvery = sampling.asInt();
+        }
+        List<Rule> rules = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (JsonNode definition : definitions) {
+            Rule rule = compile(definition);
+            if (!names.add(rule.name)) {
+                throw new IllegalArgumentException("Duplicate rule name " + rule.name + " in " + source);
+            }
+            rules.add(rule);
+        }
+        return new RuleSet(rules, source, sampleLatencyEvery);
+    }
+
+    /**
+     * Find the first approval rule the order matches, or null if it needs no approval.
+     */
+    public Rule requiresApproval(Order order, Clock clock) {
+        return firstMatch(approvalRules, new Facts(null, order, clock), timed());
+    }
+
+    /**
+     * Find the first decline rule the order's payment matches, or null if it can be charged.
+     */
+    public Rule declines(String orderKey, Order order, Clock clock) {
+        return firstMatch(declineRules, new Facts(orderKey, order, clock), timed());
+    }
+
+    public int size() {
+        return approvalRules.length + declineRules.length;
+    }
+
+    /**
+     * Where the rules were read from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSet{source=" + source + ", approvalRules=" + approvalRules.length
+                + ", declineRules=" + declineRules.length + ", sampleLatencyEvery=" + sampleLatencyEvery + '}';
+    }
+
+    private boolean timed() {
+        return sampleLatencyEvery == 1 || ThreadLocalRandom.current().nextInt(sampleLatencyEvery) == 0;
+    }
+
+    private static Rule firstMatch(Rule[] rules, Facts facts, boolean timed) {
+        for (Rule rule : rules) {
+            boolean matched;
+            if (timed) {
+                long start = System.nanoTime();
+                matched = rule.test(facts);
+                rule.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                matched = rule.test(facts);
+            }
+            if (matched) {
+                rule.matches.increment();
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static Rule compile(JsonNode definition) {
+        String name = text(definition, "name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Rule without a name: " + definition);
+        }
+        String action = text(definition, "action");
+        if (action == null) {
+            throw new IllegalArgumentException("Rule " + name + " has no action");
+        }
+
+        List<Condition> conditions = new ArrayList<>();
+        boolean checksExpiry = false;
+        String item = null;
+        Integer quantityOver = null;
+        Integer cardUsesOver = null;
+        Duration per = Duration.ofMinutes(1);
+        for (Iterator<Map.Entry<String, JsonNode>> fields = definition.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "name":
+                case "action":
+                    break;
+                case "totalOver":
+                    conditions.add(totalOver(Money.toCents(number(name, field.getKey(), value))));
+                    break;
+                case "totalAtMost":
+                    long atMost = Money.toCents(number(name, field.getKey(), value));
+                    conditions.add(new Condition(0, facts -> facts.totalCents() <= atMost));
+                    break;
+                case "item":
+                    item = value.asText();
+                    break;
+                case "quantityOver":
+                    quantityOver = (int) number(name, field.getKey(), value);
+                    break;
+                case "cardExpired":
+                    boolean expired = value.asBoolean();
+                    conditions.add(new Condition(2, facts -> facts.cardExpired() == expired));
+                    checksExpiry = true;
+                    break;
+                case "expiration":
+                    conditions.add(expiration(value.asText()));
+                    checksExpiry = true;
+                    break;
+                case "cardUsesOver":
+                    cardUsesOver = (int) number(name, field.getKey(), value);
+                    break;
+                case "per":
+                    try {
+                        per = Duration.parse(value.asText());
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("Rule " + name + ": per must be an ISO-8601 duration such as PT1M");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Rule " + name + " has unknown condition " + field.getKey());
+            }
+        }
+        if (item != null || quantityOver != null) {
+            conditions.add(itemQuantity(item, quantityOver == null ? 0 : quantityOver));
+        }
+        if (cardUsesOver != null) {
+            if (per.isNegative() || per.isZero()) {
+                throw new IllegalArgumentException("Rule " + name + ": per must be positive");
+            }
+            Velocity velocity = new Velocity(cardUsesOver, per.toMillis(), MAX_TRACKED_CARDS);
+            conditions.add(new Condition(9, velocity::exceeded));
+        }
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " has no conditions");
+        }
+        conditions.sort(Comparator.comparingInt(condition -> condition.cost));
+        return new Rule(name, Action.parse(action), conditions, checksExpiry);
+    }
+
+    private static Condition totalOver(long cents) {
+        return new Condition(0, facts -> facts.totalCents() > cents);
+    }
+
+    private static Condition expiration(String expiration) {
+        return new Condition(1, facts -> expiration.equals(facts.expiration()));
+    }
+
+    private static Condition itemQuantity(String itemName, int quantityOver) {
+        if (itemName == null) {
+            return new Condition(3, facts -> {
+                List<OrderItem> items = facts.items();
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i).getQuantity() > quantityOver) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        return new Condition(3, facts -> {
+            List<OrderItem> items = facts.items();
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem orderItem = items.get(i);
+                if (orderItem.getQuantity() > quantityOver && itemName.equals(orderItem.getItemName())) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static String text(JsonNode definition, String field) {
+        JsonNode value = definition.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static double number(String rule, String field, JsonNode value) {
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException("Rule " + rule + ": " + field + " must be a number, got " + value);
+        }
+        return value.asDouble();
+    }
+
+    /**
+     * A compiled rule, with its own latency and match meters.
+     */
+    public static final class Rule {
+        private final String name;
+        private final Action action;
+        private final Condition[] conditions;
+        private final boolean checksExpiry;
+        private final Timer latency;
+        private final Counter matches;
+
+        private Rule(String name, Action action, List<Condition> conditions, boolean checksExpiry) {
+            this.name = name;
+            this.action = action;
+            this.conditions = conditions.toArray(new Condition[0]);
+            this.checksExpiry = checksExpiry;
+            this.latency = Timer.builder(EVALUATION_LATENCY)
+                    .description("Time to evaluate one rule against an order")
+                    .tag("rule", name)
+                    .register(Metrics.globalRegistry);
+            this.matches = Counter.builder(MATCHES)
+                    .description("Orders a rule matched")
+                    .tag("rule", name)
+                    .register(Metrics.globalRegistry);
+        }
+
+        boolean test(Facts facts) {
+            for (Condition condition : conditions) {
+                if (!condition.test.test(facts)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        /**
+         * Whether the rule looks at the card's expiry, so a decline means the card has expired.
+         */
+        public boolean checksExpiry() {
+            return checksExpiry;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class Condition {
+        // Conditions of a rule are tested in increasing cost
+        private final int cost;
+        private final Predicate<Facts> test;
+
+        Condition(int cost, Predicate<Facts> test) {
+            this.cost = cost;
+            this.test = test;
+        }
+    }
+
+    /**
+     * What the rules look at in one order, worked out at most once per evaluation.
+     */
+    static final class Facts {
+        private final String orderKey;
+        private final Order order;
+        private final Clock clock;
+        private int expired = -1;
+
+        Facts(String orderKey, Order order, Clock clock) {
+            this.orderKey = orderKey;
+            this.order = order;
+            this.clock = clock;
+        }
+
+        /**
+         * Key of the order being checked, which stays the same when its check is retried, or
+         * null if there is none.
+         */
+        String orderKey() {
+            return orderKey;
+        }
+
+        long totalCents() {
+            return order.getTotalCents();
+        }
+
+        List<OrderItem> items() {
+            return order.getItems() == null ? List.of() : order.getItems();
+        }
+
+        CreditCard card() {
+            return order.getPayment() == null ? null : order.getPayment().getCreditCard();
+        }
+
+        String expiration() {
+            CreditCard card = card();
+            return card == null ? null : card.getExpiration();
+        }
+
+        boolean cardExpired() {
+            if (expired < 0) {
+                YearMonth expiry = parseExpiration(expiration());
+                expired = expiry == null || expiry.isBefore(YearMonth.now(clock)) ? 1 : 0;
+            }
+            return expired == 1;
+        }
+
+        long millis() {
+            return clock.millis();
+        }
+    }
+
+    /**
+     * Parse a card expiry such as {@code 12/25} or {@code 12/2025}, or return null if it isn't one.
+     */
+    static YearMonth parseExpiration(String expiration) {
+        if (expiration == null) {
+            return null;
+        }
+        int slash = expiration.indexOf('/');
+        if (slash < 1) {
+            return null;
+        }
+        try {
+            int month = Integer.parseInt(expiration.substring(0, slash).trim());
+            String yearText = expiration.substring(slash + 1).trim();
+            int year = Integer.parseInt(yearText);
+            if (yearText.length() == 2) {
+                year += 2000;
+            } else if (yearText.length() != 4) {
+                return null;
+            }
+            return month >= 1 && month <= 12 ? YearMonth.of(year, month) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Orders checked with each card in fixed windows, starting at the card's first use in the
+     * window. At most {@code maxCards} cards are tracked; the least recently checked ones are
+     * dropped first, and most of those have no window open anyway.
+     */
+    static final class Velocity {
+        private final int limit;
+        private final long windowMillis;
+        private final Map<String, Window> windows;
+
+        Velocity(int limit, long windowMillis, int maxCards) {
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                    return size() > maxCards;
+                }
+            };
+        }
+
+        boolean exceeded(Facts facts) {
+            CreditCard card = facts.card();
+            if (card == null || card.getNumber() == null) {
+                return false;
+            }
+            long now = facts.millis();
+            synchronized (windows) {
+                Window window = windows.get(card.getNumber());
+                if (window == null || now - window.start >= windowMillis) {
+                    window = new Window(now);
+                    windows.put(card.getNumber(), window);
+                }
+                return window.use(facts.orderKey(), limit) > limit;
+            }
+        }
+
+        int trackedCards() {
+            synchronized (windows) {
+                return windows.size();
+            }
+        }
+    }
+
+    private static final class Window {
+        private final long start;
+        // Each admitted order's count, so a retry of that order gets the same answer; checks
+        // without a key count every time
+        private final Map<String, Integer> orderCounts = new HashMap<>();
+        private int count;
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        int use(String orderKey, int limit) {
+            if (orderKey == null) {
+                return ++count;
+            }
+            Integer counted = orderCounts.get(orderKey);
+            if (counted != null) {
+                return counted;
+            }
+            count++;
+            if (count <= limit + 1) {
+                // Later orders are all declined alike, so there is no need to remember them
+                orderCounts.put(orderKey, count);
+            }
+            return count;
+        }
+    }
+}
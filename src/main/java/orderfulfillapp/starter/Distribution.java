@@ -0,0 +1,136 @@
+package orderfulfillapp.starter;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * How often each of the values 0 to n-1 is drawn when generating orders, e.g. which SKUs are
+ * ordered or how many items an order has. Value 0 is the most popular under the skewed kinds.
+ * <ul>
+ * <li>{@code uniform}: every value equally often.</li>
+ * <li>{@code zipf:<s>}: value k with weight 1/(k+1)^s, so a few values dominate (default s=1).</li>
+ * <li>{@code hotset:<fraction>:<share>}: the first {@code fraction} of the values draw {@code share}
+ * of the samples, uniformly, and the rest share what is left (default 0.01 and 0.9).</li>
+ * </ul>
+ */
+public final class Distribution {
+
+    public enum Kind {
+        UNIFORM,
+        ZIPF,
+        HOT_SET
+    }
+
+    private final Kind kind;
+    private final double exponent;
+    private final double hotFraction;
+    private final double hotShare;
+
+    private Distribution(Kind kind, double exponent, double hotFraction, double hotShare) {
+        this.kind = kind;
+        this.exponent = exponent;
+        this.hotFraction = hotFraction;
+        this.hotShare = hotShare;
+    }
+
+    public static Distribution uniform() {
+        return new Distribution(Kind.UNIFORM, 0, 0, 0);
+    }
+
+    public static Distribution zipf(double exponent) {
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("Zipf exponent must be positive, got " + exponent);
+        }
+        return new Distribution(Kind.ZIPF, exponent, 0, 0);
+    }
+
+    public static Distribution hotSet(double hotFraction, double hotShare) {
+        if (hotFraction <= 0 || hotFraction > 1 || hotShare < 0 || hotShare > 1) {
+            throw new IllegalArgumentException("Hot set fraction must be in (0, 1] and share in [0, 1]");
+        }
+        return new Distribution(Kind.HOT_SET, 0, hotFraction, hotShare);
+    }
+
+    /**
+     * Parse {@code uniform}, {@code zipf[:s]} or {@code hotset[:fraction[:share]]}.
+     */
+    public static Distribution parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        switch (parts[0]) {
+            case "uniform":
+                return uniform();
+            case "zipf":
+                return zipf(parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0);
+            case "hotset":
+                return hotSet(parts.length > 1 ? Double.parseDouble(parts[1]) : 0.01,
+                        parts.length > 2 ? Double.parseDouble(parts[2]) : 0.9);
+            default:
+                throw new IllegalArgumentException("Unknown distribution '" + spec
+                        + "', expected uniform, zipf[:s] or hotset[:fraction[:share]]");
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Prepare to draw values from 0 to n-1. Samplers keep no state between draws, so one can
+     * be shared by threads that each bring their own random generator.
+     */
+    public Sampler over(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Need at least one value to draw from");
+        }
+        switch (kind) {
+            case ZIPF:
+                return zipfSampler(n);
+            case HOT_SET:
+                int hot = Math.max(1, (int) Math.round(n * hotFraction));
+                if (hot >= n) {
+                    return random -> random.nextInt(n);
+                }
+                return random -> random.nextDouble() < hotShare ? random.nextInt(hot) : hot + random.nextInt(n - hot);
+            default:
+                return random -> random.nextInt(n);
+        }
+    }
+
+    /**
+     * Inverse transform sampling: a binary search in the cumulative weights, O(log n) per draw.
+     */
+    private Sampler zipfSampler(int n) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        double sum = total;
+        return random -> {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            return Math.min(index < 0 ? -index - 1 : index, n - 1);
+        };
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ZIPF:
+                return "zipf:" + exponent;
+            case HOT_SET:
+                return "hotset:" + hotFraction + ":" + hotShare;
+            default:
+                return "uniform";
+        }
+    }
+
+    /**
+     * Draws values from 0 to n-1.
+     */
+    @FunctionalInterface
+    public interface Sampler {
+        int sample(RandomGenerator random);
+    }
+}
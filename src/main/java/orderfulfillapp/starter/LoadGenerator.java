@@ -0,0 +1,186 @@
+package orderfulfillapp.starter;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for capacity planning.
+ * Workflows are started at a fixed target rate with {@link WorkflowClient#start}, and completion is
+ * tracked asynchronously, so no thread is held per running workflow. The number of workflows in
+ * flight is capped; when the cap is reached, starts are delayed rather than dropped.
+ *
+ * Latencies are measured from each order's scheduled start time rather than its actual start time,
+ * so a stalled client or server shows up in the percentiles instead of being hidden
+ * (coordinated omission). Orders scheduled during the warm-up period are not recorded.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final WorkflowClient client;
+    private final ShardRouter router;
+    private final List<Order> orders;
+    private final double ordersPerSecond;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final Duration warmup;
+
+    // Latencies in microseconds; the recorders resize automatically
+    private final Recorder startLatency = new Recorder(3);
+    private final Recorder endToEndLatency = new Recorder(3);
+    private final LongAdder started = new LongAdder();
+    private final LongAdder failedStarts = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LoadGenerator(WorkflowClient client, ShardRouter router, List<Order> orders,
+                         double ordersPerSecond, Duration duration, int maxInFlight, Duration warmup) {
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("At least one order is needed to generate load");
+        }
+        if (ordersPerSecond <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Rate and max in-flight must be positive");
+        }
+        this.client = client;
+        this.router = router;
+        this.orders = orders;
+        this.ordersPerSecond = ordersPerSecond;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Generate load for the warm-up period plus the measured duration, wait for the workflows
+     * still in flight, and log the latency and throughput report.
+     */
+    public void run() throws InterruptedException {
+        String runId = String.valueOf(Instant.now().toEpochMilli());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ordersPerSecond);
+
+        logger.info("Generating {} orders/s for {}s after {}s warm-up, at most {} in flight",
+                ordersPerSecond, duration.toSeconds(), warmup.toSeconds(), maxInFlight);
+
+        // Starting a workflow is a blocking RPC; starts that wait for a thread still count their
+        // latency from when they were scheduled
+        ExecutorService starters = OrderStarter.newRpcExecutor(maxInFlight);
+        long beginNanos = System.nanoTime();
+        long measureFromNanos = beginNanos + warmup.toNanos();
+        long endNanos = measureFromNanos + duration.toNanos();
+        long nextNanos = beginNanos;
+        int sequence = 0;
+
+        try {
+            while (nextNanos < endNanos) {
+                long now = System.nanoTime();
+                if (now < nextNanos) {
+                    LockSupport.parkNanos(nextNanos - now);
+                    continue;
+                }
+                inFlight.acquire();
+
+                long scheduledNanos = nextNanos;
+                boolean measured = scheduledNanos >= measureFromNanos;
+                Order order = orders.get(sequence % orders.size());
+                String workflowId = String.format("order-fulfill-load-%s-%d", runId, sequence);
+                starters.execute(() -> start(workflowId, order, scheduledNanos, measured, inFlight));
+
+                sequence++;
+                nextNanos += intervalNanos;
+            }
+
+            if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                logger.warn("{} workflows still in flight after {}s, reporting without them",
+                        maxInFlight - inFlight.availablePermits(), DRAIN_TIMEOUT.toSeconds());
+            }
+        } finally {
+            starters.shutdown();
+        }
+
+        long elapsedNanos = System.nanoTime() - measureFromNanos;
+        report(elapsedNanos);
+    }
+
+    private void start(String workflowId, Order order, long scheduledNanos, boolean measured, Semaphore inFlight) {
+        WorkflowOptions options = WorkflowOptions.newBuilder()
+                .setTaskQueue(router.orderQueueFor(workflowId))
+                .setWorkflowId(workflowId)
+                .build();
+        OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, options);
+
+        try {
+            WorkflowClient.start(workflow::fulfillOrder, order);
+        } catch (Exception e) {
+            logger.error("Failed to start workflow {}: {}", workflowId, e.getMessage());
+            failedStarts.increment();
+            inFlight.release();
+            return;
+        }
+
+        if (measured) {
+            started.increment();
+            startLatency.recordValue(toMicros(System.nanoTime() - scheduledNanos));
+        }
+
+        WorkflowStub.fromTyped(workflow).getResultAsync(String.class).whenComplete((result, error) -> {
+            if (measured) {
+                endToEndLatency.recordValue(toMicros(System.nanoTime() - scheduledNanos));
+                if (error == null) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                }
+            }
+            inFlight.release();
+        });
+    }
+
+    private void report(long elapsedNanos) {
+        double measuredSeconds = duration.toNanos() / 1e9;
+        double elapsedSeconds = elapsedNanos / 1e9;
+
+        logger.info("Load test finished: {} started, {} completed, {} failed, {} failed to start",
+                started.sum(), completed.sum(), failed.sum(), failedStarts.sum());
+        logger.info(String.format("Start rate: %.1f/s (target %.1f/s), completion throughput: %.1f/s",
+                started.sum() / measuredSeconds, ordersPerSecond, completed.sum() / elapsedSeconds));
+        logHistogram("Start latency", startLatency.getIntervalHistogram());
+        logHistogram("End-to-end latency", endToEndLatency.getIntervalHistogram());
+    }
+
+    private static void logHistogram(String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            logger.info("{}: no samples", name);
+            return;
+        }
+        logger.info(String.format("%s (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (n=%d)",
+                name,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                histogram.getTotalCount()));
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+    }
+}
@@ -0,0 +1,117 @@
+package orderfulfillapp.starter;
+
+import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
+import io.temporal.client.BatchRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import orderfulfillapp.model.ApprovalStatus;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client side of order approval: approving many parked orders at once, and starting orders
+ * that are already approved upstream so they never park.
+ */
+public class OrderApprover {
+    private static final Logger logger = LoggerFactory.getLogger(OrderApprover.class);
+    static final int DEFAULT_MAX_IN_FLIGHT = 200;
+
+    // Visibility query for order workflows that may be waiting for approval
+    private static final String RUNNING_ORDERS_QUERY =
+            "WorkflowType = 'OrderFulfillWorkflow' AND ExecutionStatus = 'Running'";
+
+    private final WorkflowClient client;
+    private final int maxInFlight;
+
+    public OrderApprover(WorkflowClient client) {
+        this(client, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public OrderApprover(WorkflowClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Send the approve signal to every given workflow, with up to {@code maxInFlight} signals
+     * outstanding at a time. Workflows that can't be signaled, e.g. because they already finished,
+     * are logged and skipped.
+     *
+     * @return the number of workflows signaled
+     */
+    public long approveAll(Iterator<String> workflowIds) throws InterruptedException {
+        return approve(workflowIds, false);
+    }
+
+    /**
+     * Approve every running order workflow that is waiting for approval. Each one's
+     * {@code getApprovalStatus} query is checked first, so orders that don't need approval, or
+     * haven't been checked yet, are left alone. Needs a server with visibility queries (not the
+     * test server).
+     *
+     * @return the number of workflows signaled
+     */
+    public long approveRunning() throws InterruptedException {
+        return approve(client.listExecutions(RUNNING_ORDERS_QUERY)
+                .map(execution -> execution.getExecution().getWorkflowId())
+                .iterator(), true);
+    }
+
+    private long approve(Iterator<String> workflowIds, boolean pendingOnly) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LongAdder approved = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        // Each query and signal is a blocking RPC, run on a bounded pool of platform threads
+        try (ExecutorService signalers = OrderStarter.newRpcExecutor(maxInFlight)) {
+            while (workflowIds.hasNext()) {
+                String workflowId = workflowIds.next();
+                inFlight.acquire();
+                signalers.execute(() -> {
+                    try {
+                        OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, workflowId);
+                        if (pendingOnly && workflow.getApprovalStatus() != ApprovalStatus.PENDING) {
+                            skipped.increment();
+                            return;
+                        }
+                        workflow.approve();
+                        approved.increment();
+                    } catch (Exception e) {
+                        logger.warn("Failed to approve workflow {}: {}", workflowId, e.getMessage());
+                        failed.increment();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        logger.info("Approved {} orders, {} not pending, {} failed", approved.sum(), skipped.sum(), failed.sum());
+        return approved.sum();
+    }
+
+    /**
+     * Start an order workflow together with its approval in a single signal-with-start call,
+     * for orders approved before they are submitted.
+     */
+    public static WorkflowStub startApproved(WorkflowClient client, WorkflowOptions options, Order order) {
+        // Signal-with-start signals a running workflow of the same ID rather than failing
+        OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, WorkflowOptions.newBuilder(options)
+                .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING)
+                .build());
+        BatchRequest request = client.newSignalWithStartRequest();
+        request.add(workflow::fulfillOrder, order);
+        request.add(workflow::approve);
+        client.signalWithStart(request);
+        return WorkflowStub.fromTyped(workflow);
+    }
+}
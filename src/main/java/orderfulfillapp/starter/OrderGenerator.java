@@ -0,0 +1,181 @@
+package orderfulfillapp.starter;
+
+import orderfulfillapp.api.ColumnarStockTable;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.model.StockItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Seeded, parallel generator of synthetic orders.
+ * Orders are built in fixed-size chunks, each with its own {@link SplittableRandom} split from
+ * the seed in chunk order, so threads never share a generator and the same seed gives the same
+ * orders whatever the number of threads. That includes their {@code orderId}s: generating with
+ * the same seed again re-submits the same orders, which start only once.
+ *
+ * Which SKUs are ordered, how many items an order has and how many units of each follow
+ * configurable {@link Distribution}s. Every order gets at least one item and one unit.
+ * Stock is read from a {@link ColumnarStockTable}, and each SKU's name is decoded once per
+ * {@link #generate} call and shared by every order that contains it.
+ */
+public class OrderGenerator {
+    static final int CHUNK_SIZE = 4096;
+
+    private final ColumnarStockTable stock;
+    private final long seed;
+    private Distribution popularity = Distribution.uniform();
+    private int maxItems = 3;
+    private Distribution itemCounts = Distribution.uniform();
+    private int maxQuantity = 3;
+    private Distribution quantities = Distribution.uniform();
+    private int invalidPercentage;
+
+    public OrderGenerator(List<StockItem> stock, long seed) {
+        this(ColumnarStockTable.of(stock, false), seed);
+    }
+
+    public OrderGenerator(ColumnarStockTable stock, long seed) {
+        if (stock.size() == 0) {
+            throw new IllegalArgumentException("At least one stock item is needed to generate orders");
+        }
+        this.stock = stock;
+        this.seed = seed;
+    }
+
+    /**
+     * Generate orders, in parallel when there are enough of them.
+     * The first {@code invalidPercentage} percent of the orders are made invalid.
+     */
+    public List<Order> generate(int count) {
+        Distribution.Sampler skus = popularity.over(stock.size());
+        Distribution.Sampler items = itemCounts.over(maxItems);
+        Distribution.Sampler units = quantities.over(maxQuantity);
+        // Generated orders never change their payment, so they can all share one
+        Payment payment = new Payment(new CreditCard("1234 5678 1234 5678", "12/30"));
+        int invalid = (int) ((long) invalidPercentage * count / 100);
+        // Filled as SKUs are drawn; threads racing on a slot just decode the same name twice
+        String[] names = new String[stock.size()];
+
+        // Split the generators up front, in chunk order, so they don't depend on thread scheduling
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            randoms[chunk] = root.split();
+        }
+
+        Order[] orders = new Order[count];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            SplittableRandom random = randoms[chunk];
+            int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                int numItems = 1 + items.sample(random);
+                List<OrderItem> orderItems = new ArrayList<>(numItems);
+                for (int j = 0; j < numItems; j++) {
+                    int sku = skus.sample(random);
+                    String name = names[sku];
+                    if (name == null) {
+                        name = stock.getName(sku);
+                        names[sku] = name;
+                    }
+                    String itemName = i < invalid && j == 0 ? name + "@@@" : name;
+                    orderItems.add(OrderItem.ofCents(itemName, stock.getPriceCents(sku), 1 + units.sample(random)));
+                }
+                orders[i] = new Order(orderId(random), orderItems, payment);
+            }
+        });
+        return Arrays.asList(orders);
+    }
+
+    /**
+     * A version 4 UUID drawn from the chunk's generator, so ids are reproducible too.
+     */
+    private static String orderId(SplittableRandom random) {
+        long mostSigBits = (random.nextLong() & ~0xf000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & ~(0xcL << 60)) | (0x8L << 60);
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Distribution getPopularity() {
+        return popularity;
+    }
+
+    public void setPopularity(Distribution popularity) {
+        this.popularity = popularity;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public Distribution getItemCounts() {
+        return itemCounts;
+    }
+
+    /**
+     * Orders get 1 to {@code maxItems} items, the lowest counts most often under skewed distributions.
+     */
+    public void setItemCounts(int maxItems, Distribution itemCounts) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("Max items must be positive");
+        }
+        this.maxItems = maxItems;
+        this.itemCounts = itemCounts;
+    }
+
+    public int getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public Distribution getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * Items get 1 to {@code maxQuantity} units, the lowest quantities most often under skewed distributions.
+     */
+    public void setQuantities(int maxQuantity, Distribution quantities) {
+        if (maxQuantity <= 0) {
+            throw new IllegalArgumentException("Max quantity must be positive");
+        }
+        this.maxQuantity = maxQuantity;
+        this.quantities = quantities;
+    }
+
+    public int getInvalidPercentage() {
+        return invalidPercentage;
+    }
+
+    public void setInvalidPercentage(int invalidPercentage) {
+        if (invalidPercentage < 0 || invalidPercentage > 100) {
+            throw new IllegalArgumentException("Invalid percentage must be between 0 and 100");
+        }
+        this.invalidPercentage = invalidPercentage;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderGenerator{" +
+                "seed=" + seed +
+                ", skus=" + stock.size() +
+                ", popularity=" + popularity +
+                ", maxItems=" + maxItems +
+                ", itemCounts=" + itemCounts +
+                ", maxQuantity=" + maxQuantity +
+                ", quantities=" + quantities +
+                ", invalidPercentage=" + invalidPercentage +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package orderfulfillapp.starter;
+
+import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
+import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
+import io.temporal.client.WorkflowOptions;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Deterministic workflow IDs for orders, so a re-submitted order maps to the workflow already
+ * fulfilling it instead of starting a second one.
+ * An order with an upstream {@code orderId} uses that id. Otherwise the id is a hash of the
+ * order's content, which means two genuinely separate orders with the same items and card are
+ * treated as one; upstreams that can send those should set {@code orderId}.
+ */
+public final class OrderIdentity {
+    static final String WORKFLOW_ID_PREFIX = "order-";
+    static final String CONTENT_HASH_PREFIX = "order-sha256-";
+
+    // 128 bits of the digest keep the ids short with no practical risk of collision
+    private static final int HASH_BYTES = 16;
+
+    private OrderIdentity() {
+    }
+
+    /**
+     * Get the workflow ID for an order.
+     */
+    public static String workflowId(Order order) {
+        String orderId = order.getOrderId();
+        if (orderId != null && !orderId.isBlank()) {
+            return WORKFLOW_ID_PREFIX + orderId;
+        }
+        return CONTENT_HASH_PREFIX + contentHash(order);
+    }
+
+    /**
+     * Workflow options for starting an order exactly once. A start while the order's workflow is
+     * running, or after it completed, fails with {@link io.temporal.client.WorkflowExecutionAlreadyStarted}
+     * so the caller can attach to it instead. Only an order whose workflow failed, timed out or
+     * was terminated can be started again, e.g. once a downstream service is back.
+     */
+    public static WorkflowOptions workflowOptions(String taskQueue, String workflowId) {
+        return WorkflowOptions.newBuilder()
+                .setTaskQueue(taskQueue)
+                .setWorkflowId(workflowId)
+                .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
+                .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_FAIL)
+                .build();
+    }
+
+    /**
+     * Hex SHA-256 prefix of the items (in order) and card of an order.
+     */
+    static String contentHash(Order order) {
+        MessageDigest digest = sha256();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                update(digest, item.getItemName());
+                update(digest, Double.toString(item.getItemPrice()));
+                update(digest, Integer.toString(item.getQuantity()));
+            }
+        }
+        CreditCard creditCard = order.getPayment() != null ? order.getPayment().getCreditCard() : null;
+        if (creditCard != null) {
+            update(digest, creditCard.getNumber());
+            update(digest, creditCard.getExpiration());
+        }
+        return HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), HASH_BYTES));
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // Separator, so ("ab", "c") and ("a", "bc") hash differently
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+}
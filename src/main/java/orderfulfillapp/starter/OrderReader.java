@@ -0,0 +1,82 @@
+package orderfulfillapp.starter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import orderfulfillapp.model.Order;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads orders one at a time from a JSON array or from NDJSON (one order per line), so only the
+ * order being read is held in memory however large the input is. The format is detected from
+ * the first token.
+ */
+public class OrderReader implements Iterator<Order>, AutoCloseable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JsonParser parser;
+    private final boolean array;
+    private JsonToken next;
+    private long ordersRead;
+
+    public OrderReader(InputStream inputStream) throws IOException {
+        this.parser = objectMapper.createParser(inputStream);
+        JsonToken first = parser.nextToken();
+        this.array = first == JsonToken.START_ARRAY;
+        this.next = array ? parser.nextToken() : first;
+    }
+
+    public static OrderReader open(Path path) throws IOException {
+        return new OrderReader(Files.newInputStream(path));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null || next == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (next != JsonToken.START_OBJECT) {
+            throw new UncheckedIOException(new IOException(
+                    "Expected an order object at " + parser.currentLocation() + " but found " + next));
+        }
+        return true;
+    }
+
+    @Override
+    public Order next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Order order = objectMapper.readValue(parser, Order.class);
+            ordersRead++;
+            next = parser.nextToken();
+            return order;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read order " + (ordersRead + 1), e);
+        }
+    }
+
+    /**
+     * Whether the input is a JSON array rather than NDJSON.
+     */
+    public boolean isArray() {
+        return array;
+    }
+
+    public long getOrdersRead() {
+        return ordersRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -1,27 +1,31 @@
 package orderfulfillapp.starter;
 
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
 import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import orderfulfillapp.Shared;
+import orderfulfillapp.api.ColumnarStockTable;
 import orderfulfillapp.model.CreditCard;
 import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderBatch;
 import orderfulfillapp.model.OrderItem;
 import orderfulfillapp.model.Payment;
-import orderfulfillapp.model.StockItem;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.store.OrderStore;
+import orderfulfillapp.workflows.BatchOrderFulfillWorkflow;
 import orderfulfillapp.workflows.OrderFulfillWorkflow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,8 +34,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class OrderStarter {
     private static final Logger logger = LoggerFactory.getLogger(OrderStarter.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final Random random = new Random();
+    private static final int MAX_RPC_THREADS = 64;
     
     /**
      * Get default sample orders.
@@ -42,7 +45,7 @@ public class OrderStarter {
             new OrderItem("2002R Sneaker (Men)", 63.00, 2)
         );
         
-        CreditCard creditCard = new CreditCard("5678 1234 5678 1234", "12/24");
+        CreditCard creditCard = new CreditCard("5678 1234 5678 1234", "12/30");
         Payment payment = new Payment(creditCard);
         Order order = new Order(items, payment);
         
@@ -50,75 +53,70 @@ public class OrderStarter {
     }
     
     /**
-     * Generate multiple orders with optional invalid percentage.
+     * Generate multiple orders with optional invalid percentage, from a random seed.
      */
     public static List<Order> generateOrders(int count, int invalidPercentage) {
         try {
-            List<StockItem> stockData = loadStockDatabase();
-            List<Order> orders = new ArrayList<>();
-            int numInvalidOrders = (invalidPercentage * count) / 100;
-            
-            for (int i = 0; i < count; i++) {
-                int numItems = getRandomInt(1, 3);
-                List<OrderItem> items = new ArrayList<>();
-                
-                for (int j = 0; j < numItems; j++) {
-                    int itemIndex = getRandomInt(0, stockData.size() - 1);
-                    StockItem stockItem = stockData.get(itemIndex);
-                    OrderItem orderItem = new OrderItem(
-                        stockItem.getItemName(), 
-                        stockItem.getItemPrice(), 
-                        getRandomInt(1, 3)
-                    );
-                    items.add(orderItem);
-                }
-                
-                CreditCard creditCard = new CreditCard("1234 5678 1234 5678", "12/25");
-                Payment payment = new Payment(creditCard);
-                Order order = new Order(items, payment);
-                
-                // Make some orders invalid
-                if (i < numInvalidOrders) {
-                    makeOrderInvalid(order);
-                }
-                
-                orders.add(order);
-            }
-            
-            return orders;
+            OrderGenerator generator = newOrderGenerator(ThreadLocalRandom.current().nextLong());
+            generator.setInvalidPercentage(invalidPercentage);
+            return generator.generate(count);
         } catch (IOException e) {
             logger.error("Failed to generate orders", e);
             return getDefaultOrders();
         }
     }
+
+    /**
+     * Create a generator of orders for the items in the stock database.
+     */
+    public static OrderGenerator newOrderGenerator(long seed) throws IOException {
+        return new OrderGenerator(loadStockTable(), seed);
+    }
     
     /**
      * Run multiple workflows concurrently.
      */
     public static void runWorkflows(WorkflowClient client, String taskQueue, List<Order> orders) {
+        runWorkflows(client, taskQueue, orders, false);
+    }
+
+    /**
+     * Run multiple workflows concurrently, optionally starting each one already approved so
+     * high-value orders don't wait for an approval signal. Each order gets its deterministic
+     * workflow ID; repeats within the list are skipped, and orders already started earlier are
+     * attached to rather than started again.
+     */
+    public static void runWorkflows(WorkflowClient client, String taskQueue, List<Order> orders, boolean preApproved) {
+        runWorkflows(client, ShardRouter.unsharded(taskQueue), orders, preApproved);
+    }
+
+    /**
+     * Run multiple workflows concurrently, each on the order task queue of its shard.
+     */
+    public static void runWorkflows(WorkflowClient client, ShardRouter router, List<Order> orders, boolean preApproved) {
+        List<String> workflowIds = new ArrayList<>();
         List<CompletableFuture<String>> futures = new ArrayList<>();
+        StartDedupCache started = new StartDedupCache(Math.max(orders.size(), 1));
         
-        for (int i = 0; i < orders.size(); i++) {
-            Order order = orders.get(i);
-            String workflowId = String.format("order-fulfill-%d-%d", i, Instant.now().toEpochMilli());
-            
-            WorkflowOptions options = WorkflowOptions.newBuilder()
-                    .setTaskQueue(taskQueue)
-                    .setWorkflowId(workflowId)
-                    .build();
-            
-            OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, options);
+        for (Order order : orders) {
+            String workflowId = OrderIdentity.workflowId(order);
+            if (!started.firstSeen(workflowId)) {
+                logger.info("Skipping repeated order {}", workflowId);
+                continue;
+            }
+            WorkflowOptions options = OrderIdentity.workflowOptions(router.orderQueueFor(workflowId), workflowId);
             
             // Execute workflow asynchronously
             CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
                 try {
-                    return workflow.fulfillOrder(order);
+                    return startOrAttach(client, options, order, preApproved).getResult(String.class);
                 } catch (Exception e) {
                     logger.error("Workflow {} failed", workflowId, e);
                     throw new RuntimeException(e);
                 }
             });
             
+            workflowIds.add(workflowId);
             futures.add(future);
         }
         
@@ -126,54 +124,96 @@ public class OrderStarter {
         for (int i = 0; i < futures.size(); i++) {
             try {
                 String result = futures.get(i).get(30, TimeUnit.SECONDS);
-                logger.info("Workflow {} succeeded with result: {}", i + 1, result);
+                logger.info("Workflow {} succeeded with result: {}", workflowIds.get(i), result);
             } catch (Exception e) {
-                logger.error("Workflow {} failed with reason: {}", i + 1, e.getMessage());
+                logger.error("Workflow {} failed with reason: {}", workflowIds.get(i), e.getMessage());
             }
         }
     }
-    
+
     /**
-     * Make an order invalid by adding @@@ to item name.
+     * Create a bounded pool of platform threads for fanning out blocking client RPCs.
+     * Virtual threads are not used here: on JDK 21 one that blocks inside gRPC's synchronized
+     * transport code pins its carrier thread, which can deadlock against the in-process test server.
      */
-    private static void makeOrderInvalid(Order order) {
-        if (!order.getItems().isEmpty()) {
-            OrderItem firstItem = order.getItems().get(0);
-            firstItem.setItemName(firstItem.getItemName() + "@@@");
+    static ExecutorService newRpcExecutor(int maxConcurrency) {
+        return Executors.newFixedThreadPool(Math.min(maxConcurrency, MAX_RPC_THREADS));
+    }
+
+    /**
+     * Start the workflow for an order with options from {@link OrderIdentity#workflowOptions},
+     * or return a stub for the workflow already started for it.
+     */
+    public static WorkflowStub startOrAttach(WorkflowClient client, WorkflowOptions options, Order order,
+                                             boolean preApproved) {
+        try {
+            return startOrder(client, options, order, preApproved);
+        } catch (WorkflowExecutionAlreadyStarted e) {
+            logger.info("Order {} was already started, waiting for its result", options.getWorkflowId());
+            return client.newUntypedWorkflowStub(options.getWorkflowId());
         }
     }
-    
+
     /**
-     * Get random integer in range [min, max].
+     * Start the workflow for an order, throwing {@link WorkflowExecutionAlreadyStarted} if the
+     * ID reuse or conflict policy in the options rejects it.
      */
-    private static int getRandomInt(int min, int max) {
-        return random.nextInt(max - min + 1) + min;
+    static WorkflowStub startOrder(WorkflowClient client, WorkflowOptions options, Order order, boolean preApproved) {
+        if (preApproved) {
+            return OrderApprover.startApproved(client, options, order);
+        }
+        OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class, options);
+        WorkflowClient.start(workflow::fulfillOrder, order);
+        return WorkflowStub.fromTyped(workflow);
     }
     
     /**
-     * Load stock database from JSON file.
+     * Run all orders through a single batch workflow, sending them to batched activities
+     * in chunks of the given size. The orders are staged in the given order store, which the
+     * workers must share, and the workflow only carries references to them.
      */
-    private static List<StockItem> loadStockDatabase() throws IOException {
-        String stockDatabasePath = "resources/data/stock_database.json";
-        
+    public static void runBatchWorkflow(WorkflowClient client, String taskQueue, OrderStore orderStore,
+                                        List<Order> orders, int chunkSize) throws IOException {
+        String workflowId = String.format("order-fulfill-batch-%d", Instant.now().toEpochMilli());
+        for (int i = 0; i < orders.size(); i++) {
+            orderStore.put(OrderBatch.orderKey(workflowId, i), orders.get(i));
+        }
+
+        WorkflowOptions options = WorkflowOptions.newBuilder()
+                .setTaskQueue(taskQueue)
+                .setWorkflowId(workflowId)
+                .build();
+
+        BatchOrderFulfillWorkflow workflow = client.newWorkflowStub(BatchOrderFulfillWorkflow.class, options);
+        OrderBatch batch = new OrderBatch(workflowId, orders.size(), chunkSize, OrderBatch.DEFAULT_ORDERS_PER_RUN);
+
         try {
-            // Try to read from the file system first
-            if (Files.exists(Paths.get(stockDatabasePath))) {
-                byte[] jsonData = Files.readAllBytes(Paths.get(stockDatabasePath));
-                return objectMapper.readValue(jsonData, new TypeReference<List<StockItem>>() {});
+            OrderBatch result = workflow.fulfillOrders(batch);
+            logger.info("Batch workflow {} fulfilled {} of {} orders, {} failed, {} held for approval",
+                    workflowId, result.getSucceeded(), result.getOrderCount(), result.getFailed(),
+                    result.getHeldForApproval());
+            if (!result.getFailedOrders().isEmpty()) {
+                logger.warn("Failed orders of batch {}: {}", workflowId, result.getFailedOrders());
             }
-            
-            // Fall back to reading from classpath
-            try (InputStream inputStream = OrderStarter.class.getClassLoader()
-                    .getResourceAsStream(stockDatabasePath)) {
-                if (inputStream == null) {
-                    throw new IOException("Could not find stock database file: " + stockDatabasePath);
-                }
-                return objectMapper.readValue(inputStream, new TypeReference<List<StockItem>>() {});
+            if (!result.getHeldOrders().isEmpty()) {
+                logger.info("Orders of batch {} held for approval, kept in the order store as {}-<index>: {}",
+                        workflowId, workflowId, result.getHeldOrders());
             }
+        } catch (Exception e) {
+            logger.error("Batch workflow {} failed", workflowId, e);
+        }
+    }
+
+    /**
+     * Load the stock database by column, so million-SKU catalogs stay compact.
+     */
+    private static ColumnarStockTable loadStockTable() throws IOException {
+        String stockDatabasePath = Shared.STOCK_DATABASE_PATH;
+        try {
+            return ColumnarStockTable.load(stockDatabasePath, false);
         } catch (IOException e) {
             logger.error("Failed to load stock database from {}", stockDatabasePath, e);
             throw e;
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package orderfulfillapp.starter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded record of the workflow IDs this client has already started, so repeats of an order
+ * within a replayed input skip the start RPC altogether. Least recently seen IDs are evicted
+ * first; a repeat that arrives after its ID was evicted still reaches the server, whose ID reuse
+ * policy rejects it, so the cache only saves RPCs and is never needed for correctness.
+ * A Bloom filter would be smaller, but its false positives would silently drop orders.
+ */
+public class StartDedupCache {
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final Map<String, Boolean> seen;
+    private long hits;
+
+    public StartDedupCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Record a workflow ID, returning {@code true} if it was not seen before and should be started.
+     */
+    public synchronized boolean firstSeen(String workflowId) {
+        if (seen.put(workflowId, Boolean.TRUE) == null) {
+            return true;
+        }
+        hits++;
+        return false;
+    }
+
+    /**
+     * Number of start RPCs skipped so far.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized int size() {
+        return seen.size();
+    }
+}
@@ -0,0 +1,243 @@
+package orderfulfillapp.starter;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import orderfulfillapp.model.ApprovalStatus;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.routing.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts one workflow per order as orders are read, for inputs too large to hold in memory.
+ * The reading thread takes a permit before each start and a permit is returned when the workflow
+ * finishes, so at most {@code maxInFlight} workflows run at once and reading pauses while the cap
+ * is reached. Nothing is kept per order after its start, so memory stays flat whatever the input size.
+ *
+ * A workflow parked for approval can wait for up to the approval timeout, so it must not hold its
+ * permit: unless orders are started pre-approved, each workflow still running after
+ * {@link #DEFAULT_APPROVAL_CHECK_INTERVAL} is asked for its approval status, and once it reports
+ * {@link ApprovalStatus#PENDING} its permit is returned and the run no longer waits for it.
+ *
+ * Orders get deterministic workflow IDs ({@link OrderIdentity}). Repeats of a recently started
+ * order are skipped without an RPC, and older repeats are rejected by the server and attached to;
+ * both are counted in the report.
+ */
+public class StreamingOrderStarter {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingOrderStarter.class);
+    static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+    static final Duration DEFAULT_APPROVAL_CHECK_INTERVAL = Duration.ofSeconds(5);
+    private static final long PROGRESS_INTERVAL = 10_000;
+
+    private final WorkflowClient client;
+    private final ShardRouter router;
+    private final int maxInFlight;
+    private final boolean preApproved;
+    private final StartDedupCache startedIds;
+    private Duration approvalCheckInterval = DEFAULT_APPROVAL_CHECK_INTERVAL;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder failedStarts = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder alreadyStarted = new LongAdder();
+    private final LongAdder parked = new LongAdder();
+
+    public StreamingOrderStarter(WorkflowClient client, String taskQueue, int maxInFlight, boolean preApproved) {
+        this(client, taskQueue, maxInFlight, preApproved, StartDedupCache.DEFAULT_CAPACITY);
+    }
+
+    public StreamingOrderStarter(WorkflowClient client, ShardRouter router, int maxInFlight, boolean preApproved) {
+        this(client, router, maxInFlight, preApproved, StartDedupCache.DEFAULT_CAPACITY);
+    }
+
+    public StreamingOrderStarter(WorkflowClient client, String taskQueue, int maxInFlight, boolean preApproved,
+                                 int dedupCapacity) {
+        this(client, ShardRouter.unsharded(taskQueue), maxInFlight, preApproved, dedupCapacity);
+    }
+
+    public StreamingOrderStarter(WorkflowClient client, ShardRouter router, int maxInFlight, boolean preApproved,
+                                 int dedupCapacity) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight must be positive");
+        }
+        this.client = client;
+        this.router = router;
+        this.maxInFlight = maxInFlight;
+        this.preApproved = preApproved;
+        this.startedIds = new StartDedupCache(dedupCapacity);
+    }
+
+    /**
+     * Set how long a workflow may run before it is asked whether it is parked for approval.
+     */
+    void setApprovalCheckInterval(Duration approvalCheckInterval) {
+        this.approvalCheckInterval = approvalCheckInterval;
+    }
+
+    /**
+     * Start a workflow for every order and wait until all of them have finished or are parked
+     * for approval.
+     *
+     * @return the number of workflows that completed successfully
+     */
+    public long run(Iterator<Order> orders) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long beginNanos = System.nanoTime();
+        long sequence = 0;
+
+        // Starting a workflow is a blocking RPC; the permits bound how many starts can queue up
+        ExecutorService starters = OrderStarter.newRpcExecutor(maxInFlight);
+        // Pre-approved orders never park, so they are never checked
+        ScheduledExecutorService approvalChecks = preApproved ? null : Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "approval-check");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            while (orders.hasNext()) {
+                Order order = orders.next();
+                sequence++;
+                String workflowId = OrderIdentity.workflowId(order);
+                if (!startedIds.firstSeen(workflowId)) {
+                    continue;
+                }
+                inFlight.acquire();
+                starters.execute(() -> start(workflowId, order, inFlight, approvalChecks));
+
+                if (sequence % PROGRESS_INTERVAL == 0) {
+                    logger.info("Read {} orders, {} completed, {} in flight",
+                            sequence, completed.sum(), maxInFlight - inFlight.availablePermits());
+                }
+            }
+
+            // Every permit is back once the last workflow has finished or parked
+            inFlight.acquire(maxInFlight);
+        } finally {
+            starters.shutdown();
+            if (approvalChecks != null) {
+                approvalChecks.shutdownNow();
+            }
+        }
+
+        double elapsedSeconds = (System.nanoTime() - beginNanos) / 1e9;
+        logger.info(String.format("Streamed %d orders in %.1fs (%.1f/s): %d completed, %d failed, %d failed to start, "
+                        + "%d parked for approval",
+                sequence, elapsedSeconds, sequence / elapsedSeconds,
+                completed.sum(), failed.sum(), failedStarts.sum(), parked.sum()));
+        logger.info("Start RPCs: {} sent, {} saved by the dedup cache; {} orders were already started",
+                started.sum() + alreadyStarted.sum() + failedStarts.sum(), startedIds.getHits(), alreadyStarted.sum());
+        return completed.sum();
+    }
+
+    private void start(String workflowId, Order order, Semaphore inFlight, ScheduledExecutorService approvalChecks) {
+        WorkflowOptions options = OrderIdentity.workflowOptions(router.orderQueueFor(workflowId), workflowId);
+
+        WorkflowStub stub;
+        try {
+            stub = OrderStarter.startOrder(client, options, order, preApproved);
+            started.increment();
+        } catch (WorkflowExecutionAlreadyStarted e) {
+            // Started by an earlier submission of the same order; wait for that one instead
+            stub = client.newUntypedWorkflowStub(workflowId);
+            alreadyStarted.increment();
+        } catch (Exception e) {
+            logger.error("Failed to start workflow {}: {}", workflowId, e.getMessage());
+            failedStarts.increment();
+            inFlight.release();
+            return;
+        }
+
+        // Returned once, by whichever comes first of the workflow finishing and it parking
+        AtomicBoolean permitHeld = new AtomicBoolean(true);
+        CompletableFuture<String> result = stub.getResultAsync(String.class);
+        if (approvalChecks != null) {
+            // Scheduled before the permit can be returned, so always before the checks are shut down
+            scheduleApprovalCheck(approvalChecks, workflowId, stub, result, () -> {
+                if (permitHeld.getAndSet(false)) {
+                    logger.info("Workflow {} is waiting for approval, no longer counted in flight", workflowId);
+                    parked.increment();
+                    inFlight.release();
+                }
+            });
+        }
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                completed.increment();
+            } else {
+                logger.warn("Workflow {} failed: {}", workflowId, error.getMessage());
+                failed.increment();
+            }
+            if (permitHeld.getAndSet(false)) {
+                inFlight.release();
+            } else {
+                parked.decrement();
+            }
+        });
+    }
+
+    private void scheduleApprovalCheck(ScheduledExecutorService approvalChecks, String workflowId, WorkflowStub stub,
+                                       CompletableFuture<String> result, Runnable onParked) {
+        approvalChecks.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            ApprovalStatus status;
+            try {
+                status = stub.query("getApprovalStatus", ApprovalStatus.class);
+            } catch (Exception e) {
+                logger.debug("Approval status query for {} failed: {}", workflowId, e.getMessage());
+                status = ApprovalStatus.NOT_CHECKED;
+            }
+            if (status == ApprovalStatus.PENDING) {
+                onParked.run();
+            } else if (status == ApprovalStatus.NOT_CHECKED) {
+                // Decided orders don't park again, so only undecided ones are checked again
+                scheduleApprovalCheck(approvalChecks, workflowId, stub, result, onParked);
+            }
+        }, approvalCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public long getStarted() {
+        return started.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum() + failedStarts.sum();
+    }
+
+    /**
+     * Number of workflows the run stopped waiting for because they were parked for approval.
+     */
+    public long getParkedForApproval() {
+        return parked.sum();
+    }
+
+    /**
+     * Number of orders whose workflow had been started before, by this or an earlier run.
+     */
+    public long getAlreadyStarted() {
+        return alreadyStarted.sum();
+    }
+
+    /**
+     * Number of repeated orders skipped by the dedup cache without a start RPC.
+     */
+    public long getSkippedRepeats() {
+        return startedIds.getHits();
+    }
+}
@@ -0,0 +1,63 @@
+package orderfulfillapp.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import orderfulfillapp.model.Order;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Order store keeping one JSON file per order in a directory, which can be shared by
+ * several workers on one host or mounted from shared storage.
+ * Files are written to a temporary name and moved into place, so readers never see a
+ * partially written order.
+ */
+public class FileOrderStore implements OrderStore {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path directory;
+
+    public FileOrderStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void put(String orderKey, Order order) throws IOException {
+        Path file = fileFor(orderKey);
+        Path temporary = Files.createTempFile(directory, ".order-", ".tmp");
+        try {
+            objectMapper.writeValue(temporary.toFile(), order);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public Order get(String orderKey) throws IOException {
+        try {
+            return objectMapper.readValue(Files.readAllBytes(fileFor(orderKey)), Order.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void remove(String orderKey) throws IOException {
+        Files.deleteIfExists(fileFor(orderKey));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path fileFor(String orderKey) {
+        // Workflow IDs may contain characters that are not safe in file names
+        return directory.resolve(URLEncoder.encode(orderKey, StandardCharsets.UTF_8) + ".json");
+    }
+}
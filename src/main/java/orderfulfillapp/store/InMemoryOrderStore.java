@@ -0,0 +1,34 @@
+package orderfulfillapp.store;
+
+import orderfulfillapp.model.Order;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order store held in the worker's memory.
+ * Only suitable for a single worker process: orders are lost when it restarts, and
+ * activities running on another worker cannot see them.
+ */
+public class InMemoryOrderStore implements OrderStore {
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String orderKey, Order order) {
+        orders.put(orderKey, order);
+    }
+
+    @Override
+    public Order get(String orderKey) {
+        return orders.get(orderKey);
+    }
+
+    @Override
+    public void remove(String orderKey) {
+        orders.remove(orderKey);
+    }
+
+    public int size() {
+        return orders.size();
+    }
+}
@@ -0,0 +1,36 @@
+package orderfulfillapp.store;
+
+import orderfulfillapp.model.Order;
+
+import java.io.IOException;
+
+/**
+ * Store for the orders being fulfilled, keyed by a compact order key.
+ * The workflow stores each order once and schedules activities with the key only, so
+ * activity events in the history stay small and do not carry card details. Every worker
+ * that runs order activities must see the same store, so with more than one worker
+ * process the store has to be shared.
+ */
+public interface OrderStore {
+
+    /**
+     * Type of the non-retryable failure an activity reports when its order is not in the store,
+     * e.g. because it was stored in memory on a worker that has since restarted.
+     */
+    String ORDER_NOT_FOUND_FAILURE = "OrderNotFound";
+
+    /**
+     * Store the order under the given key, replacing any order already stored under it.
+     */
+    void put(String orderKey, Order order) throws IOException;
+
+    /**
+     * Get the order stored under the given key, or null if there is none.
+     */
+    Order get(String orderKey) throws IOException;
+
+    /**
+     * Remove the order stored under the given key. Removing an unknown key is a no-op.
+     */
+    void remove(String orderKey) throws IOException;
+}
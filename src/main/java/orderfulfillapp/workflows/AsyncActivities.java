@@ -0,0 +1,32 @@
+package orderfulfillapp.workflows;
+
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Helpers for calling activity stubs asynchronously from workflow code.
+ */
+final class AsyncActivities {
+
+    private AsyncActivities() {
+    }
+
+    /**
+     * Start an activity call asynchronously. Activity stubs only ever throw unchecked failures,
+     * but their interfaces declare checked exceptions, so those are wrapped here.
+     */
+    static <R> Promise<R> start(Callable<R> activity) {
+        return Async.function(() -> {
+            try {
+                return activity.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw Workflow.wrap(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package orderfulfillapp.workflows;
+
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import orderfulfillapp.model.OrderBatch;
+
+/**
+ * Workflow interface for fulfilling many orders in one workflow execution.
+ */
+@WorkflowInterface
+public interface BatchOrderFulfillWorkflow {
+
+    /**
+     * Fulfill every order staged for the batch and return the batch with its final counts.
+     */
+    @WorkflowMethod
+    OrderBatch fulfillOrders(OrderBatch batch);
+}
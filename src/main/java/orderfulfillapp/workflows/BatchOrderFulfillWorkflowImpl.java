@@ -0,0 +1,180 @@
+package orderfulfillapp.workflows;
+
+import io.temporal.activity.ActivityOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+import orderfulfillapp.activities.BatchOrderFulfillActivities;
+import orderfulfillapp.model.OrderBatch;
+import orderfulfillapp.model.OrderResult;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Implementation of the batch order fulfillment workflow.
+ * Orders are read from the order store in chunks, with one batched activity call per step and
+ * chunk, following the same flow as {@link OrderFulfillWorkflowImpl}: payment and reservation in
+ * parallel, compensation of whichever one succeeded if the other failed, then delivery.
+ *
+ * A batch can't wait for approval signals order by order, so orders the approval rules flag are
+ * held out of the batch and left in the order store, to be resubmitted as single orders.
+ *
+ * The batch keeps counts and the indexes of the orders that failed or were held, and the reason
+ * each order failed is logged. After
+ * {@link OrderBatch#getOrdersPerRun()} orders the workflow continues as new to cap its history size.
+ */
+public class BatchOrderFulfillWorkflowImpl implements BatchOrderFulfillWorkflow {
+    private static final Logger logger = Workflow.getLogger(BatchOrderFulfillWorkflowImpl.class);
+
+    // Batched calls do more work per call, so allow them more time than single-order activities
+    private final ActivityOptions activityOptions = ActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private final BatchOrderFulfillActivities activities =
+            Workflow.newActivityStub(BatchOrderFulfillActivities.class, activityOptions);
+
+    @Override
+    public OrderBatch fulfillOrders(OrderBatch batch) {
+        int chunkSize = Math.max(1, batch.getChunkSize());
+        int runEnd = Math.min(batch.getOrderCount(), batch.getNextOrder() + Math.max(1, batch.getOrdersPerRun()));
+
+        for (int start = batch.getNextOrder(); start < runEnd; start += chunkSize) {
+            int end = Math.min(start + chunkSize, runEnd);
+            fulfillChunk(batch, start, end);
+            batch.setNextOrder(end);
+        }
+
+        if (runEnd < batch.getOrderCount()) {
+            logger.info("Processed {} orders, continuing as new with {} remaining",
+                    runEnd, batch.getOrderCount() - runEnd);
+            return Workflow.newContinueAsNewStub(BatchOrderFulfillWorkflow.class).fulfillOrders(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * Fulfill the batch orders with indexes {@code start} to {@code end - 1} and add their outcomes
+     * to the batch. Orders held for approval stay in the order store, the others are discarded.
+     */
+    private void fulfillChunk(OrderBatch batch, int start, int end) {
+        List<String> chunkKeys = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            chunkKeys.add(OrderBatch.orderKey(batch.getBatchId(), i));
+        }
+
+        // Hold out the orders that need approval
+        List<Boolean> approvals = activities.requireApprovals(chunkKeys);
+        List<String> orderKeys = new ArrayList<>(chunkKeys.size());
+        List<Integer> orderIndexes = new ArrayList<>(chunkKeys.size());
+        for (int i = 0; i < chunkKeys.size(); i++) {
+            if (approvals.get(i)) {
+                logger.info("Order {} requires approval, holding it out of the batch", chunkKeys.get(i));
+                batch.addHeldOrder(start + i);
+            } else {
+                orderKeys.add(chunkKeys.get(i));
+                orderIndexes.add(start + i);
+            }
+        }
+
+        if (!orderKeys.isEmpty()) {
+            for (OrderResult result : fulfill(orderKeys, orderIndexes)) {
+                if (result.isSuccess()) {
+                    batch.setSucceeded(batch.getSucceeded() + 1);
+                } else {
+                    logger.warn("Order {} of batch {}: {}", result.getOrderIndex(), batch.getBatchId(), result.getMessage());
+                    batch.addFailedOrder(result.getOrderIndex());
+                }
+            }
+            activities.discardOrders(orderKeys);
+        }
+    }
+
+    /**
+     * Fulfill the given orders and return one result per order, in input order.
+     */
+    private List<OrderResult> fulfill(List<String> orderKeys, List<Integer> orderIndexes) {
+        int size = orderKeys.size();
+
+        // Payment and inventory reservation are independent, so execute them in parallel
+        Promise<List<OrderResult>> paymentPromise = Async.function(activities::processPayments, orderKeys);
+        Promise<List<OrderResult>> inventoryPromise =
+                AsyncActivities.start(() -> activities.reserveInventoryBatch(orderKeys));
+        List<OrderResult> payments = settle(paymentPromise, size);
+        List<OrderResult> reservations = settle(inventoryPromise, size);
+
+        // Compensate orders where only one branch succeeded, deliver the ones where both did
+        OrderResult[] results = new OrderResult[size];
+        List<String> toRefund = new ArrayList<>();
+        List<String> toRelease = new ArrayList<>();
+        List<String> toDeliver = new ArrayList<>();
+        List<Integer> deliveryIndexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            OrderResult payment = payments.get(i);
+            OrderResult reservation = reservations.get(i);
+            if (payment.isSuccess() && reservation.isSuccess()) {
+                toDeliver.add(orderKeys.get(i));
+                deliveryIndexes.add(i);
+                continue;
+            }
+            if (payment.isSuccess()) {
+                toRefund.add(orderKeys.get(i));
+            }
+            if (reservation.isSuccess()) {
+                toRelease.add(orderKeys.get(i));
+            }
+            results[i] = failed(orderIndexes.get(i), payment.isSuccess() ? reservation : payment);
+        }
+
+        List<OrderResult> deliveries = toDeliver.isEmpty()
+                ? Collections.emptyList()
+                : settle(Async.function(activities::deliverOrders, toDeliver), toDeliver.size());
+        for (int d = 0; d < deliveryIndexes.size(); d++) {
+            int i = deliveryIndexes.get(d);
+            OrderResult delivery = deliveries.get(d);
+            if (delivery.isSuccess()) {
+                results[i] = new OrderResult(orderIndexes.get(i), true, "Order fulfilled");
+            } else {
+                toRefund.add(orderKeys.get(i));
+                toRelease.add(orderKeys.get(i));
+                results[i] = failed(orderIndexes.get(i), delivery);
+            }
+        }
+
+        List<Promise<List<OrderResult>>> compensations = new ArrayList<>();
+        if (!toRefund.isEmpty()) {
+            compensations.add(Async.function(activities::refundPayments, toRefund));
+        }
+        if (!toRelease.isEmpty()) {
+            compensations.add(AsyncActivities.start(() -> activities.releaseInventoryBatch(toRelease)));
+        }
+        Promise.allOf(compensations).get();
+
+        List<OrderResult> fulfilled = new ArrayList<>(size);
+        Collections.addAll(fulfilled, results);
+        return fulfilled;
+    }
+
+    private static OrderResult failed(int orderIndex, OrderResult cause) {
+        return new OrderResult(orderIndex, false, "Order fulfillment failed: " + cause.getMessage());
+    }
+
+    /**
+     * Wait for a batched activity call. If the whole call failed, every order in it is reported
+     * as failed with the activity's failure message.
+     */
+    private static List<OrderResult> settle(Promise<List<OrderResult>> promise, int size) {
+        try {
+            return promise.get();
+        } catch (ActivityFailure e) {
+            logger.error("Batched activity failed", e);
+            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            return Collections.nCopies(size, OrderResult.failed(message));
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package orderfulfillapp.workflows;
 
+import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.SignalMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
+import orderfulfillapp.model.ApprovalStatus;
 import orderfulfillapp.model.Order;
 
 /**
@@ -16,4 +19,20 @@ public interface OrderFulfillWorkflow {
      */
     @WorkflowMethod
     String fulfillOrder(Order order);
-} 
\ No newline at end of file
+
+    /**
+     * Approve an order that requires approval. Only the first decision counts, and a decision
+     * sent before the workflow gets to the approval check (e.g. with signal-with-start) is kept.
+     */
+    @SignalMethod
+    void approve();
+
+    /**
+     * Reject an order that requires approval, failing the workflow.
+     */
+    @SignalMethod
+    void reject(String reason);
+
+    @QueryMethod
+    ApprovalStatus getApprovalStatus();
+}
@@ -1,18 +1,49 @@
 package orderfulfillapp.workflows;
 
 import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.api.enums.v1.RetryState;
+import io.temporal.api.enums.v1.TimeoutType;
 import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.failure.TimeoutFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Saga;
 import io.temporal.workflow.Workflow;
+import orderfulfillapp.Shared;
+import orderfulfillapp.activities.InventoryActivities;
 import orderfulfillapp.activities.OrderFulfillActivities;
+import orderfulfillapp.config.ApprovalPolicy;
 import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.exception.PaymentDeclinedException;
+import orderfulfillapp.model.ApprovalStatus;
 import orderfulfillapp.model.Order;
+import orderfulfillapp.routing.ShardRouter;
+import orderfulfillapp.store.OrderStore;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Implementation of the order fulfillment workflow.
  * Corresponds to the TypeScript workflows.ts implementation.
+ *
+ * Cheap, deterministic steps such as the approval check run inline or as local activities,
+ * as chosen by the {@link ApprovalPolicy}; calls to payment, inventory and delivery stay normal
+ * activities so they get their own timeouts, retries and task queue.
+ *
+ * With a sharded {@link ShardRouter}, or with dedicated inventory workers, inventory is reserved
+ * on each inventory shard holding some of the order's items, in parallel, instead of on the
+ * workflow's own task queue. Each shard's reservation and its release go to the same inventory
+ * host, through that host's own task queue.
  */
 public class OrderFulfillWorkflowImpl implements OrderFulfillWorkflow {
 
@@ -20,7 +51,9 @@ public class OrderFulfillWorkflowImpl implements OrderFulfillWorkflow {
     private final ActivityOptions activityOptions = ActivityOptions.newBuilder()
             .setStartToCloseTimeout(Duration.ofSeconds(5))
             .setRetryOptions(RetryOptions.newBuilder()
-                    .setDoNotRetry(CreditCardExpiredException.class.getName())
+                    .setDoNotRetry(CreditCardExpiredException.class.getName(),
+                            PaymentDeclinedException.class.getName(),
+                            InsufficientStockException.class.getName())
                     .build())
             .build();
 
@@ -28,21 +61,297 @@ public class OrderFulfillWorkflowImpl implements OrderFulfillWorkflow {
     private final OrderFulfillActivities activities = 
             Workflow.newActivityStub(OrderFulfillActivities.class, activityOptions);
 
+    // Deliveries can take much longer than the other activities, so they heartbeat their progress
+    // instead, and one that stops heartbeating is retried from its last leg
+    private final OrderFulfillActivities deliveryActivities = Workflow.newActivityStub(
+            OrderFulfillActivities.class,
+            activityOptions.toBuilder()
+                    .setStartToCloseTimeout(Duration.ofHours(1))
+                    .setHeartbeatTimeout(Duration.ofSeconds(10))
+                    .build());
+
+    // Storing and discarding the order only touch the worker's order store, so run them locally
+    private final OrderFulfillActivities localActivities = Workflow.newLocalActivityStub(
+            OrderFulfillActivities.class,
+            LocalActivityOptions.newBuilder()
+                    .setStartToCloseTimeout(Duration.ofSeconds(5))
+                    .build());
+
+    // Key of the single reservation made when inventory is not sharded
+    private static final int UNSHARDED = -1;
+
+    // An inventory host that doesn't pick up a task by then is presumed gone or overloaded
+    private static final Duration HOST_SCHEDULE_TO_START_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ApprovalPolicy approvalPolicy;
+    private final ShardRouter router;
+    // Host queue of each inventory shard's reservation
+    private final Map<Integer, String> inventoryHosts = new HashMap<>();
+    private ApprovalStatus approvalStatus = ApprovalStatus.NOT_CHECKED;
+    // Set by the first approve or reject signal
+    private ApprovalStatus decision;
+    private String rejectionReason;
+
+    public OrderFulfillWorkflowImpl() {
+        this(ApprovalPolicy.defaults());
+    }
+
+    public OrderFulfillWorkflowImpl(ApprovalPolicy approvalPolicy) {
+        this(approvalPolicy, ShardRouter.unsharded(Shared.ORDER_FULFILL_TASK_QUEUE));
+    }
+
+    public OrderFulfillWorkflowImpl(ApprovalPolicy approvalPolicy, ShardRouter router) {
+        this.approvalPolicy = approvalPolicy;
+        this.router = router;
+    }
+
     @Override
     public String fulfillOrder(Order order) {
+        // Activities are scheduled with the order key only, and load the order from the store
+        String orderKey = localActivities.storeOrder(order);
+
+        // Compensations run in reverse order of registration if a later step fails
+        Saga saga = new Saga(new Saga.Options.Builder().build());
         try {
-            // Execute activities in parallel, just like the TypeScript version
-            String paymentResult = activities.processPayment(order);
-            String inventoryResult = activities.reserveInventory(order);
-            String deliveryResult = activities.deliverOrder(order);
+            awaitApprovalIfRequired(order, orderKey);
+
+            // Payment and inventory reservation are independent, so execute them in parallel
+            Promise<String> paymentPromise =
+                    Async.function(() -> withStoredOrder(order, () -> activities.processPayment(orderKey)));
+            Map<Integer, Promise<String>> reservations = startReservations(order, orderKey);
+
+            // Wait for all branches to settle, so each one that succeeded can be compensated
+            ActivityFailure failure = null;
+            String paymentResult = null;
+            List<String> inventoryResults = new ArrayList<>();
+            try {
+                paymentResult = paymentPromise.get();
+                saga.addCompensation(() -> withStoredOrder(order, () -> activities.refundPayment(orderKey)));
+            } catch (ActivityFailure e) {
+                failure = e;
+            }
+            for (Map.Entry<Integer, Promise<String>> reservation : reservations.entrySet()) {
+                try {
+                    inventoryResults.add(reservation.getValue().get());
+                    int shard = reservation.getKey();
+                    saga.addCompensation(() -> releaseReservation(order, orderKey, shard));
+                } catch (ActivityFailure e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            String inventoryResult = String.join(", ", inventoryResults);
+
+            // Only deliver once the order is both paid for and reserved
+            String deliveryResult = withStoredOrder(order, () -> deliveryActivities.deliverOrder(orderKey));
             
             return String.format("Order fulfilled: %s, %s, %s", 
                     paymentResult, inventoryResult, deliveryResult);
         } catch (Exception e) {
-            // Log the error and re-throw as runtime exception for Temporal to handle
+            saga.compensate();
+
+            // Log the error and re-throw as an application failure so the workflow fails
+            // instead of retrying the workflow task
             Workflow.getLogger(OrderFulfillWorkflowImpl.class)
                     .error("Order fulfillment failed for order: {}", order, e);
-            throw new RuntimeException("Order fulfillment failed: " + e.getMessage(), e);
+            throw ApplicationFailure.newFailureWithCause(
+                    "Order fulfillment failed: " + e.getMessage(), "OrderFulfillmentFailed", e);
+        } finally {
+            localActivities.discardOrder(orderKey);
+        }
+    }
+
+    @Override
+    public void approve() {
+        if (decision == null) {
+            decision = ApprovalStatus.APPROVED;
+        }
+    }
+
+    @Override
+    public void reject(String reason) {
+        if (decision == null) {
+            decision = ApprovalStatus.REJECTED;
+            rejectionReason = reason;
+        }
+    }
+
+    @Override
+    public ApprovalStatus getApprovalStatus() {
+        return approvalStatus;
+    }
+
+    /**
+     * Park the workflow until an approve or reject signal arrives, if the order requires approval.
+     * A parked workflow holds no worker thread: once its workflow task completes it only lives in
+     * the sticky cache, from which it is evicted under pressure and replayed when the signal comes.
+     */
+    private void awaitApprovalIfRequired(Order order, String orderKey) {
+        if (!requiresApproval(order, orderKey)) {
+            approvalStatus = ApprovalStatus.NOT_REQUIRED;
+            return;
+        }
+
+        approvalStatus = ApprovalStatus.PENDING;
+        Workflow.getLogger(OrderFulfillWorkflowImpl.class)
+                .info("Order over ${} requires approval, waiting up to {}", approvalPolicy.getThreshold(),
+                        approvalPolicy.getTimeout());
+        if (!Workflow.await(approvalPolicy.getTimeout(), () -> decision != null)) {
+            approvalStatus = ApprovalStatus.TIMED_OUT;
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Order was not approved within " + approvalPolicy.getTimeout(), "ApprovalTimedOut");
+        }
+
+        approvalStatus = decision;
+        if (decision == ApprovalStatus.REJECTED) {
+            throw ApplicationFailure.newNonRetryableFailure("Order rejected: " + rejectionReason, "OrderRejected");
+        }
+    }
+
+    /**
+     * Start reserving the order's inventory: one reservation on the workflow's task queue, or
+     * one per inventory shard that holds some of the order's items.
+     */
+    private Map<Integer, Promise<String>> startReservations(Order order, String orderKey) {
+        Map<Integer, Promise<String>> reservations = new LinkedHashMap<>();
+        if (!router.routesInventory()) {
+            reservations.put(UNSHARDED,
+                    Async.function(() -> withStoredOrder(order, () -> activities.reserveInventory(orderKey))));
+            return reservations;
+        }
+        for (int shard : router.inventoryShardsFor(order)) {
+            reservations.put(shard, Async.function(() -> reserveOnHost(order, orderKey, shard)));
+        }
+        return reservations;
+    }
+
+    /**
+     * Pick a host of the shard and reserve there. The first attempt on a host must start within
+     * {@link #HOST_SCHEDULE_TO_START_TIMEOUT}; a host that stopped polling, or is too far behind,
+     * times out before anything was reserved, so a host is picked again. Like the shard queue
+     * itself, this waits for as long as no host keeps up.
+     *
+     * Once an attempt has started, the host may hold the reservation even if the attempt failed,
+     * so the order stays with that host and retries there, waiting for it if it goes down.
+     */
+    private String reserveOnHost(Order order, String orderKey, int shard) {
+        while (true) {
+            String hostQueue = shardInventoryActivities(shard).getHostTaskQueue();
+            inventoryHosts.put(shard, hostQueue);
+            try {
+                return withStoredOrder(order,
+                        () -> firstAttemptInventoryActivities(hostQueue).reserveShardInventory(orderKey, shard));
+            } catch (ActivityFailure e) {
+                if (!isScheduleToStartTimeout(e)) {
+                    if (e.getRetryState() == RetryState.RETRY_STATE_NON_RETRYABLE_FAILURE) {
+                        throw e;
+                    }
+                    Workflow.getLogger(OrderFulfillWorkflowImpl.class)
+                            .warn("Reservation on inventory host {} failed, retrying on the same host", hostQueue);
+                    return withStoredOrder(order,
+                            () -> hostInventoryActivities(hostQueue).reserveShardInventory(orderKey, shard));
+                }
+                Workflow.getLogger(OrderFulfillWorkflowImpl.class)
+                        .warn("Inventory host {} did not respond, picking another", hostQueue);
+            }
+        }
+    }
+
+    /**
+     * Release the order's reservation. A shard's reservation is only held by the host that made
+     * it, so the release goes to that host and waits for it, however long it is down.
+     */
+    private String releaseReservation(Order order, String orderKey, int shard) {
+        if (shard == UNSHARDED) {
+            return withStoredOrder(order, () -> activities.releaseInventory(orderKey));
+        }
+        return hostInventoryActivities(inventoryHosts.get(shard)).releaseShardInventory(orderKey, shard);
+    }
+
+    /**
+     * Run an activity that loads the order from the order store. If the store doesn't have it,
+     * as with an in-memory store on a worker that restarted since the order was stored, the order
+     * is stored again from the workflow input and the activity called once more.
+     */
+    private <R> R withStoredOrder(Order order, Callable<R> activity) {
+        boolean restored = false;
+        while (true) {
+            try {
+                return activity.call();
+            } catch (ActivityFailure e) {
+                if (restored || !isOrderNotFound(e)) {
+                    throw e;
+                }
+                Workflow.getLogger(OrderFulfillWorkflowImpl.class)
+                        .warn("Order missing from the order store, storing it again");
+                localActivities.storeOrder(order);
+                restored = true;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw Workflow.wrap(e);
+            }
+        }
+    }
+
+    private static boolean isOrderNotFound(ActivityFailure e) {
+        return e.getCause() instanceof ApplicationFailure
+                && OrderStore.ORDER_NOT_FOUND_FAILURE.equals(((ApplicationFailure) e.getCause()).getType());
+    }
+
+    /**
+     * Activities on the shard's queue, polled by every inventory host of the shard. They wait
+     * for a host however long it takes.
+     */
+    private InventoryActivities shardInventoryActivities(int shard) {
+        return Workflow.newActivityStub(InventoryActivities.class, activityOptions.toBuilder()
+                .setTaskQueue(router.inventoryQueue(shard))
+                .build());
+    }
+
+    /**
+     * Activities on one host's queue. They wait for the host however long it takes.
+     */
+    private InventoryActivities hostInventoryActivities(String hostQueue) {
+        return Workflow.newActivityStub(InventoryActivities.class, activityOptions.toBuilder()
+                .setTaskQueue(hostQueue)
+                .build());
+    }
+
+    /**
+     * A single attempt on one host's queue, which times out if the host doesn't start it in time.
+     * A retry could time out the same way after an earlier attempt reserved, hence one attempt.
+     */
+    private InventoryActivities firstAttemptInventoryActivities(String hostQueue) {
+        return Workflow.newActivityStub(InventoryActivities.class, activityOptions.toBuilder()
+                .setTaskQueue(hostQueue)
+                .setScheduleToStartTimeout(HOST_SCHEDULE_TO_START_TIMEOUT)
+                .setRetryOptions(RetryOptions.newBuilder(activityOptions.getRetryOptions())
+                        .setMaximumAttempts(1)
+                        .build())
+                .build());
+    }
+
+    private static boolean isScheduleToStartTimeout(ActivityFailure e) {
+        return e.getCause() instanceof TimeoutFailure
+                && ((TimeoutFailure) e.getCause()).getTimeoutType() == TimeoutType.TIMEOUT_TYPE_SCHEDULE_TO_START;
+    }
+
+    /**
+     * Run the approval check where the policy says: inline, as a local activity, or as a
+     * normal activity.
+     */
+    private boolean requiresApproval(Order order, String orderKey) {
+        switch (approvalPolicy.getMode()) {
+            case INLINE:
+                return approvalPolicy.requiresApproval(order);
+            case REMOTE:
+                return withStoredOrder(order, () -> activities.requireApproval(orderKey));
+            case LOCAL:
+            default:
+                return withStoredOrder(order, () -> localActivities.requireApproval(orderKey));
         }
     }
-} 
\ No newline at end of file
+}
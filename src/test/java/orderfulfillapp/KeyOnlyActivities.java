@@ -0,0 +1,27 @@
+package orderfulfillapp;
+
+import orderfulfillapp.activities.OrderFulfillActivitiesImpl;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.store.InMemoryOrderStore;
+
+/**
+ * Activities that store orders for real but do no other work, to inspect what the workflow schedules.
+ */
+public class KeyOnlyActivities extends StubActivities {
+    private final OrderFulfillActivitiesImpl storeActivities;
+
+    public KeyOnlyActivities(InMemoryOrderStore orderStore) {
+        super(0, null);
+        this.storeActivities = new OrderFulfillActivitiesImpl(orderStore);
+    }
+
+    @Override
+    public String storeOrder(Order order) {
+        return storeActivities.storeOrder(order);
+    }
+
+    @Override
+    public void discardOrder(String orderKey) {
+        storeActivities.discardOrder(orderKey);
+    }
+}
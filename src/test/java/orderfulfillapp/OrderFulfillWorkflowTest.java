@@ -1,24 +1,54 @@
 package orderfulfillapp;
 
 import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowFailedException;
+import io.temporal.client.WorkflowStub;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.testing.TestWorkflowRule;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import orderfulfillapp.activities.BatchOrderFulfillActivitiesImpl;
 import orderfulfillapp.activities.OrderFulfillActivities;
 import orderfulfillapp.activities.OrderFulfillActivitiesImpl;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.converter.OrderDataConverter;
 import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.ApprovalStatus;
 import orderfulfillapp.model.CreditCard;
 import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderBatch;
 import orderfulfillapp.model.OrderItem;
 import orderfulfillapp.model.Payment;
+import orderfulfillapp.starter.OrderStarter;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.store.OrderStore;
+import orderfulfillapp.workflows.BatchOrderFulfillWorkflow;
+import orderfulfillapp.workflows.BatchOrderFulfillWorkflowImpl;
 import orderfulfillapp.workflows.OrderFulfillWorkflow;
 import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
-import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static orderfulfillapp.WorkflowTestSupport.*;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -54,10 +84,12 @@ public class OrderFulfillWorkflowTest {
         Order highValueOrder = createHighValueOrder();
         
         // Create activities instance to test approval logic
-        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        orderStore.put("order-1", highValueOrder);
+        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null);
         
         // Test approval requirement
-        boolean requiresApproval = activities.requireApproval(highValueOrder);
+        boolean requiresApproval = activities.requireApproval("order-1");
         assertTrue("High value order should require approval", requiresApproval);
     }
 
@@ -67,10 +99,12 @@ public class OrderFulfillWorkflowTest {
         Order lowValueOrder = createValidOrder();
         
         // Create activities instance to test approval logic
-        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        orderStore.put("order-1", lowValueOrder);
+        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null);
         
         // Test approval requirement
-        boolean requiresApproval = activities.requireApproval(lowValueOrder);
+        boolean requiresApproval = activities.requireApproval("order-1");
         assertFalse("Low value order should not require approval", requiresApproval);
     }
 
@@ -78,10 +112,12 @@ public class OrderFulfillWorkflowTest {
     public void testCreditCardExpiredThrowsException() {
         // Test expired credit card directly with activity
         Order order = createOrderWithExpiredCard();
-        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        orderStore.put("order-1", order);
+        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null);
         
         try {
-            activities.processPayment(order);
+            activities.processPayment("order-1");
             fail("Expected CreditCardExpiredException to be thrown");
         } catch (Exception e) {
             assertTrue("Should be CreditCardExpiredException", 
@@ -95,9 +131,11 @@ public class OrderFulfillWorkflowTest {
     public void testSuccessfulPaymentProcessing() throws Exception {
         // Test successful payment processing
         Order order = createValidOrder();
-        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        orderStore.put("order-1", order);
+        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null);
         
-        String result = activities.processPayment(order);
+        String result = activities.processPayment("order-1");
         assertNotNull("Result should not be null", result);
         assertTrue("Result should mention payment processed", 
                    result.contains("Payment processed"));
@@ -109,9 +147,11 @@ public class OrderFulfillWorkflowTest {
     public void testSuccessfulOrderDelivery() {
         // Test order delivery
         Order order = createValidOrder();
-        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        orderStore.put("order-1", order);
+        OrderFulfillActivitiesImpl activities = new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null);
         
-        String result = activities.deliverOrder(order);
+        String result = activities.deliverOrder("order-1");
         assertNotNull("Result should not be null", result);
         assertTrue("Result should mention order delivered", 
                    result.contains("Order delivered"));
@@ -125,11 +165,13 @@ public class OrderFulfillWorkflowTest {
         OrderFulfillActivities mockActivities = Mockito.mock(OrderFulfillActivities.class);
         
         // Configure mock behavior
-        when(mockActivities.processPayment(any(Order.class)))
+        when(mockActivities.storeOrder(any(Order.class)))
+                .thenReturn("order-1");
+        when(mockActivities.processPayment("order-1"))
                 .thenReturn("Mock payment processed for 1 items");
-        when(mockActivities.reserveInventory(any(Order.class)))
+        when(mockActivities.reserveInventory("order-1"))
                 .thenReturn("Mock inventory reserved for 1 items");
-        when(mockActivities.deliverOrder(any(Order.class)))
+        when(mockActivities.deliverOrder("order-1"))
                 .thenReturn("Mock order delivered for 1 items");
 
         // Create test workflow rule with mock activities
@@ -153,12 +195,12 @@ public class OrderFulfillWorkflowTest {
 
         // Verify mocks were called
         try {
-            verify(mockActivities, times(1)).processPayment(order);
-            verify(mockActivities, times(1)).reserveInventory(order);
+            verify(mockActivities, times(1)).processPayment("order-1");
+            verify(mockActivities, times(1)).reserveInventory("order-1");
         } catch (Exception e) {
             fail("Mock verification failed: " + e.getMessage());
         }
-        verify(mockActivities, times(1)).deliverOrder(order);
+        verify(mockActivities, times(1)).deliverOrder("order-1");
 
         // Verify result contains mock responses
         assertTrue("Result should contain mock payment response", 
@@ -174,7 +216,7 @@ public class OrderFulfillWorkflowTest {
     @Test
     public void testCreditCardMasking() {
         // Test credit card number masking
-        CreditCard creditCard = new CreditCard("1234567890123456", "12/25");
+        CreditCard creditCard = new CreditCard("1234567890123456", "12/30");
         String cardString = creditCard.toString();
         
         assertTrue("Card number should be masked", 
@@ -195,14 +237,331 @@ public class OrderFulfillWorkflowTest {
                      expectedTotal, order.getTotalAmount(), 0.01);
     }
 
+    @Test
+    public void testPaymentAndInventoryRunInParallel() {
+        // Each activity waits for the other to start, which only happens if they run at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+        StubActivities activities = new StubActivities(0, null) {
+            @Override
+            public String processPayment(String orderKey) {
+                overlapped.add(meet(bothStarted));
+                return super.processPayment(orderKey);
+            }
+
+            @Override
+            public String reserveInventory(String orderKey) throws Exception {
+                overlapped.add(meet(bothStarted));
+                return super.reserveInventory(orderKey);
+            }
+        };
+
+        String result = executeWorkflow(activities, createValidOrder());
+
+        assertTrue("Result should indicate fulfillment", result.contains("Order fulfilled"));
+        assertEquals("Payment and inventory should overlap", Arrays.asList(true, true), overlapped);
+        assertEquals("Delivery should start only after approval, payment and inventory",
+                     "DeliverOrder", activities.calls.toArray()[3]);
+    }
+
+    @Test
+    public void testFailedReservationRefundsPayment() {
+        StubActivities activities = new StubActivities(100,
+                new InsufficientStockException("Insufficient stock for item: Pima Cotton T-Shirt"));
+
+        try {
+            executeWorkflow(activities, createValidOrder());
+            fail("Expected workflow to fail");
+        } catch (WorkflowFailedException e) {
+            // Expected
+        }
+
+        assertTrue("Payment should be refunded", activities.calls.contains("RefundPayment"));
+        assertFalse("Nothing to release for a failed reservation", activities.calls.contains("ReleaseInventory"));
+        assertFalse("Order should not be delivered", activities.calls.contains("DeliverOrder"));
+    }
+
+    @Test
+    public void testBatchWorkflowCountsEveryOrderAcrossRuns() throws Exception {
+        List<Order> orders = Arrays.asList(
+                createValidOrder(),
+                createOrderWithExpiredCard(),
+                createValidOrder(),
+                createOrderWithUnknownItem(),
+                createHighValueOrder(),
+                createOrderWithMultipleItems());
+
+        // Run with the binary, compressing order encoding to cover batches carried across runs
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(WorkflowClientOptions.newBuilder()
+                        .setDataConverter(OrderDataConverter.newInstance())
+                        .build())
+                .build());
+        try {
+            OrderStore orderStore = new InMemoryOrderStore();
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(BatchOrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new BatchOrderFulfillActivitiesImpl(orderStore, defaultRules()));
+            testEnv.start();
+
+            String batchId = "test-batch-workflow-" + System.nanoTime();
+            for (int i = 0; i < orders.size(); i++) {
+                orderStore.put(OrderBatch.orderKey(batchId, i), orders.get(i));
+            }
+            BatchOrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(
+                    BatchOrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId(batchId)
+                            .build());
+
+            // Two orders per activity call, continuing as new after three orders
+            OrderBatch result = workflow.fulfillOrders(new OrderBatch(batchId, orders.size(), 2, 3));
+
+            assertEquals("Every order should be processed", orders.size(), result.getNextOrder());
+            assertEquals("Valid orders, including the one in the continued run, should succeed",
+                         3, result.getSucceeded());
+            assertEquals("Expired card and unknown item should fail", 2, result.getFailed());
+            assertEquals("Expired card and unknown item should fail", List.of(1, 3), result.getFailedOrders());
+            assertEquals("High-value order should be held for approval", 1, result.getHeldForApproval());
+            assertEquals("High-value order should be held for approval", List.of(4), result.getHeldOrders());
+            for (int i = 0; i < orders.size(); i++) {
+                if (i == 4) {
+                    assertNotNull("Held orders should stay in the store", orderStore.get(OrderBatch.orderKey(batchId, i)));
+                } else {
+                    assertNull("Processed orders should be discarded", orderStore.get(OrderBatch.orderKey(batchId, i)));
+                }
+            }
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testCompressionShrinksHistoryOfLargeOrders() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            items.add(new OrderItem("Low Top Sneaker (Men) size " + (i % 12), 67.00, 1 + i % 3));
+        }
+        Order largeOrder = new Order(items, createValidPayment());
+
+        long plainBytes = fulfillAndMeasureHistory(OrderDataConverter.newInstance(-1), largeOrder);
+        long compressedBytes = fulfillAndMeasureHistory(OrderDataConverter.newInstance(), largeOrder);
+
+        assertTrue("Compressed history should be much smaller", compressedBytes * 2 < plainBytes);
+    }
+
+    @Test
+    public void testActivitiesAreScheduledWithOrderKeys() throws Exception {
+        // A generated workload, with stores shared by the worker and the test
+        List<Order> orders = OrderStarter.generateOrders(20, 0);
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new KeyOnlyActivities(orderStore));
+            testEnv.start();
+
+            for (int i = 0; i < orders.size(); i++) {
+                String workflowId = "test-order-key-" + i + "-" + System.nanoTime();
+                OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                        WorkflowOptions.newBuilder()
+                                .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                                .setWorkflowId(workflowId)
+                                .build());
+                workflow.fulfillOrder(orders.get(i));
+
+                // The order key, which is the workflow ID, is all each scheduled activity carries
+                int scheduled = 0;
+                for (HistoryEvent event : testEnv.getWorkflowClient().fetchHistory(workflowId).getEvents()) {
+                    if (event.hasActivityTaskScheduledEventAttributes()) {
+                        Payloads input = event.getActivityTaskScheduledEventAttributes().getInput();
+                        assertEquals("Activities should be scheduled with one argument", 1, input.getPayloadsCount());
+                        assertEquals("Activities should be scheduled with the order key", workflowId,
+                                     DefaultDataConverter.STANDARD_INSTANCE.fromPayload(
+                                             input.getPayloads(0), String.class, String.class));
+                        scheduled++;
+                    }
+                }
+                assertTrue("Payment, inventory and delivery should be scheduled", scheduled >= 3);
+            }
+
+            assertEquals("Every order should be discarded when its workflow ends", 0, orderStore.size());
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testMissingOrderIsStoredAgain() {
+        // Lose the first store, as an in-memory store does when its worker restarts
+        AtomicBoolean lost = new AtomicBoolean();
+        InMemoryOrderStore orderStore = new InMemoryOrderStore() {
+            @Override
+            public void put(String orderKey, Order order) {
+                if (lost.compareAndSet(false, true)) {
+                    return;
+                }
+                super.put(orderKey, order);
+            }
+        };
+
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new OrderFulfillActivitiesImpl(orderStore, defaultRules(), null, null));
+            testEnv.start();
+
+            OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId("test-missing-order-" + System.nanoTime())
+                            .setWorkflowExecutionTimeout(Duration.ofSeconds(30))
+                            .build());
+            String result = workflow.fulfillOrder(createValidOrder());
+
+            assertTrue("The lost order should have been stored again", lost.get());
+            assertTrue("Order should be fulfilled: " + result, result.contains("Order delivered for 1 items"));
+            assertEquals("Order should be discarded when the workflow ends", 0, orderStore.size());
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testApprovalCheckRunsWhereThePolicySays() {
+        ApprovalPolicy.Mode[] modes = ApprovalPolicy.Mode.values();
+        int rounds = 5;
+
+        // One worker per mode on its own task queue
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Map<ApprovalPolicy.Mode, StubActivities> activities = new EnumMap<>(ApprovalPolicy.Mode.class);
+            for (ApprovalPolicy.Mode mode : modes) {
+                Worker worker = testEnv.newWorker("approval-" + mode);
+                ApprovalPolicy policy = new ApprovalPolicy(mode, ApprovalPolicy.DEFAULT_THRESHOLD);
+                worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                        () -> new OrderFulfillWorkflowImpl(policy));
+                activities.put(mode, new StubActivities(0, null));
+                worker.registerActivitiesImplementations(activities.get(mode));
+            }
+            testEnv.start();
+
+            // Markers, scheduled activities and workflow tasks
+            Map<ApprovalPolicy.Mode, long[]> totals = new EnumMap<>(ApprovalPolicy.Mode.class);
+            for (int i = 0; i < rounds; i++) {
+                for (ApprovalPolicy.Mode mode : modes) {
+                    String workflowId = "test-approval-" + mode + "-" + i + "-" + System.nanoTime();
+                    OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                            WorkflowOptions.newBuilder()
+                                    .setTaskQueue("approval-" + mode)
+                                    .setWorkflowId(workflowId)
+                                    .build());
+                    workflow.fulfillOrder(createValidOrder());
+
+                    long[] total = totals.computeIfAbsent(mode, m -> new long[3]);
+                    for (HistoryEvent event : testEnv.getWorkflowClient().fetchHistory(workflowId).getEvents()) {
+                        total[0] += event.hasMarkerRecordedEventAttributes() ? 1 : 0;
+                        total[1] += event.hasActivityTaskScheduledEventAttributes() ? 1 : 0;
+                        total[2] += event.hasWorkflowTaskScheduledEventAttributes() ? 1 : 0;
+                    }
+                }
+            }
+
+            for (ApprovalPolicy.Mode mode : modes) {
+                long[] total = totals.get(mode);
+
+                // Storing and discarding the order are always local; payment, inventory and delivery always remote
+                long approvalCalls = activities.get(mode).calls.stream().filter("RequireApproval"::equals).count();
+                assertEquals(mode == ApprovalPolicy.Mode.INLINE ? 0 : rounds, approvalCalls);
+                assertEquals(mode == ApprovalPolicy.Mode.LOCAL ? 3 : 2, total[0] / rounds);
+                assertEquals(mode == ApprovalPolicy.Mode.REMOTE ? 4 : 3, total[1] / rounds);
+            }
+            assertTrue("A remote check should cost more workflow tasks than a local one",
+                       totals.get(ApprovalPolicy.Mode.REMOTE)[2] > totals.get(ApprovalPolicy.Mode.LOCAL)[2]);
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testHighValueOrderWaitsForApproval() throws Exception {
+        TestWorkflowEnvironment testEnv = newApprovalEnvironment(WorkerFactoryOptions.getDefaultInstance());
+        try {
+            WorkflowClient client = testEnv.getWorkflowClient();
+
+            OrderFulfillWorkflow approved = startOrder(client, "test-approved-" + System.nanoTime(), createHighValueOrder());
+            awaitApprovalStatus(approved, ApprovalStatus.PENDING);
+            approved.approve();
+            assertTrue(WorkflowStub.fromTyped(approved).getResult(String.class).contains("Order fulfilled"));
+            assertEquals(ApprovalStatus.APPROVED, approved.getApprovalStatus());
+
+            OrderFulfillWorkflow lowValue = startOrder(client, "test-low-value-" + System.nanoTime(), createValidOrder());
+            assertTrue(WorkflowStub.fromTyped(lowValue).getResult(String.class).contains("Order fulfilled"));
+            assertEquals(ApprovalStatus.NOT_REQUIRED, lowValue.getApprovalStatus());
+
+            OrderFulfillWorkflow rejected = startOrder(client, "test-rejected-" + System.nanoTime(), createHighValueOrder());
+            awaitApprovalStatus(rejected, ApprovalStatus.PENDING);
+            rejected.reject("Suspicious quantity");
+            assertWorkflowFails(rejected, "Order rejected: Suspicious quantity");
+
+            // Waiting on the result lets the test server skip ahead past the approval timeout
+            OrderFulfillWorkflow ignored = startOrder(client, "test-ignored-" + System.nanoTime(), createHighValueOrder());
+            assertWorkflowFails(ignored, "not approved within");
+            assertEquals(ApprovalStatus.TIMED_OUT, ignored.getApprovalStatus());
+        } finally {
+            testEnv.close();
+        }
+    }
+
     // Helper methods to create test data
 
-    private Order createValidOrder() {
-        // Use real items from the stock database
-        OrderItem item1 = new OrderItem("Pima Cotton T-Shirt", 49.99, 2);
-        CreditCard creditCard = new CreditCard("1234567890123456", "12/25");
-        Payment payment = new Payment(creditCard);
-        return new Order(Arrays.asList(item1), payment);
+    private long fulfillAndMeasureHistory(DataConverter dataConverter, Order order) {
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(WorkflowClientOptions.newBuilder()
+                        .setDataConverter(dataConverter)
+                        .build())
+                .build());
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new StubActivities(0, null));
+            testEnv.start();
+
+            String workflowId = "test-history-size-" + System.nanoTime();
+            OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId(workflowId)
+                            .build());
+            workflow.fulfillOrder(order);
+            return testEnv.getWorkflowClient().fetchHistory(workflowId).getHistory().getSerializedSize();
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    private String executeWorkflow(OrderFulfillActivities activities, Order order) {
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities);
+            testEnv.start();
+
+            WorkflowClient client = testEnv.getWorkflowClient();
+            OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId("test-workflow-" + System.nanoTime())
+                            .build());
+            return workflow.fulfillOrder(order);
+        } finally {
+            testEnv.close();
+        }
     }
 
     private Order createOrderWithExpiredCard() {
@@ -212,26 +571,23 @@ public class OrderFulfillWorkflowTest {
         return new Order(Arrays.asList(item1), payment);
     }
 
-    private Order createOrderWithMultipleItems() {
-        OrderItem item1 = new OrderItem("Low Top Sneaker (Men)", 67.00, 1);
-        OrderItem item2 = new OrderItem("Tech T-Shirt", 43.20, 2);
-        OrderItem item3 = new OrderItem("Performance Shorts", 69.99, 1);
-        CreditCard creditCard = new CreditCard("1234567890123456", "12/25");
-        Payment payment = new Payment(creditCard);
-        return new Order(Arrays.asList(item1, item2, item3), payment);
-    }
-
-    private Order createHighValueOrder() {
-        // Create an expensive order over $10,000
-        OrderItem expensiveItem1 = new OrderItem("Wool Suit", 599.99, 15); // 15 suits = ~$9000
-        OrderItem expensiveItem2 = new OrderItem("Plain Toe Derby (Men)", 129.99, 10); // 10 shoes = ~$1300
-        CreditCard creditCard = new CreditCard("1234567890123456", "12/25");
+    private Order createOrderWithUnknownItem() {
+        OrderItem item1 = new OrderItem("Cotton T-Shirt@@@", 33.75, 1);
+        CreditCard creditCard = new CreditCard("1234567890123456", "12/30");
         Payment payment = new Payment(creditCard);
-        return new Order(Arrays.asList(expensiveItem1, expensiveItem2), payment);
+        return new Order(Arrays.asList(item1), payment);
     }
 
-    private Payment createValidPayment() {
-        CreditCard creditCard = new CreditCard("1234567890123456", "12/25");
-        return new Payment(creditCard);
+    /**
+     * Count down the latch and wait, well within the activity timeout, for the others to arrive.
+     */
+    private static boolean meet(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(3, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 }
@@ -0,0 +1,74 @@
+package orderfulfillapp;
+
+import orderfulfillapp.activities.OrderFulfillActivities;
+import orderfulfillapp.model.Order;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Activities that sleep for a fixed time and record the order in which they were called.
+ */
+public class StubActivities implements OrderFulfillActivities {
+    public final ConcurrentLinkedQueue<String> calls = new ConcurrentLinkedQueue<>();
+    private final long delayMs;
+    private final Exception reservationFailure;
+
+    public StubActivities(long delayMs, Exception reservationFailure) {
+        this.delayMs = delayMs;
+        this.reservationFailure = reservationFailure;
+    }
+
+    @Override
+    public String storeOrder(Order order) {
+        return "order-1";
+    }
+
+    @Override
+    public void discardOrder(String orderKey) {
+    }
+
+    @Override
+    public boolean requireApproval(String orderKey) {
+        calls.add("RequireApproval");
+        return false;
+    }
+
+    @Override
+    public String processPayment(String orderKey) {
+        return call("ProcessPayment", "Payment processed");
+    }
+
+    @Override
+    public String reserveInventory(String orderKey) throws Exception {
+        if (reservationFailure != null) {
+            calls.add("ReserveInventoryFailed");
+            throw reservationFailure;
+        }
+        return call("ReserveInventory", "Inventory reserved");
+    }
+
+    @Override
+    public String refundPayment(String orderKey) {
+        return call("RefundPayment", "Payment refunded");
+    }
+
+    @Override
+    public String releaseInventory(String orderKey) {
+        return call("ReleaseInventory", "Inventory released");
+    }
+
+    @Override
+    public String deliverOrder(String orderKey) {
+        return call("DeliverOrder", "Order delivered");
+    }
+
+    private String call(String activity, String result) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        calls.add(activity);
+        return result;
+    }
+}
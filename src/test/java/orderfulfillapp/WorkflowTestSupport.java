@@ -0,0 +1,125 @@
+package orderfulfillapp;
+
+import com.uber.m3.tally.NoopScope;
+import com.uber.m3.tally.Scope;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowFailedException;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.model.ApprovalStatus;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.rules.RuleEngine;
+import orderfulfillapp.rules.RuleSet;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Orders and workflow helpers shared by the tests that run order workflows.
+ */
+public final class WorkflowTestSupport {
+    /**
+     * The time payment rules check card expiry against, so the test cards don't expire with the calendar.
+     */
+    public static final Clock TEST_CLOCK = Clock.fixed(Instant.parse("2026-10-17T12:00:00Z"), ZoneOffset.UTC);
+
+    private WorkflowTestSupport() {
+    }
+
+    public static Order createValidOrder() {
+        // Use real items from the stock database
+        OrderItem item1 = new OrderItem("Pima Cotton T-Shirt", 49.99, 2);
+        return new Order(Arrays.asList(item1), createValidPayment());
+    }
+
+    public static Order createOrderWithMultipleItems() {
+        OrderItem item1 = new OrderItem("Low Top Sneaker (Men)", 67.00, 1);
+        OrderItem item2 = new OrderItem("Tech T-Shirt", 43.20, 2);
+        OrderItem item3 = new OrderItem("Performance Shorts", 69.99, 1);
+        return new Order(Arrays.asList(item1, item2, item3), createValidPayment());
+    }
+
+    public static Order createHighValueOrder() {
+        // Create an expensive order over $10,000
+        OrderItem expensiveItem1 = new OrderItem("Wool Suit", 599.99, 15); // 15 suits = ~$9000
+        OrderItem expensiveItem2 = new OrderItem("Plain Toe Derby (Men)", 129.99, 10); // 10 shoes = ~$1300
+        return new Order(Arrays.asList(expensiveItem1, expensiveItem2), createValidPayment());
+    }
+
+    /**
+     * The default approval and payment rules, checked at {@link #TEST_CLOCK}.
+     */
+    public static RuleEngine defaultRules() {
+        return RuleEngine.of(RuleSet.defaults(ApprovalPolicy.DEFAULT_THRESHOLD), TEST_CLOCK);
+    }
+
+    public static Payment createValidPayment() {
+        CreditCard creditCard = new CreditCard("1234567890123456", "12/30");
+        return new Payment(creditCard);
+    }
+
+    /**
+     * Start a test environment whose worker checks approval inline on the real order total.
+     */
+    public static TestWorkflowEnvironment newApprovalEnvironment(WorkerFactoryOptions factoryOptions) {
+        return newApprovalEnvironment(factoryOptions, new NoopScope());
+    }
+
+    public static TestWorkflowEnvironment newApprovalEnvironment(WorkerFactoryOptions factoryOptions, Scope metricsScope) {
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(factoryOptions)
+                .setMetricsScope(metricsScope)
+                .build());
+        Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+        ApprovalPolicy policy = new ApprovalPolicy(ApprovalPolicy.Mode.INLINE, ApprovalPolicy.DEFAULT_THRESHOLD);
+        worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class, () -> new OrderFulfillWorkflowImpl(policy));
+        worker.registerActivitiesImplementations(new StubActivities(0, null));
+        testEnv.start();
+        return testEnv;
+    }
+
+    public static OrderFulfillWorkflow startOrder(WorkflowClient client, String workflowId, Order order) {
+        OrderFulfillWorkflow workflow = client.newWorkflowStub(OrderFulfillWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                        .setWorkflowId(workflowId)
+                        .build());
+        WorkflowClient.start(workflow::fulfillOrder, order);
+        return workflow;
+    }
+
+    public static void awaitApprovalStatus(OrderFulfillWorkflow workflow, ApprovalStatus expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (workflow.getApprovalStatus() != expected) {
+            assertTrue("Approval status should become " + expected, System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    public static void assertWorkflowFails(OrderFulfillWorkflow workflow, String expectedMessage) {
+        try {
+            WorkflowStub.fromTyped(workflow).getResult(String.class);
+            fail("Expected workflow to fail");
+        } catch (WorkflowFailedException e) {
+            assertTrue("Failure should mention '" + expectedMessage + "': " + e.getCause().getMessage(),
+                       e.getCause().getMessage().contains(expectedMessage));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package orderfulfillapp.activities;
+
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerOptions;
+import orderfulfillapp.Shared;
+import orderfulfillapp.api.FulfillmentSimulator;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static orderfulfillapp.WorkflowTestSupport.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the order activities completing payment and delivery by callback.
+ */
+public class OrderFulfillActivitiesImplTest {
+
+    @Test
+    public void testAsyncPaymentAndDeliveryFreeActivitySlots() throws Exception {
+        int orders = 4;
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try (FulfillmentSimulator simulator = new FulfillmentSimulator(1, 1000, 1000)) {
+            // A single activity slot: synchronous payments and deliveries would run one at a time
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE,
+                    WorkerOptions.newBuilder().setMaxConcurrentActivityExecutionSize(1).build());
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new OrderFulfillActivitiesImpl(orderStore, defaultRules(),
+                    testEnv.getWorkflowClient().newActivityCompletionClient(), simulator));
+            testEnv.start();
+
+            List<WorkflowStub> stubs = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                OrderFulfillWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                        WorkflowOptions.newBuilder()
+                                .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                                .setWorkflowId("test-async-" + i + "-" + System.nanoTime())
+                                .build());
+                WorkflowClient.start(workflow::fulfillOrder, createValidOrder());
+                stubs.add(WorkflowStub.fromTyped(workflow));
+            }
+            for (WorkflowStub stub : stubs) {
+                String result = stub.getResult(String.class);
+                assertTrue("Result should mention payment", result.contains("Payment processed for 1 items"));
+                assertTrue("Result should mention delivery", result.contains("Order delivered for 1 items"));
+            }
+            assertTrue("Payments and deliveries should wait in flight together, peak was " + simulator.getPeakInFlight(),
+                       simulator.getPeakInFlight() > 1);
+            assertEquals(0, simulator.getInFlight());
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testCompletionsRunOffTheSimulatorThreads() throws Exception {
+        InMemoryOrderStore orderStore = new InMemoryOrderStore();
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try (FulfillmentSimulator simulator = new FulfillmentSimulator(1, 100, 100)) {
+            // Record the thread of every call to the Temporal service that completes or heartbeats
+            ActivityCompletionClient client = testEnv.getWorkflowClient().newActivityCompletionClient();
+            Set<String> callingThreads = ConcurrentHashMap.newKeySet();
+            ActivityCompletionClient recordingClient = (ActivityCompletionClient) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[] {ActivityCompletionClient.class},
+                    (proxy, method, args) -> {
+                        callingThreads.add(Thread.currentThread().getName());
+                        try {
+                            return method.invoke(client, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new OrderFulfillActivitiesImpl(orderStore, defaultRules(),
+                    recordingClient, simulator));
+            testEnv.start();
+
+            OrderFulfillWorkflow workflow = startOrder(testEnv.getWorkflowClient(), "test-completion-" + System.nanoTime(),
+                    createValidOrder());
+            String result = WorkflowStub.fromTyped(workflow).getResult(String.class);
+            assertTrue("Result should mention delivery", result.contains("Order delivered for 1 items"));
+
+            assertFalse("Payment and delivery should complete", callingThreads.isEmpty());
+            for (String thread : callingThreads) {
+                assertTrue("Completions should run on the completion executor, not " + thread,
+                           thread.startsWith("activity-completion-"));
+            }
+        } finally {
+            testEnv.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.model.StockItem;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarStockTableTest {
+
+    @Test
+    public void testLookupsOnAndOffHeap() {
+        List<StockItem> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            items.add(new StockItem("sku-" + i, i + 0.99, i % 50));
+        }
+        for (boolean offHeap : new boolean[]{false, true}) {
+            ColumnarStockTable table = ColumnarStockTable.of(items, offHeap);
+            assertEquals(offHeap, table.isOffHeap());
+            assertEquals(10_000, table.size());
+            for (int i = 0; i < 10_000; i += 97) {
+                int skuId = table.indexOf("sku-" + i);
+                assertEquals(i, skuId);
+                assertEquals("sku-" + i, table.getName(skuId));
+                assertEquals(i * 100L + 99, table.getPriceCents(skuId));
+                assertEquals(i % 50, table.getStock(skuId));
+            }
+            assertEquals(-1, table.indexOf("sku-10000"));
+            assertEquals(-1, table.indexOf("sku-1@@@"));
+        }
+    }
+
+    @Test
+    public void testFirstDuplicateNameWins() {
+        ColumnarStockTable table = ColumnarStockTable.of(List.of(
+                new StockItem("Boot", 120.0, 10),
+                new StockItem("Boot", 99.0, 3)), false);
+        assertEquals(2, table.size());
+        assertEquals(0, table.indexOf("Boot"));
+    }
+
+    @Test
+    public void testNonAsciiNames() {
+        ColumnarStockTable table = ColumnarStockTable.of(List.of(
+                new StockItem("Boot", 120.0, 10),
+                new StockItem("Espadrille à lacets", 45.5, 4),
+                new StockItem("靴", 80.0, 2)), true);
+        assertEquals(1, table.indexOf("Espadrille à lacets"));
+        assertEquals(2, table.indexOf("靴"));
+        assertEquals("Espadrille à lacets", table.getName(1));
+        assertEquals("靴", table.getName(2));
+        assertEquals(-1, table.indexOf("Espadrille a lacets"));
+    }
+
+    @Test
+    public void testReadsJson() throws Exception {
+        String json = "[{\"itemName\":\"Boot\",\"itemPrice\":49.99,\"stock\":7,\"color\":{\"name\":\"red\"}},"
+                + "{\"itemName\":\"Sneaker\",\"itemPrice\":0.1,\"stock\":0}]";
+        ColumnarStockTable table = ColumnarStockTable.read(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), false);
+        assertEquals(2, table.size());
+        assertEquals(4999, table.getPriceCents(table.indexOf("Boot")));
+        assertEquals(49.99, table.getPrice(0), 0);
+        assertEquals(7, table.getStock(0));
+        assertEquals(10, table.getPriceCents(table.indexOf("Sneaker")));
+        StockItem sneaker = table.getItem(1);
+        assertEquals("Sneaker", sneaker.getItemName());
+        assertEquals(0, sneaker.getStock());
+    }
+}
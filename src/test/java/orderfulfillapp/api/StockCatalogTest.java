@@ -0,0 +1,46 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.model.StockItem;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StockCatalogTest {
+
+    @Test
+    public void testStockCatalogLookup() {
+        StockCatalog catalog = StockCatalog.of(Arrays.asList(
+                new StockItem("Pima Cotton T-Shirt", 49.99, 10),
+                new StockItem("Wool Suit", 599.99, 3)));
+
+        assertEquals("Catalog should index every item", 2, catalog.size());
+        assertEquals("Lookup should return the stocked item",
+                     3, catalog.findItem("Wool Suit").getStock());
+        assertNull("Unknown items should not be found", catalog.findItem("Wool Suit@@@"));
+    }
+
+    @Test
+    public void testStockCatalogReloadSwapsSnapshot() throws Exception {
+        Path stockFile = Files.createTempFile("stock_database", ".json");
+        try {
+            Files.writeString(stockFile, "[{\"itemName\": \"Wool Suit\", \"itemPrice\": 599.99, \"stock\": 3}]");
+            try (StockCatalog catalog = StockCatalog.open(stockFile.toString())) {
+                StockCatalog.Snapshot before = catalog.snapshot();
+
+                Files.writeString(stockFile, "[{\"itemName\": \"Tech T-Shirt\", \"itemPrice\": 43.20, \"stock\": 7}]");
+                catalog.reload();
+
+                assertNotNull("Old snapshot should be unaffected by reload", before.findItem("Wool Suit"));
+                assertNull("New snapshot should drop removed items", catalog.findItem("Wool Suit"));
+                assertEquals("New snapshot should contain added items",
+                             7, catalog.findItem("Tech T-Shirt").getStock());
+            }
+        } finally {
+            Files.deleteIfExists(stockFile);
+        }
+    }
+}
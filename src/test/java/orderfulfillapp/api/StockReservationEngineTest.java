@@ -0,0 +1,165 @@
+package orderfulfillapp.api;
+
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StockReservationEngineTest {
+
+    @Test
+    public void testReservationIsAllOrNothing() throws Exception {
+        StockReservationEngine engine = new StockReservationEngine(createTestCatalog());
+
+        try {
+            engine.reserve("order-1", Arrays.asList(
+                    new OrderItem("Pima Cotton T-Shirt", 49.99, 2),
+                    new OrderItem("Wool Suit", 599.99, 4)));
+            fail("Expected InsufficientStockException to be thrown");
+        } catch (InsufficientStockException e) {
+            assertTrue("Should mention the short item", e.getMessage().contains("Wool Suit"));
+        }
+
+        assertEquals("Failed reservation should not hold any units",
+                     10, engine.getAvailable("Pima Cotton T-Shirt"));
+        assertEquals("Failed reservation should not hold any units",
+                     3, engine.getAvailable("Wool Suit"));
+        assertFalse("Failed reservation should not be recorded", engine.isReserved("order-1"));
+    }
+
+    @Test
+    public void testReservationIsIdempotentAndReleasable() throws Exception {
+        StockReservationEngine engine = new StockReservationEngine(createTestCatalog());
+        List<OrderItem> items = Arrays.asList(
+                new OrderItem("Pima Cotton T-Shirt", 49.99, 2),
+                new OrderItem("Pima Cotton T-Shirt", 49.99, 1));
+
+        engine.reserve("order-1", items);
+        engine.reserve("order-1", items);
+        assertEquals("Retried reservation should only be applied once",
+                     7, engine.getAvailable("Pima Cotton T-Shirt"));
+
+        engine.release("order-1");
+        engine.release("order-1");
+        assertEquals("Released reservation should return its units once",
+                     10, engine.getAvailable("Pima Cotton T-Shirt"));
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        StockReservationEngine engine = new StockReservationEngine(createTestCatalog());
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 200; i++) {
+            String reservationId = "order-" + i;
+            executor.execute(() -> {
+                try {
+                    engine.reserve(reservationId, List.of(new OrderItem("Pima Cotton T-Shirt", 49.99, 1)));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    // Sold out
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals("Only the stocked units should be reserved", 10, succeeded.get());
+        assertEquals("Stock should be exhausted", 0, engine.getAvailable("Pima Cotton T-Shirt"));
+    }
+
+    @Test
+    public void testReservationsDuringReloadKeepStockExact() throws Exception {
+        Path stockFile = Files.createTempFile("stock_database", ".json");
+        Files.writeString(stockFile, "[{\"itemName\": \"Wool Suit\", \"itemPrice\": 599.99, \"stock\": 100}]");
+        try (StockCatalog catalog = StockCatalog.open(stockFile.toString())) {
+            StockReservationEngine engine = new StockReservationEngine(catalog);
+            AtomicBoolean reloading = new AtomicBoolean(true);
+            Thread reloader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        catalog.reload();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    reloading.set(false);
+                }
+            });
+            reloader.start();
+
+            // Reserve and release over and over while the counters are re-seeded underneath
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                String prefix = "order-" + t + "-";
+                executor.execute(() -> {
+                    for (int i = 0; reloading.get(); i++) {
+                        try {
+                            engine.reserve(prefix + i, List.of(new OrderItem("Wool Suit", 599.99, 1)));
+                        } catch (InsufficientStockException e) {
+                            throw new AssertionError(e);
+                        }
+                        engine.release(prefix + i);
+                    }
+                });
+            }
+            executor.shutdown();
+            reloader.join();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(0, engine.getReservationCount());
+            assertEquals("Releases should return exactly the units reservations took",
+                         100, engine.getAvailable("Wool Suit"));
+        } finally {
+            Files.deleteIfExists(stockFile);
+        }
+    }
+
+    @Test
+    public void testHostsOfOneShardShareTheStock() {
+        // Two hosts of one shard, each with an engine seeded from the same catalog
+        StockCatalog catalog = createTestCatalog();
+        List<StockReservationEngine> hosts = List.of(
+                new StockReservationEngine(catalog, 0, 2), new StockReservationEngine(catalog, 1, 2));
+
+        for (String item : List.of("Pima Cotton T-Shirt", "Wool Suit")) {
+            int reserved = 0;
+            boolean soldOut = false;
+            for (int order = 0; !soldOut; order++) {
+                soldOut = true;
+                for (StockReservationEngine host : hosts) {
+                    try {
+                        host.reserve(item + "-" + order, List.of(new OrderItem(item, 10.0, 1)));
+                        reserved++;
+                        soldOut = false;
+                    } catch (InsufficientStockException e) {
+                        // This host's share is sold out
+                    }
+                }
+            }
+            assertEquals("Both hosts together should reserve exactly the stock of " + item,
+                         catalog.findItem(item).getStock(), reserved);
+        }
+    }
+
+    private static StockCatalog createTestCatalog() {
+        return StockCatalog.of(Arrays.asList(
+                new StockItem("Pima Cotton T-Shirt", 49.99, 10),
+                new StockItem("Wool Suit", 599.99, 3)));
+    }
+}
@@ -0,0 +1,134 @@
+package orderfulfillapp.config;
+
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parsing worker settings and mapping them onto SDK options.
+ */
+public class WorkerConfigTest {
+
+    @Test
+    public void testEnvironmentVariableNames() {
+        assertEquals("WORKER_ACTIVITY_POLLERS", WorkerConfig.toEnvironmentVariable("activityPollers"));
+        assertEquals("WORKER_MAX_CONCURRENT_LOCAL_ACTIVITIES",
+                     WorkerConfig.toEnvironmentVariable("maxConcurrentLocalActivities"));
+    }
+
+    @Test
+    public void testHostIdIsKeptInLedgerDir() throws Exception {
+        Path ledgerDir = Files.createTempDirectory("ledger");
+        String hostId = WorkerConfig.fromSettings(Map.of("ledgerDir", ledgerDir.toString())).toHostId();
+
+        assertEquals("A restarted host should reuse its host id",
+                     hostId, WorkerConfig.fromSettings(Map.of("ledgerDir", ledgerDir.toString())).toHostId());
+        assertNotEquals("Another ledger should get another host id",
+                        hostId, WorkerConfig.fromSettings(Map.of("ledgerDir", Files.createTempDirectory("ledger").toString())).toHostId());
+        assertEquals("A configured host id should win", "inventory-1", WorkerConfig.fromSettings(Map.of(
+                "ledgerDir", ledgerDir.toString(), "hostId", "inventory-1")).toHostId());
+    }
+
+    @Test
+    public void testInventoryWorkerHasItsOwnMetricsPort() {
+        WorkerConfig defaults = WorkerConfig.fromSettings(Map.of());
+        assertEquals(8077, defaults.getMetricsPort());
+        assertEquals(8078, defaults.getInventoryMetricsPort());
+
+        WorkerConfig configured = WorkerConfig.fromSettings(Map.of("metricsPort", "0"));
+        assertEquals(0, configured.getMetricsPort());
+        assertEquals(0, configured.getInventoryMetricsPort());
+    }
+
+    @Test
+    public void testFixedSlotsAndFactoryOptions() {
+        WorkerConfig config = WorkerConfig.fromSettings(Map.of(
+                "maxConcurrentActivities", "64",
+                "activityPollers", "8",
+                "workflowCacheSize", "1000"));
+
+        WorkerOptions options = config.toWorkerOptions();
+        assertEquals(64, options.getMaxConcurrentActivityExecutionSize());
+        assertEquals(8, options.getMaxConcurrentActivityTaskPollers());
+
+        WorkerFactoryOptions factoryOptions = config.toWorkerFactoryOptions();
+        assertEquals(1000, factoryOptions.getWorkflowCacheSize());
+    }
+
+    @Test
+    public void testVirtualThreadModeRaisesActivitySlots() {
+        WorkerConfig config = WorkerConfig.fromSettings(Map.of("threadMode", "virtual"));
+
+        WorkerOptions options = config.toWorkerOptions();
+        assertEquals(WorkerConfig.VIRTUAL_MAX_CONCURRENT_ACTIVITIES, options.getMaxConcurrentActivityExecutionSize());
+        assertEquals(WorkerConfig.VIRTUAL_ACTIVITY_POLLERS, options.getMaxConcurrentActivityTaskPollers());
+    }
+
+    @Test
+    public void testResourceTunerReplacesFixedSlots() {
+        WorkerConfig config = WorkerConfig.fromSettings(Map.of(
+                "tuner", "resource",
+                "maxConcurrentActivities", "500",
+                "targetCpuUsage", "0.7"));
+
+        WorkerOptions options = config.toWorkerOptions();
+        assertNotNull("Resource tuner should be set", options.getWorkerTuner());
+    }
+
+    @Test
+    public void testApprovalPolicy() {
+        assertEquals(ApprovalPolicy.Mode.LOCAL, WorkerConfig.fromSettings(Map.of()).toApprovalPolicy().getMode());
+
+        ApprovalPolicy policy = WorkerConfig.fromSettings(Map.of(
+                "approvalMode", "inline",
+                "approvalThreshold", "500",
+                "approvalTimeout", "PT2H")).toApprovalPolicy();
+        assertEquals(ApprovalPolicy.Mode.INLINE, policy.getMode());
+        assertEquals(500, policy.getThreshold(), 0.0);
+        assertEquals(Duration.ofHours(2), policy.getTimeout());
+    }
+
+    @Test
+    public void testShardsPolledByWorker() {
+        assertEquals(Set.of(0), WorkerConfig.fromSettings(Map.of()).getPolledShards());
+        assertEquals(Set.of(0, 1, 2, 3), WorkerConfig.fromSettings(Map.of("shards", "4")).getPolledShards());
+
+        WorkerConfig config = WorkerConfig.fromSettings(Map.of("shards", "8", "workerShards", "0-2, 6"));
+        assertEquals(Set.of(0, 1, 2, 6), config.getPolledShards());
+        assertEquals(8, config.toShardRouter("queue").getShards());
+    }
+
+    @Test
+    public void testStockShare() {
+        WorkerConfig defaults = WorkerConfig.fromSettings(Map.of());
+        assertEquals(0, defaults.getStockShare());
+        assertEquals(1, defaults.getStockShares());
+
+        WorkerConfig config = WorkerConfig.fromSettings(Map.of("stockShare", "1/3"));
+        assertEquals(1, config.getStockShare());
+        assertEquals(3, config.getStockShares());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStockShareOutOfRangeIsRejected() {
+        WorkerConfig.fromSettings(Map.of("stockShare", "2/2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWorkerShardOutOfRangeIsRejected() {
+        WorkerConfig.fromSettings(Map.of("shards", "4", "workerShards", "2-4"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSettingIsRejected() {
+        WorkerConfig.fromSettings(Map.of("activityPoller", "8"));
+    }
+}
@@ -0,0 +1,46 @@
+package orderfulfillapp.converter;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for threshold-based payload compression.
+ */
+public class CompressionPayloadCodecTest {
+    private final CompressionPayloadCodec codec = new CompressionPayloadCodec(256);
+
+    @Test
+    public void testLargePayloadsAreCompressedAndRestored() {
+        Payload large = payload("Wool Suit, ".repeat(100));
+        Payload small = payload("Wool Suit");
+
+        List<Payload> encoded = codec.encode(Arrays.asList(large, small));
+        assertEquals(CompressionPayloadCodec.ENCODING_TYPE,
+                     encoded.get(0).getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+        assertTrue(encoded.get(0).getSerializedSize() < large.getSerializedSize());
+        assertSame("Payloads below the threshold are left alone", small, encoded.get(1));
+
+        assertEquals(Arrays.asList(large, small), codec.decode(encoded));
+    }
+
+    @Test
+    public void testUncompressedPayloadsDecodeUnchanged() {
+        Payload payload = payload("Wool Suit, ".repeat(100));
+        assertEquals(payload, codec.decode(Collections.singletonList(payload)).get(0));
+    }
+
+    private static Payload payload(String json) {
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+                .setData(ByteString.copyFromUtf8("\"" + json + "\""))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package orderfulfillapp.converter;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.EncodingKeys;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderBatch;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.OrderResult;
+import orderfulfillapp.model.Payment;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the binary encoding of order payloads and its fallback to JSON.
+ */
+public class OrderBinaryPayloadConverterTest {
+    private final DataConverter dataConverter = OrderBinaryPayloadConverter.newDataConverter();
+
+    @Test
+    public void testOrderRoundTripIsSmallerThanJson() {
+        Order order = new Order(
+                Arrays.asList(new OrderItem("Pima Cotton T-Shirt", 49.99, 2), new OrderItem("Wool Suit", 599.99, 1)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+
+        Payload payload = dataConverter.toPayload(order).orElseThrow();
+        assertEquals(OrderBinaryPayloadConverter.ENCODING_TYPE,
+                     payload.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+
+        Order decoded = dataConverter.fromPayload(payload, Order.class, Order.class);
+        assertEquals(2, decoded.getItems().size());
+        assertEquals("Wool Suit", decoded.getItems().get(1).getItemName());
+        assertEquals(599.99, decoded.getItems().get(1).getItemPrice(), 0.0);
+        assertEquals(2, decoded.getItems().get(0).getQuantity());
+        assertEquals("12/30", decoded.getPayment().getCreditCard().getExpiration());
+        assertEquals(order.getTotalAmount(), decoded.getTotalAmount(), 0.0);
+
+        Payload json = DefaultDataConverter.STANDARD_INSTANCE.toPayload(order).orElseThrow();
+        assertTrue("Binary payload should be smaller than JSON", payload.getData().size() < json.getData().size());
+    }
+
+    @Test
+    public void testListsAndNullsRoundTrip() {
+        List<OrderResult> results = Arrays.asList(OrderResult.succeeded("ok"), new OrderResult(7, false, null));
+        Payload payload = dataConverter.toPayload(results).orElseThrow();
+
+        @SuppressWarnings("unchecked")
+        List<OrderResult> decoded = dataConverter.fromPayload(payload, List.class, List.class);
+        assertEquals(2, decoded.size());
+        assertEquals("ok", decoded.get(0).getMessage());
+        assertEquals(7, decoded.get(1).getOrderIndex());
+        assertNull(decoded.get(1).getMessage());
+
+        Order empty = dataConverter.fromPayload(dataConverter.toPayload(new Order()).orElseThrow(), Order.class, Order.class);
+        assertNull(empty.getItems());
+        assertNull(empty.getPayment());
+    }
+
+    @Test
+    public void testBatchRoundTripsByReference() {
+        OrderBatch batch = new OrderBatch("batch-1", 5000, 100, 1000);
+        batch.setNextOrder(1000);
+        batch.setSucceeded(990);
+        for (int orderIndex : List.of(4, 17, 250, 251, 600, 802, 999)) {
+            batch.addFailedOrder(orderIndex);
+        }
+        for (int orderIndex : List.of(3, 410, 411)) {
+            batch.addHeldOrder(orderIndex);
+        }
+
+        Payload payload = dataConverter.toPayload(batch).orElseThrow();
+        assertTrue("A batch should only carry its counts and the orders that did not succeed",
+                   payload.getData().size() < 48);
+
+        OrderBatch decoded = dataConverter.fromPayload(payload, OrderBatch.class, OrderBatch.class);
+        assertEquals("batch-1", decoded.getBatchId());
+        assertEquals(5000, decoded.getOrderCount());
+        assertEquals(1000, decoded.getNextOrder());
+        assertEquals(100, decoded.getChunkSize());
+        assertEquals(1000, decoded.getOrdersPerRun());
+        assertEquals(990, decoded.getSucceeded());
+        assertEquals(7, decoded.getFailed());
+        assertEquals(3, decoded.getHeldForApproval());
+        assertEquals(List.of(4, 17, 250, 251, 600, 802, 999), decoded.getFailedOrders());
+        assertEquals(List.of(3, 410, 411), decoded.getHeldOrders());
+    }
+
+    @Test
+    public void testOtherValuesFallBackToJson() {
+        for (Object value : Arrays.asList("order-1", Collections.emptyList(), Arrays.asList("a", "b"))) {
+            Payload payload = dataConverter.toPayload(value).orElseThrow();
+            assertEquals("json/plain", payload.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8());
+        }
+
+        // Orders recorded as JSON before the binary encoding still decode
+        Payload json = DefaultDataConverter.STANDARD_INSTANCE.toPayload(new Order(
+                Collections.singletonList(new OrderItem("Wool Suit", 599.99, 1)), null)).orElseThrow();
+        Order decoded = dataConverter.fromPayload(json, Order.class, Order.class);
+        assertEquals("Wool Suit", decoded.getItems().get(0).getItemName());
+    }
+
+    @Test
+    public void testOrderIdRoundTripsAndVersionOneStillDecodes() {
+        Order order = new Order("upstream-42", Collections.singletonList(new OrderItem("Wool Suit", 599.99, 1)), null);
+        Payload payload = dataConverter.toPayload(order).orElseThrow();
+        assertEquals("upstream-42", dataConverter.fromPayload(payload, Order.class, Order.class).getOrderId());
+
+        // A version 1 order is the same layout without the order id, which here is the null marker at index 2
+        byte[] current = dataConverter.toPayload(new Order(order.getItems(), null)).orElseThrow().getData().toByteArray();
+        byte[] versionOne = new byte[current.length - 1];
+        versionOne[0] = 1;
+        versionOne[1] = current[1];
+        System.arraycopy(current, 3, versionOne, 2, current.length - 3);
+        Order decoded = dataConverter.fromPayload(payload.toBuilder().setData(ByteString.copyFrom(versionOne)).build(),
+                Order.class, Order.class);
+        assertNull(decoded.getOrderId());
+        assertEquals("Wool Suit", decoded.getItems().get(0).getItemName());
+    }
+
+    @Test(expected = DataConverterException.class)
+    public void testNewerSchemaVersionIsRejected() {
+        Payload payload = dataConverter.toPayload(new OrderItem("Wool Suit", 599.99, 1)).orElseThrow();
+        byte[] data = payload.getData().toByteArray();
+        data[0] = (byte) (OrderBinaryPayloadConverter.SCHEMA_VERSION + 1);
+        dataConverter.fromPayload(payload.toBuilder().setData(ByteString.copyFrom(data)).build(),
+                OrderItem.class, OrderItem.class);
+    }
+}
@@ -0,0 +1,119 @@
+package orderfulfillapp.ledger;
+
+import orderfulfillapp.api.StockCatalog;
+import orderfulfillapp.api.StockReservationEngine;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class InventoryLedgerTest {
+    private static final StockCatalog CATALOG = StockCatalog.of(List.of(
+            new StockItem("Boot", 120.0, 10),
+            new StockItem("Sneaker", 60.0, 10)));
+
+    @Test
+    public void testRecoversReservationsAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("ledger");
+        StockReservationEngine engine = new StockReservationEngine(CATALOG);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, engine)) {
+            engine.reserve("order-1", List.of(new OrderItem("Boot", 120.0, 2)));
+            engine.reserve("order-2", List.of(new OrderItem("Boot", 120.0, 1), new OrderItem("Sneaker", 60.0, 3)));
+            engine.release("order-1");
+            ledger.snapshot();
+            engine.reserve("order-3", List.of(new OrderItem("Sneaker", 60.0, 4)));
+            engine.release("order-2");
+        }
+
+        StockReservationEngine restarted = new StockReservationEngine(CATALOG);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, restarted)) {
+            assertEquals(1, ledger.getRecoveredReservations());
+            assertEquals("Only the records after the snapshot are replayed", 2, ledger.getReplayedEvents());
+            assertTrue(restarted.isReserved("order-3"));
+            assertEquals(10, restarted.getAvailable("Boot"));
+            assertEquals(6, restarted.getAvailable("Sneaker"));
+
+            // Reservations go on being recorded after recovery
+            restarted.release("order-3");
+        }
+
+        StockReservationEngine again = new StockReservationEngine(CATALOG);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, again)) {
+            assertEquals(0, ledger.getRecoveredReservations());
+            assertEquals(10, again.getAvailable("Sneaker"));
+        }
+    }
+
+    @Test
+    public void testTornRecordEndsRecovery() throws Exception {
+        Path directory = Files.createTempDirectory("ledger");
+        StockReservationEngine engine = new StockReservationEngine(CATALOG);
+        long segment;
+        try (InventoryLedger ledger = InventoryLedger.open(directory, engine)) {
+            engine.reserve("order-1", List.of(new OrderItem("Boot", 120.0, 2)));
+            segment = ledger.getWriteAheadLog().getSegment();
+        }
+        // A crash in the middle of writing the next record
+        Files.write(WriteAheadLog.segmentPath(directory, segment), new byte[]{0, 0, 0, 40, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        StockReservationEngine restarted = new StockReservationEngine(CATALOG);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, restarted)) {
+            assertEquals(1, ledger.getReplayedEvents());
+            assertEquals(8, restarted.getAvailable("Boot"));
+        }
+    }
+
+    @Test
+    public void testSnapshotReplacesOlderSegments() throws Exception {
+        Path directory = Files.createTempDirectory("ledger");
+        StockReservationEngine engine = new StockReservationEngine(CATALOG);
+        try (InventoryLedger ledger = InventoryLedger.open(directory, engine)) {
+            engine.reserve("order-1", List.of(new OrderItem("Boot", 120.0, 2)));
+            ledger.snapshot();
+            engine.reserve("order-2", List.of(new OrderItem("Boot", 120.0, 1)));
+            ledger.snapshot();
+
+            List<Long> segments = WriteAheadLog.segments(directory);
+            assertEquals(List.of(ledger.getWriteAheadLog().getSegment()), segments);
+            assertEquals(segments, LedgerSnapshot.snapshots(directory));
+        }
+    }
+
+    @Test
+    public void testConcurrentWritersShareFsyncs() throws Exception {
+        Path directory = Files.createTempDirectory("ledger");
+        int writers = 16;
+        int recordsPerWriter = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try (WriteAheadLog wal = new WriteAheadLog(directory, true)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerWriter; i++) {
+                        wal.write(new byte[64]);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(writers * recordsPerWriter, wal.getAppended());
+            assertTrue("Writers should share fsyncs", wal.getFlushes() < wal.getAppended());
+            assertEquals(writers * recordsPerWriter, WriteAheadLog.read(directory, wal.getSegment(), record -> { }));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
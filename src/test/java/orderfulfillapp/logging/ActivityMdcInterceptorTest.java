@@ -0,0 +1,65 @@
+package orderfulfillapp.logging;
+
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import orderfulfillapp.Shared;
+import orderfulfillapp.StubActivities;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static orderfulfillapp.WorkflowTestSupport.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the workflow context added to activity logs.
+ */
+public class ActivityMdcInterceptorTest {
+
+    @Test
+    public void testActivityLogsCarryWorkflowContext() {
+        List<String> paymentContext = new ArrayList<>();
+        StubActivities activities = new StubActivities(0, null) {
+            @Override
+            public String processPayment(String orderKey) {
+                paymentContext.add(MDC.get(ActivityMdcInterceptor.WORKFLOW_ID));
+                paymentContext.add(MDC.get(ActivityMdcInterceptor.ACTIVITY_TYPE));
+                paymentContext.add(MDC.get(ActivityMdcInterceptor.ATTEMPT));
+                return super.processPayment(orderKey);
+            }
+        };
+
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(WorkerFactoryOptions.newBuilder()
+                        .setWorkerInterceptors(new ActivityMdcInterceptor())
+                        .build())
+                .build());
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities);
+            testEnv.start();
+
+            String workflowId = "test-mdc-" + System.nanoTime();
+            testEnv.getWorkflowClient().newWorkflowStub(OrderFulfillWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                            .setWorkflowId(workflowId)
+                            .build())
+                    .fulfillOrder(createValidOrder());
+
+            assertEquals(Arrays.asList(workflowId, "ProcessPayment", "1"), paymentContext);
+            assertNull("Context should be cleared after the activity", MDC.get(ActivityMdcInterceptor.WORKFLOW_ID));
+        } finally {
+            testEnv.close();
+        }
+    }
+}
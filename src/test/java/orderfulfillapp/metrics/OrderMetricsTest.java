@@ -0,0 +1,51 @@
+package orderfulfillapp.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.temporal.activity.Activity;
+import io.temporal.failure.ApplicationFailure;
+import orderfulfillapp.api.InventoryApi;
+import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.model.OrderItem;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the inventory and activity failure metrics.
+ */
+public class OrderMetricsTest {
+
+    @Test
+    public void testReservationMissesAreRecordedAndScraped() throws Exception {
+        PrometheusMeterRegistry registry = OrderMetrics.enable();
+        double missesBefore = Metrics.counter(InventoryApi.RESERVE_MISSES, "reason", "invalid_item").count();
+
+        try {
+            InventoryApi.reserveInventory("metrics-test",
+                    Collections.singletonList(new OrderItem("No Such Item", 1.0, 1)));
+            fail("Reserving an unknown item should fail");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+
+        assertEquals(missesBefore + 1,
+                     Metrics.counter(InventoryApi.RESERVE_MISSES, "reason", "invalid_item").count(), 0.0);
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("orderfulfill_inventory_misses_total{reason=\"invalid_item\""));
+        assertTrue("Reservation latency should be a histogram",
+                   scrape.contains("orderfulfill_inventory_reserve_seconds_bucket{outcome=\"invalid_item\""));
+    }
+
+    @Test
+    public void testFailuresAreNamedByTheExceptionTheActivityThrew() {
+        assertEquals("CreditCardExpiredException",
+                     MetricsInterceptor.exceptionType(Activity.wrap(new CreditCardExpiredException("expired"))));
+        assertEquals("IllegalStateException",
+                     MetricsInterceptor.exceptionType(new IllegalStateException("missing")));
+        assertEquals("PaymentDeclined",
+                     MetricsInterceptor.exceptionType(ApplicationFailure.newFailure("declined", "PaymentDeclined")));
+    }
+}
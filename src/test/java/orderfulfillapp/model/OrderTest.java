@@ -0,0 +1,77 @@
+package orderfulfillapp.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for order totals in cents and their JSON form.
+ */
+public class OrderTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testTotalIsExactInCents() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new OrderItem("Sock", 0.1, 1));
+        }
+        items.add(new OrderItem("Boot", 49.99, 3));
+        Order order = new Order(items, null);
+
+        assertEquals(100 + 14997, order.getTotalCents());
+        assertEquals(150.97, order.getTotalAmount(), 0.0);
+
+        order.setItems(List.of(new OrderItem("Boot", 0.2, 1)));
+        assertEquals("Changing the items recomputes the total", 20, order.getTotalCents());
+
+        // The order keeps its own copy, so a total read early can't go stale
+        List<OrderItem> mutable = new ArrayList<>(List.of(new OrderItem("Boot", 0.2, 1)));
+        order.setItems(mutable);
+        assertTrue(order.toString(), order.toString().contains("totalAmount=0.2"));
+        mutable.add(new OrderItem("Sock", 0.1, 3));
+        assertEquals(1, order.getItems().size());
+        assertEquals(20, order.getTotalCents());
+        try {
+            order.getItems().add(new OrderItem("Sock", 0.1, 3));
+            fail("The order's items should be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals(0, new Order(null, null).getTotalCents());
+    }
+
+    @Test
+    public void testJsonKeepsDecimalPrices() throws Exception {
+        Order order = objectMapper.readValue(
+                "{\"items\":[{\"itemName\":\"Boot\",\"itemPrice\":49.99,\"quantity\":2}],\"totalAmount\":1}",
+                Order.class);
+        assertEquals(4999, order.getItems().get(0).getItemPriceCents());
+        assertEquals(9998, order.getTotalCents());
+
+        String json = objectMapper.writeValueAsString(order);
+        assertTrue(json, json.contains("\"itemPrice\":49.99"));
+        assertFalse(json, json.contains("Cents"));
+    }
+
+    @Test
+    public void testBulkTotalsMatchOrderTotals() {
+        List<Order> orders = List.of(
+                new Order(List.of(new OrderItem("Boot", 120.0, 2), new OrderItem("Sock", 4.99, 7)), null),
+                new Order(List.of(), null),
+                new Order(null, null),
+                new Order(List.of(new OrderItem("Suit", 15000.0, 1)), null));
+        OrderTotals totals = OrderTotals.of(orders);
+        assertEquals(4, totals.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(orders.get(i).getTotalCents(), totals.getTotalCents(i));
+        }
+        assertEquals(24000 + 3493 + 1500000, totals.getSumCents());
+        assertEquals(1, totals.countOver(Money.toCents(10000)));
+        assertEquals("15274.93", Money.format(totals.getSumCents()));
+        assertEquals("-0.05", Money.format(-5));
+    }
+}
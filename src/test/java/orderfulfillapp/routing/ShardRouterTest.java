@@ -0,0 +1,74 @@
+package orderfulfillapp.routing;
+
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ShardRouterTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void testUnshardedUsesBaseQueue() {
+        ShardRouter router = ShardRouter.unsharded("orders");
+        assertFalse(router.isSharded());
+        assertEquals(0, router.shardFor("order-1"));
+        assertEquals("orders", router.orderQueueFor("order-1"));
+    }
+
+    @Test
+    public void testShardedQueueNames() {
+        ShardRouter router = new ShardRouter("orders", 4);
+        assertEquals("orders-3", router.orderQueue(3));
+        assertEquals("orders-inventory-3", router.inventoryQueue(3));
+
+        int shard = router.shardFor("order-1");
+        assertEquals(shard, new ShardRouter("orders", 4).shardFor("order-1"));
+        assertEquals(router.orderQueue(shard), router.orderQueueFor("order-1"));
+    }
+
+    @Test
+    public void testKeysSpreadEvenly() {
+        int shards = 8;
+        ShardRouter router = new ShardRouter("orders", shards);
+        int[] counts = new int[shards];
+        for (int i = 0; i < KEYS; i++) {
+            counts[router.shardFor("sku-" + i)]++;
+        }
+        for (int count : counts) {
+            // Within 25% of a perfectly even share
+            assertEquals((double) KEYS / shards, count, 0.25 * KEYS / shards);
+        }
+    }
+
+    @Test
+    public void testAddingShardMovesFewKeys() {
+        ShardRouter before = new ShardRouter("orders", 4);
+        ShardRouter after = new ShardRouter("orders", 5);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int from = before.shardFor("order-" + i);
+            int to = after.shardFor("order-" + i);
+            if (from != to) {
+                assertEquals("Keys should only move to the new shard", 4, to);
+                moved++;
+            }
+        }
+        // Ideally 1/5 of the keys move; modulo hashing would move 4/5
+        assertEquals(0.2, (double) moved / KEYS, 0.05);
+    }
+
+    @Test
+    public void testInventoryShardsOfOrder() {
+        ShardRouter router = new ShardRouter("orders", 4);
+        Order order = new Order(List.of(new OrderItem("Boot", 120.0, 1), new OrderItem("Sneaker", 60.0, 2)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+        assertEquals(Set.of(router.shardFor("Boot"), router.shardFor("Sneaker")), router.inventoryShardsFor(order));
+    }
+}
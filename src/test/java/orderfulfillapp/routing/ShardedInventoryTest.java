@@ -0,0 +1,336 @@
+package orderfulfillapp.routing;
+
+import io.temporal.api.history.v1.ActivityTaskScheduledEventAttributes;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowFailedException;
+import io.temporal.client.WorkflowStub;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactory;
+import orderfulfillapp.KeyOnlyActivities;
+import orderfulfillapp.Shared;
+import orderfulfillapp.StubActivities;
+import orderfulfillapp.activities.InventoryActivities;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.exception.InsufficientStockException;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.starter.OrderIdentity;
+import orderfulfillapp.store.InMemoryOrderStore;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static orderfulfillapp.WorkflowTestSupport.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for routing an order's inventory activities to the shards and hosts that hold its items.
+ */
+public class ShardedInventoryTest {
+
+    @Test
+    public void testShardedReservationsReleaseOnFailure() {
+        ShardRouter router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE, 4);
+        Order order = new Order(Arrays.asList(
+                new OrderItem("Boot", 120.0, 1), new OrderItem("Sneaker", 60.0, 1),
+                new OrderItem("Sandal", 40.0, 1), new OrderItem("Loafer", 90.0, 1)), createValidPayment());
+        List<Integer> orderShards = new ArrayList<>(router.inventoryShardsFor(order));
+        assertTrue("The order should span several inventory shards", orderShards.size() > 1);
+        int failingShard = orderShards.get(orderShards.size() - 1);
+
+        StubActivities activities = new StubActivities(0, null);
+        ShardInventoryActivities inventory = new ShardInventoryActivities(router.hostInventoryQueue("test-host"));
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            testEnv.newWorker(inventory.hostQueue).registerActivitiesImplementations(inventory);
+            // Each shard gets its own pair of queues, as if polled by a separate worker
+            for (int shard = 0; shard < router.getShards(); shard++) {
+                Worker worker = testEnv.newWorker(router.orderQueue(shard));
+                worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                        () -> new OrderFulfillWorkflowImpl(ApprovalPolicy.defaults(), router));
+                worker.registerActivitiesImplementations(activities);
+                testEnv.newWorker(router.inventoryQueue(shard)).registerActivitiesImplementations(inventory);
+            }
+            testEnv.start();
+
+            WorkflowClient client = testEnv.getWorkflowClient();
+            String workflowId = "test-sharded-" + System.nanoTime();
+            String result = client.newWorkflowStub(OrderFulfillWorkflow.class,
+                    OrderIdentity.workflowOptions(router.orderQueueFor(workflowId), workflowId)).fulfillOrder(order);
+            assertTrue("Result should indicate fulfillment", result.contains("Order fulfilled"));
+            for (int shard : orderShards) {
+                assertTrue("Shard " + shard + " should be reserved", inventory.calls.contains("Reserve-" + shard));
+            }
+            assertEquals(orderShards.size(), inventory.calls.size());
+
+            inventory.calls.clear();
+            inventory.failingShard = failingShard;
+            workflowId = "test-sharded-" + System.nanoTime();
+            try {
+                client.newWorkflowStub(OrderFulfillWorkflow.class,
+                        OrderIdentity.workflowOptions(router.orderQueueFor(workflowId), workflowId)).fulfillOrder(order);
+                fail("Expected workflow to fail");
+            } catch (WorkflowFailedException e) {
+                // Expected
+            }
+            for (int shard : orderShards) {
+                assertEquals("Only shards that reserved should release", shard != failingShard,
+                             inventory.calls.contains("Release-" + shard));
+            }
+            assertTrue("Payment should be refunded", activities.calls.contains("RefundPayment"));
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testDedicatedInventoryReleasesOnTheReservingHost() {
+        ShardRouter router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE, 1, true);
+        // Every payment fails, so every reservation is released again
+        KeyOnlyActivities activities = new KeyOnlyActivities(new InMemoryOrderStore()) {
+            @Override
+            public String processPayment(String orderKey) {
+                throw ApplicationFailure.newNonRetryableFailure("Card declined", "CardDeclined");
+            }
+        };
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Worker worker = testEnv.newWorker(router.orderQueue(0));
+            worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                    () -> new OrderFulfillWorkflowImpl(ApprovalPolicy.defaults(), router));
+            worker.registerActivitiesImplementations(activities);
+
+            // Two inventory hosts, each a separate factory polling the shared queue and its own
+            List<ShardInventoryActivities> hosts = new ArrayList<>();
+            List<WorkerFactory> hostFactories = new ArrayList<>();
+            for (String hostId : List.of("host-a", "host-b")) {
+                ShardInventoryActivities host = new ShardInventoryActivities(router.hostInventoryQueue(hostId));
+                WorkerFactory factory = WorkerFactory.newInstance(testEnv.getWorkflowClient());
+                factory.newWorker(router.inventoryQueue(0)).registerActivitiesImplementations(host);
+                factory.newWorker(host.hostQueue).registerActivitiesImplementations(host);
+                hosts.add(host);
+                hostFactories.add(factory);
+            }
+            testEnv.start();
+            hostFactories.forEach(WorkerFactory::start);
+
+            List<OrderFulfillWorkflow> workflows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                workflows.add(startOrder(testEnv.getWorkflowClient(), "test-dedicated-" + i, createValidOrder()));
+            }
+            for (OrderFulfillWorkflow workflow : workflows) {
+                assertWorkflowFails(workflow, "ProcessPayment");
+            }
+
+            int reserved = 0;
+            for (ShardInventoryActivities host : hosts) {
+                assertEquals("Orders should be released on the host that reserved them",
+                             host.reservedOrders, host.releasedOrders);
+                reserved += host.reservedOrders.size();
+            }
+            assertEquals(10, reserved);
+            assertFalse("Nothing should be reserved on the order worker", activities.calls.contains("ReserveInventory"));
+            hostFactories.forEach(WorkerFactory::shutdownNow);
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testReleaseWaitsForTheReservingHost() throws Exception {
+        ShardRouter router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE, 1, true);
+        CountDownLatch hostADown = new CountDownLatch(1);
+        // The payment fails once host A is gone, so the release has to reach a host that is down
+        KeyOnlyActivities activities = new KeyOnlyActivities(new InMemoryOrderStore()) {
+            @Override
+            public String processPayment(String orderKey) {
+                try {
+                    hostADown.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw ApplicationFailure.newNonRetryableFailure("Card declined", "CardDeclined");
+            }
+        };
+        ShardInventoryActivities hostA = new ShardInventoryActivities(router.hostInventoryQueue("host-a"));
+        ShardInventoryActivities hostB = new ShardInventoryActivities(router.hostInventoryQueue("host-b"));
+        TestWorkflowEnvironment testEnv = newInventoryEnvironment(router, activities);
+        try {
+            WorkerFactory factoryA = startHost(testEnv, router, hostA);
+            String workflowId = "test-release-" + System.nanoTime();
+            OrderFulfillWorkflow workflow = startOrder(testEnv.getWorkflowClient(), workflowId, createValidOrder());
+            awaitNotEmpty(hostA.reservedOrders);
+
+            factoryA.shutdownNow();
+            factoryA.awaitTermination(10, TimeUnit.SECONDS);
+            WorkerFactory factoryB = startHost(testEnv, router, hostB);
+            hostADown.countDown();
+            ActivityTaskScheduledEventAttributes release =
+                    awaitScheduled(testEnv.getWorkflowClient(), workflowId, "ReleaseShardInventory", 1).get(0);
+            assertEquals("The release should go to the reserving host", hostA.hostQueue, release.getTaskQueue().getName());
+            assertNoStartDeadline("The release should wait for the host however long it is down", release);
+
+            WorkerFactory restartedA = startHost(testEnv, router, hostA);
+            assertWorkflowFails(workflow, "ProcessPayment");
+            assertEquals("The release should wait for the reserving host", hostA.reservedOrders, hostA.releasedOrders);
+            assertTrue(hostB.calls.isEmpty());
+            factoryB.shutdownNow();
+            restartedA.shutdownNow();
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testFailedReservationStaysOnItsHost() throws Exception {
+        ShardRouter router = new ShardRouter(Shared.ORDER_FULFILL_TASK_QUEUE, 1, true);
+        ShardInventoryActivities hostA = new ShardInventoryActivities(router.hostInventoryQueue("host-a"));
+        ShardInventoryActivities hostB = new ShardInventoryActivities(router.hostInventoryQueue("host-b"));
+        // Host A reserves, then fails to report it, as if the attempt timed out
+        hostA.failAfterReserving = true;
+        TestWorkflowEnvironment testEnv = newInventoryEnvironment(router, new KeyOnlyActivities(new InMemoryOrderStore()));
+        try {
+            WorkerFactory factoryA = startHost(testEnv, router, hostA);
+            String workflowId = "test-retry-" + System.nanoTime();
+            OrderFulfillWorkflow workflow = startOrder(testEnv.getWorkflowClient(), workflowId, createValidOrder());
+            awaitNotEmpty(hostA.reservedOrders);
+
+            factoryA.shutdownNow();
+            factoryA.awaitTermination(10, TimeUnit.SECONDS);
+            WorkerFactory factoryB = startHost(testEnv, router, hostB);
+            // The retry is scheduled on host A's queue, which nobody polls now, without a deadline to start
+            ActivityTaskScheduledEventAttributes retry =
+                    awaitScheduled(testEnv.getWorkflowClient(), workflowId, "ReserveShardInventory", 2).get(1);
+            assertEquals("The order should stay with the host", hostA.hostQueue, retry.getTaskQueue().getName());
+            assertNoStartDeadline("The retry should wait for the host however long it is down", retry);
+
+            hostA.failAfterReserving = false;
+            WorkerFactory restartedA = startHost(testEnv, router, hostA);
+            String result = WorkflowStub.fromTyped(workflow).getResult(String.class);
+            assertTrue("Result should indicate fulfillment", result.contains("Order fulfilled"));
+            assertEquals(1, hostA.reservedOrders.size());
+            assertTrue(hostB.calls.isEmpty());
+            factoryB.shutdownNow();
+            restartedA.shutdownNow();
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    /**
+     * Start a test environment with an order worker on the single order queue, and no inventory hosts.
+     */
+    private static TestWorkflowEnvironment newInventoryEnvironment(ShardRouter router, KeyOnlyActivities activities) {
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        Worker worker = testEnv.newWorker(router.orderQueue(0));
+        worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class,
+                () -> new OrderFulfillWorkflowImpl(ApprovalPolicy.defaults(), router));
+        worker.registerActivitiesImplementations(activities);
+        testEnv.start();
+        return testEnv;
+    }
+
+    /**
+     * Start an inventory host, a separate factory polling the shard's queue and the host's own.
+     */
+    private static WorkerFactory startHost(TestWorkflowEnvironment testEnv, ShardRouter router,
+                                           ShardInventoryActivities host) {
+        WorkerFactory factory = WorkerFactory.newInstance(testEnv.getWorkflowClient());
+        factory.newWorker(router.inventoryQueue(0)).registerActivitiesImplementations(host);
+        factory.newWorker(host.hostQueue).registerActivitiesImplementations(host);
+        factory.start();
+        return factory;
+    }
+
+    /**
+     * Wait until the workflow has scheduled the given activity type at least the given number of
+     * times, and get those schedules in order.
+     */
+    private static List<ActivityTaskScheduledEventAttributes> awaitScheduled(
+            WorkflowClient client, String workflowId, String activityType, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            List<ActivityTaskScheduledEventAttributes> scheduled = client.fetchHistory(workflowId).getEvents().stream()
+                    .filter(HistoryEvent::hasActivityTaskScheduledEventAttributes)
+                    .map(HistoryEvent::getActivityTaskScheduledEventAttributes)
+                    .filter(attributes -> attributes.getActivityType().getName().equals(activityType))
+                    .collect(Collectors.toList());
+            if (scheduled.size() >= count) {
+                return scheduled;
+            }
+            assertTrue(activityType + " should be scheduled " + count + " times", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Check that an activity was scheduled without a schedule-to-start timeout of its own; the
+     * server fills an unset one in with the schedule-to-close timeout.
+     */
+    private static void assertNoStartDeadline(String message, ActivityTaskScheduledEventAttributes scheduled) {
+        assertEquals(message, scheduled.getScheduleToCloseTimeout(), scheduled.getScheduleToStartTimeout());
+    }
+
+    private static void awaitNotEmpty(Set<String> orders) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (orders.isEmpty()) {
+            assertTrue("An order should be reserved", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Inventory activities of one host that record their calls and can fail one shard's reservations,
+     * or fail every reservation after making it.
+     */
+    static class ShardInventoryActivities implements InventoryActivities {
+        final ConcurrentLinkedQueue<String> calls = new ConcurrentLinkedQueue<>();
+        final Set<String> reservedOrders = ConcurrentHashMap.newKeySet();
+        final Set<String> releasedOrders = ConcurrentHashMap.newKeySet();
+        final String hostQueue;
+        volatile int failingShard = -1;
+        volatile boolean failAfterReserving;
+
+        ShardInventoryActivities(String hostQueue) {
+            this.hostQueue = hostQueue;
+        }
+
+        @Override
+        public String getHostTaskQueue() {
+            return hostQueue;
+        }
+
+        @Override
+        public String reserveShardInventory(String orderKey, int shard) throws Exception {
+            if (shard == failingShard) {
+                throw new InsufficientStockException("Insufficient stock on shard " + shard);
+            }
+            calls.add("Reserve-" + shard);
+            reservedOrders.add(orderKey);
+            if (failAfterReserving) {
+                throw new IllegalStateException("Lost the reply for " + orderKey);
+            }
+            return "Inventory reserved on shard " + shard;
+        }
+
+        @Override
+        public String releaseShardInventory(String orderKey, int shard) {
+            calls.add("Release-" + shard);
+            releasedOrders.add(orderKey);
+            return "Inventory released on shard " + shard;
+        }
+    }
+}
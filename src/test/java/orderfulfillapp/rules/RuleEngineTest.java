@@ -0,0 +1,263 @@
+package orderfulfillapp.rules;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import orderfulfillapp.exception.CreditCardExpiredException;
+import orderfulfillapp.exception.PaymentDeclinedException;
+import orderfulfillapp.metrics.OrderMetrics;
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import orderfulfillapp.starter.OrderReader;
+import orderfulfillapp.starter.OrderStarter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RuleEngineTest {
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+    // How long after the test clock the sample cards must stay valid
+    private static final int SAMPLE_EXPIRY_MARGIN_YEARS = 3;
+
+    @Test
+    public void testDefaultsKeepTheThresholdAndTestCard() throws Exception {
+        RuleEngine engine = RuleEngine.of(RuleSet.defaults(10000), CLOCK);
+        assertNull(engine.requiresApproval(order("12/30", new OrderItem("Suit", 5000.0, 2))));
+        assertEquals("large-order", engine.requiresApproval(order("12/30", new OrderItem("Suit", 5000.01, 2))));
+
+        engine.checkPayment("valid", order("12/30", new OrderItem("Boot", 10.0, 1)));
+        try {
+            engine.checkPayment("expired", order("12/23", new OrderItem("Boot", 10.0, 1)));
+            fail("The test data's expired card should be declined");
+        } catch (CreditCardExpiredException expected) {
+        }
+    }
+
+    @Test
+    public void testCompiledConditions() throws Exception {
+        MutableClock clock = new MutableClock();
+        RuleEngine engine = RuleEngine.of(rules(
+                "{\"name\": \"large-order\", \"action\": \"requireApproval\", \"totalOver\": 10000}",
+                "{\"name\": \"mid-tier-bulk\", \"action\": \"requireApproval\", \"totalOver\": 2500, \"totalAtMost\": 10000, \"quantityOver\": 20}",
+                "{\"name\": \"boot-limit\", \"action\": \"requireApproval\", \"item\": \"Boot\", \"quantityOver\": 5}",
+                "{\"name\": \"expired-card\", \"action\": \"decline\", \"cardExpired\": true}",
+                "{\"name\": \"card-velocity\", \"action\": \"decline\", \"cardUsesOver\": 2, \"per\": \"PT1M\"}"), clock);
+
+        assertEquals("large-order", engine.requiresApproval(order("12/30", new OrderItem("Suit", 20000.0, 1))));
+        assertEquals("mid-tier-bulk", engine.requiresApproval(order("12/30", new OrderItem("Sock", 200.0, 21))));
+        assertNull(engine.requiresApproval(order("12/30", new OrderItem("Sock", 1.0, 21))));
+        assertEquals("boot-limit", engine.requiresApproval(order("12/30", new OrderItem("Boot", 10.0, 6))));
+        assertNull(engine.requiresApproval(order("12/30", new OrderItem("Sneaker", 10.0, 6))));
+
+        // Valid through the end of the expiry month
+        assertDeclined(engine, "last-month", order("09/26", new OrderItem("Boot", 10.0, 1)), "expired-card");
+        assertDeclined(engine, "no-month", order("13/26", new OrderItem("Boot", 10.0, 1)), "expired-card");
+        engine.checkPayment("this-month", order("10/26", new OrderItem("Boot", 10.0, 1)));
+        engine.checkPayment("next-year", order("01/2027", new OrderItem("Boot", 10.0, 1)));
+
+        Order sameCard = new Order(List.of(new OrderItem("Boot", 10.0, 1)),
+                new Payment(new CreditCard("4111 1111 1111 1111", "10/26")));
+        for (int attempt = 0; attempt < 5; attempt++) {
+            engine.checkPayment("order-1", sameCard);
+        }
+        engine.checkPayment("order-2", sameCard);
+        assertDeclined(engine, "order-3", sameCard, "card-velocity");
+        assertDeclined(engine, "order-3", sameCard, "card-velocity");
+        // Retries of an order let in before the limit was reached are still let in
+        engine.checkPayment("order-1", sameCard);
+        clock.advanceSeconds(61);
+        engine.checkPayment("order-3", sameCard);
+    }
+
+    @Test
+    public void testRetriesOfAdmittedOrdersPassAfterTheLimit() throws Exception {
+        RuleEngine engine = RuleEngine.of(rules(
+                "{\"name\": \"card-velocity\", \"action\": \"decline\", \"cardUsesOver\": 5, \"per\": \"PT1M\"}"),
+                new MutableClock());
+        Order sameCard = order("12/30", new OrderItem("Boot", 10.0, 1));
+
+        for (int i = 1; i <= 5; i++) {
+            engine.checkPayment("order-" + i, sameCard);
+        }
+        assertDeclined(engine, "order-6", sameCard, "card-velocity");
+        engine.checkPayment("order-1", sameCard);
+        engine.checkPayment("order-5", sameCard);
+        assertDeclined(engine, "order-7", sameCard, "card-velocity");
+    }
+
+    @Test
+    public void testSampleOrdersPassTheBundledRules() throws Exception {
+        RuleSet bundled;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/rules.json")) {
+            bundled = RuleSet.read(in, "data/rules.json");
+        }
+        RuleEngine engine = RuleEngine.of(bundled, CLOCK);
+        List<Order> samples = new ArrayList<>(OrderStarter.getDefaultOrders());
+        try (OrderReader reader = new OrderReader(
+                getClass().getClassLoader().getResourceAsStream("data/test_orders_short_valid.json"))) {
+            reader.forEachRemaining(samples::add);
+        }
+        // A margin past the test clock, so sample cards near their expiry fail here before they fail the demo
+        YearMonth validThrough = YearMonth.now(CLOCK).plusYears(SAMPLE_EXPIRY_MARGIN_YEARS);
+        for (int i = 0; i < samples.size(); i++) {
+            engine.checkPayment("sample-" + i, samples.get(i));
+            String expiration = samples.get(i).getPayment().getCreditCard().getExpiration();
+            assertFalse("Sample card expiring " + expiration + " is too close to expiry",
+                        RuleSet.parseExpiration(expiration).isBefore(validThrough));
+        }
+    }
+
+    @Test
+    public void testVelocityTracksTheMostRecentlyUsedCards() {
+        MutableClock clock = new MutableClock();
+        RuleSet.Velocity velocity = new RuleSet.Velocity(1, 60_000, 2);
+        Order first = new Order(List.of(), new Payment(new CreditCard("4111 1111 1111 1111", "12/30")));
+        Order second = new Order(List.of(), new Payment(new CreditCard("4222 2222 2222 2222", "12/30")));
+        Order third = new Order(List.of(), new Payment(new CreditCard("4333 3333 3333 3333", "12/30")));
+
+        assertFalse(velocity.exceeded(new RuleSet.Facts("a", first, clock)));
+        assertFalse(velocity.exceeded(new RuleSet.Facts("b", second, clock)));
+        assertTrue(velocity.exceeded(new RuleSet.Facts("c", first, clock)));
+        assertFalse(velocity.exceeded(new RuleSet.Facts("d", third, clock)));
+        assertEquals(2, velocity.trackedCards());
+
+        // The second card was used least recently, so its window was dropped
+        assertFalse(velocity.exceeded(new RuleSet.Facts("e", second, clock)));
+        assertTrue(velocity.exceeded(new RuleSet.Facts("f", third, clock)));
+        assertEquals(2, velocity.trackedCards());
+    }
+
+    @Test
+    public void testInvalidRulesAreRejected() throws IOException {
+        String[] invalid = {
+                "{\"name\": \"a\", \"action\": \"requireApproval\", \"totalUnder\": 5}",
+                "{\"name\": \"a\", \"action\": \"hold\", \"totalOver\": 5}",
+                "{\"name\": \"a\", \"action\": \"decline\"}",
+                "{\"name\": \"a\", \"action\": \"decline\", \"totalOver\": \"lots\"}",
+        };
+        for (String rule : invalid) {
+            try {
+                rules(rule);
+                fail("Expected " + rule + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        try {
+            rules("{\"name\": \"a\", \"action\": \"decline\", \"totalOver\": 1}",
+                    "{\"name\": \"a\", \"action\": \"decline\", \"totalOver\": 2}");
+            fail("Expected duplicate rule names to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRulesFileIsReloadedWhenItChanges() throws Exception {
+        Path file = Files.createTempDirectory("rules").resolve("rules.json");
+        Files.writeString(file, "{\"rules\": [{\"name\": \"large-order\", \"action\": \"requireApproval\", \"totalOver\": 100}]}");
+        Order order = order("12/30", new OrderItem("Boot", 60.0, 2));
+        try (RuleEngine engine = RuleEngine.open(file, CLOCK)) {
+            assertEquals("large-order", engine.requiresApproval(order));
+
+            Files.writeString(file, "{\"rules\": [{\"name\": \"larger-order\", \"action\": \"requireApproval\", \"totalOver\": 1000}]}");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (engine.requiresApproval(order) != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertNull("The changed file should have been picked up", engine.requiresApproval(order));
+
+            // A broken file leaves the current rules in place
+            Files.writeString(file, "{\"rules\": [{\"name\": \"broken\"}]}");
+            try {
+                engine.reload();
+                fail("Expected the broken rules to fail to load");
+            } catch (IOException expected) {
+            }
+            assertNull(engine.requiresApproval(order));
+            assertEquals(file.toString(), engine.getRules().getSource());
+        }
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerRule() throws Exception {
+        OrderMetrics.enable();
+        RuleEngine engine = RuleEngine.of(timedRules(
+                "{\"name\": \"latency-first\", \"action\": \"requireApproval\", \"totalOver\": 100}",
+                "{\"name\": \"latency-second\", \"action\": \"requireApproval\", \"item\": \"Boot\"}"), CLOCK);
+        engine.requiresApproval(order("12/30", new OrderItem("Boot", 10.0, 1)));
+        engine.requiresApproval(order("12/30", new OrderItem("Boot", 200.0, 1)));
+
+        Timer first = Metrics.globalRegistry.find(RuleSet.EVALUATION_LATENCY).tag("rule", "latency-first").timer();
+        Timer second = Metrics.globalRegistry.find(RuleSet.EVALUATION_LATENCY).tag("rule", "latency-second").timer();
+        assertEquals(2, first.count());
+        assertEquals("The second rule is skipped once the first matches", 1, second.count());
+        assertEquals(1, Metrics.globalRegistry.find(RuleSet.MATCHES).tag("rule", "latency-first").counter().count(), 0.0);
+    }
+
+    private static void assertDeclined(RuleEngine engine, String orderKey, Order order, String rule) {
+        try {
+            engine.checkPayment(orderKey, order);
+            fail("Expected rule " + rule + " to decline the payment");
+        } catch (PaymentDeclinedException e) {
+            if (rule.equals("expired-card")) {
+                assertTrue(e instanceof CreditCardExpiredException);
+            } else {
+                assertEquals("Payment declined by rule " + rule, e.getMessage());
+            }
+        }
+    }
+
+    private static RuleSet rules(String... definitions) throws IOException {
+        return read("{\"rules\": [" + String.join(",", definitions) + "]}");
+    }
+
+    private static RuleSet timedRules(String... definitions) throws IOException {
+        return read("{\"sampleLatencyEvery\": 1, \"rules\": [" + String.join(",", definitions) + "]}");
+    }
+
+    private static RuleSet read(String json) throws IOException {
+        return RuleSet.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "test");
+    }
+
+    private static Order order(String expiration, OrderItem... items) {
+        return new Order(List.of(items), new Payment(new CreditCard("1234 5678 1234 5678", expiration)));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = NOW;
+
+        void advanceSeconds(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package orderfulfillapp.starter;
+
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.MetricsType;
+import io.temporal.worker.WorkerFactoryOptions;
+import orderfulfillapp.Shared;
+import orderfulfillapp.model.ApprovalStatus;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static orderfulfillapp.WorkflowTestSupport.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for approving orders parked for approval.
+ */
+public class OrderApproverTest {
+
+    @Test
+    public void testParkedApprovalsAreEvictedFromTheStickyCache() throws Exception {
+        int parkedOrders = 300;
+        int cacheSize = 20;
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Scope metricsScope = new RootScopeBuilder()
+                .reporter(new MicrometerClientStatsReporter(registry))
+                .reportEvery(com.uber.m3.util.Duration.ofMillis(100));
+        TestWorkflowEnvironment testEnv = newApprovalEnvironment(WorkerFactoryOptions.newBuilder()
+                .setWorkflowCacheSize(cacheSize)
+                .build(), metricsScope);
+        try {
+            WorkflowClient client = testEnv.getWorkflowClient();
+
+            List<String> workflowIds = new ArrayList<>();
+            List<OrderFulfillWorkflow> workflows = new ArrayList<>();
+            for (int i = 0; i < parkedOrders; i++) {
+                String workflowId = "test-parked-" + i + "-" + System.nanoTime();
+                workflowIds.add(workflowId);
+                workflows.add(startOrder(client, workflowId, createHighValueOrder()));
+            }
+            for (OrderFulfillWorkflow workflow : workflows) {
+                awaitApprovalStatus(workflow, ApprovalStatus.PENDING);
+            }
+
+            // Parked workflows beyond the sticky cache are evicted, holding neither cache memory nor a thread.
+            // Each workflow's first task missed the cache, as it wasn't there yet
+            awaitMetric(registry, MetricsType.STICKY_CACHE_MISS, parkedOrders);
+            double startMisses = metric(registry, MetricsType.STICKY_CACHE_MISS);
+            double cachedWorkflows = metric(registry, MetricsType.STICKY_CACHE_SIZE);
+            assertTrue("Sticky cache should stay within its size, held " + cachedWorkflows,
+                       cachedWorkflows <= cacheSize);
+            long workflowThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("workflow-method-"))
+                    .count();
+            assertTrue("Workflow threads should be bounded by the cache, got " + workflowThreads,
+                       workflowThreads <= cacheSize);
+
+            // Approve them all at once, plus one order that is approved as it starts
+            assertEquals(parkedOrders, new OrderApprover(client).approveAll(workflowIds.iterator()));
+            WorkflowStub preApproved = OrderApprover.startApproved(client, WorkflowOptions.newBuilder()
+                    .setTaskQueue(Shared.ORDER_FULFILL_TASK_QUEUE)
+                    .setWorkflowId("test-pre-approved-" + System.nanoTime())
+                    .build(), createHighValueOrder());
+
+            for (OrderFulfillWorkflow workflow : workflows) {
+                assertTrue(WorkflowStub.fromTyped(workflow).getResult(String.class).contains("Order fulfilled"));
+            }
+            assertTrue(preApproved.getResult(String.class).contains("Order fulfilled"));
+
+            // Evicted workflows missed the cache again and were replayed from history to take their signal
+            awaitMetric(registry, MetricsType.STICKY_CACHE_MISS, startMisses + parkedOrders - cacheSize);
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    /**
+     * Sum of the counters, or value of the gauges, of an SDK metric across all its tags.
+     */
+    private static double metric(MeterRegistry registry, String name) {
+        double total = 0;
+        for (Meter meter : registry.find(name).meters()) {
+            for (Measurement measurement : meter.measure()) {
+                total += measurement.getValue();
+            }
+        }
+        return total;
+    }
+
+    private static void awaitMetric(MeterRegistry registry, String name, double atLeast) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (metric(registry, name) < atLeast) {
+            assertTrue(name + " should reach " + atLeast + ", was " + metric(registry, name),
+                       System.nanoTime() < deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package orderfulfillapp.starter;
+
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.StockItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class OrderGeneratorTest {
+    private static final int SKUS = 1000;
+    private static final int ORDERS = 3 * OrderGenerator.CHUNK_SIZE + 17;
+
+    @Test
+    public void testSameSeedGeneratesSameOrders() {
+        List<Order> first = generator(42).generate(ORDERS);
+        List<Order> second = generator(42).generate(ORDERS);
+        assertEquals(ORDERS, first.size());
+        for (int i = 0; i < ORDERS; i++) {
+            assertEquals(first.get(i).getOrderId(), second.get(i).getOrderId());
+            assertEquals(first.get(i).getItems().toString(), second.get(i).getItems().toString());
+        }
+        assertNotEquals(first.get(0).getOrderId(), generator(43).generate(1).get(0).getOrderId());
+    }
+
+    @Test
+    public void testCountsStayInRange() {
+        OrderGenerator generator = generator(7);
+        generator.setItemCounts(5, Distribution.zipf(1.0));
+        generator.setQuantities(4, Distribution.uniform());
+        generator.setInvalidPercentage(10);
+        List<Order> orders = generator.generate(ORDERS);
+
+        int invalid = 0;
+        for (Order order : orders) {
+            assertTrue(order.getItems().size() >= 1 && order.getItems().size() <= 5);
+            for (OrderItem item : order.getItems()) {
+                assertTrue(item.getQuantity() >= 1 && item.getQuantity() <= 4);
+            }
+            if (order.getItems().get(0).getItemName().endsWith("@@@")) {
+                invalid++;
+            }
+        }
+        assertEquals(ORDERS / 10, invalid);
+    }
+
+    @Test
+    public void testSkewedPopularity() {
+        SplittableRandom random = new SplittableRandom(1);
+        int draws = 100_000;
+
+        // Zipf with s=1 over 1000 values gives the first one 1/H(1000), about 13%
+        Distribution.Sampler zipf = Distribution.zipf(1.0).over(SKUS);
+        int top = 0;
+        for (int i = 0; i < draws; i++) {
+            if (zipf.sample(random) == 0) {
+                top++;
+            }
+        }
+        assertEquals(0.134, (double) top / draws, 0.01);
+
+        Distribution.Sampler hotSet = Distribution.parse("hotset:0.01:0.9").over(SKUS);
+        int hot = 0;
+        for (int i = 0; i < draws; i++) {
+            int value = hotSet.sample(random);
+            assertTrue(value >= 0 && value < SKUS);
+            if (value < 10) {
+                hot++;
+            }
+        }
+        assertEquals(0.9, (double) hot / draws, 0.01);
+    }
+
+    @Test
+    public void testParseRejectsUnknownDistribution() {
+        assertEquals(Distribution.Kind.ZIPF, Distribution.parse("Zipf:1.2").getKind());
+        assertEquals("hotset:0.05:0.9", Distribution.parse("hotset:0.05").toString());
+        try {
+            Distribution.parse("gaussian");
+            fail("Expected an unknown distribution to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("gaussian"));
+        }
+    }
+
+    private static OrderGenerator generator(long seed) {
+        List<StockItem> stock = new ArrayList<>(SKUS);
+        for (int i = 0; i < SKUS; i++) {
+            stock.add(new StockItem("sku-" + i, 10.0 + i, 1000));
+        }
+        return new OrderGenerator(stock, seed);
+    }
+}
@@ -0,0 +1,44 @@
+package orderfulfillapp.starter;
+
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderIdentityTest {
+
+    @Test
+    public void testWorkflowIdIsDeterministic() {
+        assertEquals("order-upstream-7", OrderIdentity.workflowId(order("upstream-7", "Boot", 2)));
+
+        String hashed = OrderIdentity.workflowId(order(null, "Boot", 2));
+        assertTrue(hashed.startsWith(OrderIdentity.CONTENT_HASH_PREFIX));
+        assertEquals(hashed, OrderIdentity.workflowId(order(null, "Boot", 2)));
+        assertNotEquals(hashed, OrderIdentity.workflowId(order(null, "Boot", 3)));
+        assertNotEquals(hashed, OrderIdentity.workflowId(order(null, "Boots", 2)));
+    }
+
+    @Test
+    public void testDedupCacheEvictsLeastRecentlySeen() {
+        StartDedupCache cache = new StartDedupCache(2);
+        assertTrue(cache.firstSeen("a"));
+        assertTrue(cache.firstSeen("b"));
+        assertFalse(cache.firstSeen("a"));
+        assertTrue(cache.firstSeen("c"));
+
+        // "b" was the least recently seen, so it was evicted to make room for "c"
+        assertTrue(cache.firstSeen("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    private static Order order(String orderId, String itemName, int quantity) {
+        return new Order(orderId, List.of(new OrderItem(itemName, 120.0, quantity)),
+                new Payment(new CreditCard("1234 5678 1234 5678", "12/30")));
+    }
+}
@@ -0,0 +1,81 @@
+package orderfulfillapp.starter;
+
+import orderfulfillapp.model.Order;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderReaderTest {
+    private static final String ORDER_1 =
+            "{\"items\":[{\"itemName\":\"Sneaker\",\"itemPrice\":60.0,\"quantity\":2}],"
+                    + "\"payment\":{\"creditCard\":{\"number\":\"1234 5678 1234 5678\",\"expiration\":\"12/30\"}}}";
+    private static final String ORDER_2 =
+            "{\"items\":[{\"itemName\":\"Boot\",\"itemPrice\":120.0,\"quantity\":1}],"
+                    + "\"payment\":{\"creditCard\":{\"number\":\"1234 5678 1234 5678\",\"expiration\":\"12/30\"}}}";
+
+    @Test
+    public void testReadsJsonArray() throws IOException {
+        try (OrderReader reader = reader("[\n  " + ORDER_1 + ",\n  " + ORDER_2 + "\n]\n")) {
+            assertTrue(reader.isArray());
+            assertTotals(readAll(reader), 120.0, 120.0);
+            assertEquals(2, reader.getOrdersRead());
+        }
+    }
+
+    @Test
+    public void testReadsNdjson() throws IOException {
+        try (OrderReader reader = reader(ORDER_1 + "\n" + ORDER_2 + "\n\n")) {
+            assertFalse(reader.isArray());
+            List<Order> orders = readAll(reader);
+            assertTotals(orders, 120.0, 120.0);
+            assertEquals("Boot", orders.get(1).getItems().get(0).getItemName());
+        }
+    }
+
+    @Test
+    public void testEmptyInputHasNoOrders() throws IOException {
+        try (OrderReader reader = reader("")) {
+            assertFalse(reader.hasNext());
+        }
+        try (OrderReader reader = reader("[]")) {
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testReadsOnlyAsFarAsAsked() throws IOException {
+        // The second line is malformed, but the first order is returned before it is reached
+        try (OrderReader reader = reader(ORDER_1 + "\n{\"items\": [\n")) {
+            assertEquals(120.0, reader.next().getTotalAmount(), 0.001);
+            try {
+                reader.next();
+                fail("Expected the malformed order to fail");
+            } catch (UncheckedIOException expected) {
+            }
+        }
+    }
+
+    private static OrderReader reader(String json) throws IOException {
+        return new OrderReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<Order> readAll(OrderReader reader) {
+        List<Order> orders = new ArrayList<>();
+        reader.forEachRemaining(orders::add);
+        return orders;
+    }
+
+    private static void assertTotals(List<Order> orders, double... totals) {
+        assertEquals(totals.length, orders.size());
+        for (int i = 0; i < totals.length; i++) {
+            assertEquals(totals[i], orders.get(i).getTotalAmount(), 0.001);
+        }
+    }
+}
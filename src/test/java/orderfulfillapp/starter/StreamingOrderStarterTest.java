@@ -0,0 +1,196 @@
+package orderfulfillapp.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import orderfulfillapp.Shared;
+import orderfulfillapp.StubActivities;
+import orderfulfillapp.config.ApprovalPolicy;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.workflows.OrderFulfillWorkflow;
+import orderfulfillapp.workflows.OrderFulfillWorkflowImpl;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static orderfulfillapp.WorkflowTestSupport.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for streaming orders from a file into workflows, starting each order once.
+ */
+public class StreamingOrderStarterTest {
+
+    @Test
+    public void testStreamedOrdersStayWithinMaxInFlight() throws Exception {
+        int maxInFlight = 4;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StubActivities activities = new StubActivities(20, null) {
+            @Override
+            public String processPayment(String orderKey) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                return super.processPayment(orderKey);
+            }
+
+            @Override
+            public String deliverOrder(String orderKey) {
+                running.decrementAndGet();
+                return super.deliverOrder(orderKey);
+            }
+        };
+
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities);
+            testEnv.start();
+
+            Path input = Files.createTempFile("orders", ".ndjson");
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                List<String> lines = new ArrayList<>();
+                for (int i = 0; i < 30; i++) {
+                    Order order = createValidOrder();
+                    order.setOrderId("stream-" + i);
+                    lines.add(objectMapper.writeValueAsString(order));
+                }
+                Files.write(input, lines);
+
+                StreamingOrderStarter starter = new StreamingOrderStarter(testEnv.getWorkflowClient(),
+                        Shared.ORDER_FULFILL_TASK_QUEUE, maxInFlight, false);
+                try (OrderReader orders = OrderReader.open(input)) {
+                    assertEquals(30, starter.run(orders));
+                }
+                assertEquals(30, starter.getStarted());
+                assertEquals(0, starter.getFailed());
+                assertTrue("At most " + maxInFlight + " orders should run at once, got " + maxRunning.get(),
+                           maxRunning.get() <= maxInFlight);
+            } finally {
+                Files.deleteIfExists(input);
+            }
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testRepeatedOrdersStartOnce() throws Exception {
+        StubActivities activities = new StubActivities(0, null);
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+        Path input = Files.createTempFile("orders", ".ndjson");
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(OrderFulfillWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities);
+            testEnv.start();
+
+            // Ten orders with upstream ids submitted twice, and one order without an id submitted twice
+            ObjectMapper objectMapper = new ObjectMapper();
+            List<String> lines = new ArrayList<>();
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < 10; i++) {
+                    Order order = createValidOrder();
+                    order.setOrderId("upstream-" + i);
+                    lines.add(objectMapper.writeValueAsString(order));
+                }
+            }
+            lines.add(objectMapper.writeValueAsString(createOrderWithMultipleItems()));
+            lines.add(objectMapper.writeValueAsString(createOrderWithMultipleItems()));
+            Files.write(input, lines);
+
+            StreamingOrderStarter first = new StreamingOrderStarter(testEnv.getWorkflowClient(),
+                    Shared.ORDER_FULFILL_TASK_QUEUE, 8, false);
+            try (OrderReader orders = OrderReader.open(input)) {
+                assertEquals(11, first.run(orders));
+            }
+            assertEquals(11, first.getStarted());
+            assertEquals(11, first.getSkippedRepeats());
+            assertEquals(0, first.getAlreadyStarted());
+
+            // Replaying the file with a tiny cache sends the repeats to the server, which rejects them
+            StreamingOrderStarter replay = new StreamingOrderStarter(testEnv.getWorkflowClient(),
+                    Shared.ORDER_FULFILL_TASK_QUEUE, 8, false, 1);
+            try (OrderReader orders = OrderReader.open(input)) {
+                assertEquals(21, replay.run(orders));
+            }
+            assertEquals(0, replay.getStarted());
+            assertEquals(1, replay.getSkippedRepeats());
+            assertEquals(21, replay.getAlreadyStarted());
+
+            long payments = activities.calls.stream().filter("ProcessPayment"::equals).count();
+            assertEquals("Each order should be charged once", 11, payments);
+        } finally {
+            Files.deleteIfExists(input);
+            testEnv.close();
+        }
+    }
+
+    @Test
+    public void testOrdersParkedForApprovalDontHoldPermits() throws Exception {
+        // Real time, so parked orders keep waiting instead of skipping to their approval timeout
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setUseTimeskipping(false)
+                .build());
+        try {
+            Worker worker = testEnv.newWorker(Shared.ORDER_FULFILL_TASK_QUEUE);
+            ApprovalPolicy policy = new ApprovalPolicy(ApprovalPolicy.Mode.INLINE, ApprovalPolicy.DEFAULT_THRESHOLD);
+            worker.registerWorkflowImplementationFactory(OrderFulfillWorkflow.class, () -> new OrderFulfillWorkflowImpl(policy));
+            worker.registerActivitiesImplementations(new StubActivities(0, null));
+            testEnv.start();
+
+            // More high-value orders than permits, then orders that need no approval
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Order order = createHighValueOrder();
+                order.setOrderId("high-value-" + i);
+                orders.add(order);
+            }
+            for (int i = 0; i < 4; i++) {
+                Order order = createValidOrder();
+                order.setOrderId("low-value-" + i);
+                orders.add(order);
+            }
+
+            StreamingOrderStarter starter = new StreamingOrderStarter(testEnv.getWorkflowClient(),
+                    Shared.ORDER_FULFILL_TASK_QUEUE, 2, false);
+            starter.setApprovalCheckInterval(Duration.ofMillis(100));
+            assertEquals(4, runWithin(starter, orders));
+            assertEquals(4, starter.getParkedForApproval());
+
+            // Pre-approved orders never park and are waited for to the end
+            List<Order> approved = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Order order = createHighValueOrder();
+                order.setOrderId("pre-approved-" + i);
+                approved.add(order);
+            }
+            StreamingOrderStarter preApproved = new StreamingOrderStarter(testEnv.getWorkflowClient(),
+                    Shared.ORDER_FULFILL_TASK_QUEUE, 2, true);
+            assertEquals(4, runWithin(preApproved, approved));
+            assertEquals(0, preApproved.getParkedForApproval());
+        } finally {
+            testEnv.close();
+        }
+    }
+
+    private static long runWithin(StreamingOrderStarter starter, List<Order> orders) throws Exception {
+        CompletableFuture<Long> run = CompletableFuture.supplyAsync(() -> {
+            try {
+                return starter.run(orders.iterator());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return run.get(30, TimeUnit.SECONDS);
+    }
+}
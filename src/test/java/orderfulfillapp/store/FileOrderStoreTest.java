@@ -0,0 +1,35 @@
+package orderfulfillapp.store;
+
+import orderfulfillapp.model.CreditCard;
+import orderfulfillapp.model.Order;
+import orderfulfillapp.model.OrderItem;
+import orderfulfillapp.model.Payment;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FileOrderStoreTest {
+
+    @Test
+    public void testFileOrderStoreRoundTrip() throws Exception {
+        Path directory = Files.createTempDirectory("orders");
+        FileOrderStore orderStore = new FileOrderStore(directory);
+
+        orderStore.put("order-fulfill/1", new Order(Arrays.asList(
+                new OrderItem("Pima Cotton T-Shirt", 49.99, 2),
+                new OrderItem("Wool Suit", 599.99, 1),
+                new OrderItem("Tech T-Shirt", 43.20, 3)),
+                new Payment(new CreditCard("1234567890123456", "12/30"))));
+        Order stored = orderStore.get("order-fulfill/1");
+        assertEquals(3, stored.getItems().size());
+        assertEquals("12/30", stored.getPayment().getCreditCard().getExpiration());
+
+        orderStore.remove("order-fulfill/1");
+        assertNull(orderStore.get("order-fulfill/1"));
+        orderStore.remove("order-fulfill/1");
+    }
+}